@@ -1,61 +1,271 @@
 package com.safeways.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-    @RestController
+/**
+ * Proxy from the browser to Ollama.
+ *
+ * Nothing here holds a request thread while the model generates: upstream calls go through one pooled, keep-alive
+ * HttpClient asynchronously, /generate answers with a CompletableFuture and /generate/stream relays the token
+ * stream line by line as it arrives. Every call is bounded by ai.proxy.deadline-ms.
+ */
+@RestController
 @RequestMapping("/api/ai")
 @CrossOrigin(origins = "*")
 public class AiProxyController {
 
-    private static final String OLLAMA_BASE_URL = "http://192.168.104.42:11434";
+    @Value("${ollama.base-url:http://localhost:11434}")
+    private String ollamaBaseUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // Whole generation, first byte to last
+    @Value("${ai.proxy.deadline-ms:120000}")
+    private long deadlineMs;
 
+    @Value("${ai.proxy.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HttpClient httpClient;
+
+    @PostConstruct
+    public void init() {
+        // Keeps idle connections to Ollama open and reuses them across requests
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    }
+
+    /**
+     * Forwards the request as is and answers with Ollama's response once it is complete
+     */
     @PostMapping("/generate")
-    public ResponseEntity<?> generateProxy(@RequestBody Map<String, Object> request) {
-        try {
-            System.out.println("🤖 AI Proxy: Forwarding request to Ollama at " + OLLAMA_BASE_URL);
+    public CompletableFuture<ResponseEntity<String>> generateProxy(@RequestBody Map<String, Object> request) {
+        System.out.println("🤖 AI Proxy: Forwarding request to Ollama at " + ollamaBaseUrl);
+        long startTime = System.currentTimeMillis();
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+        CompletableFuture<HttpResponse<String>> call =
+            httpClient.sendAsync(upstream("/api/generate", request), HttpResponse.BodyHandlers.ofString());
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
+        return call.copy()
+            .orTimeout(deadlineMs, TimeUnit.MILLISECONDS)
+            .handle((response, error) -> {
+                if (error != null) {
+                    call.cancel(true); // Drops the upstream exchange if it is still running
+                    return failure(unwrap(error));
+                }
+                long elapsed = System.currentTimeMillis() - startTime;
+                System.out.println("🤖 AI Proxy: Response received in " + elapsed + "ms");
 
-            long startTime = System.currentTimeMillis();
+                if (response.statusCode() / 100 != 2) {
+                    System.err.println("❌ AI Proxy Error: Ollama answered " + response.statusCode());
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(errorJson("Ollama answered " + response.statusCode() + ": " + response.body()));
+                }
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(response.body());
+            });
+    }
+
+    /**
+     * Streams the generation to the browser as NDJSON, one Ollama chunk per line, as soon as each arrives.
+     * The response starts once Ollama's status is known: an upstream error is answered with Ollama's status and
+     * error body, a failure before that like /generate. Errors after the stream has started arrive the way
+     * Ollama reports them - a last {"error": "..."} line.
+     */
+    @PostMapping("/generate/stream")
+    public CompletableFuture<ResponseEntity<ResponseBodyEmitter>> generateStreamProxy(@RequestBody Map<String, Object> request) {
+        Map<String, Object> streaming = new LinkedHashMap<>(request);
+        streaming.put("stream", true);
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(deadlineMs);
+        LineRelay relay = new LineRelay(emitter);
+        emitter.onTimeout(() -> relay.fail("deadline of " + deadlineMs + "ms exceeded"));
+        emitter.onError(error -> relay.cancel());
 
-            ResponseEntity<String> response = restTemplate.exchange(
-                OLLAMA_BASE_URL + "/api/generate",
-                HttpMethod.POST,
-                entity,
-                String.class
-            );
+        // Completed as soon as the status line is in - relayed lines wait in the emitter until it is returned
+        CompletableFuture<ResponseEntity<ResponseBodyEmitter>> started = new CompletableFuture<>();
+        HttpResponse.BodyHandler<String> handler = info -> {
+            if (info.statusCode() / 100 != 2) {
+                return HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8); // Error body, read whole
+            }
+            started.complete(ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter));
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.fromLineSubscriber(relay), done -> null);
+        };
 
-            long elapsed = System.currentTimeMillis() - startTime;
-            System.out.println("🤖 AI Proxy: Response received in " + elapsed + "ms");
+        CompletableFuture<HttpResponse<String>> call = httpClient.sendAsync(upstream("/api/generate", streaming), handler);
+        call.whenComplete((response, error) -> {
+            if (error != null) {
+                if (started.isDone()) {
+                    relay.fail(unwrap(error).getMessage());
+                } else {
+                    started.complete(errorStream(emitter, relay, failure(unwrap(error))));
+                }
+            } else if (response.statusCode() / 100 != 2) {
+                System.err.println("❌ AI Proxy stream error: Ollama answered " + response.statusCode());
+                String body = response.body().isBlank() ? errorJson("Ollama answered " + response.statusCode()) : response.body();
+                started.complete(errorStream(emitter, relay, ResponseEntity.status(response.statusCode()).body(body)));
+            }
+        });
+        emitter.onCompletion(() -> call.cancel(true));
+
+        return started.orTimeout(deadlineMs, TimeUnit.MILLISECONDS)
+            .exceptionally(error -> {
+                call.cancel(true); // No status before the deadline
+                return errorStream(emitter, relay, failure(unwrap(error)));
+            });
+    }
 
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            System.err.println("❌ AI Proxy Error: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                .body("{\"error\": \"" + e.getMessage().replace("\"", "'") + "\"}");
+    /**
+     * The stream's emitter answering with an error's status and its JSON body instead of NDJSON lines
+     */
+    private static ResponseEntity<ResponseBodyEmitter> errorStream(ResponseBodyEmitter emitter, LineRelay relay,
+                                                                   ResponseEntity<String> error) {
+        relay.cancel();
+        try {
+            emitter.send(error.getBody(), MediaType.APPLICATION_JSON);
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Browser already gone
         }
+        return ResponseEntity.status(error.getStatusCode()).contentType(MediaType.APPLICATION_JSON).body(emitter);
     }
 
     @GetMapping("/health")
-    public ResponseEntity<?> healthCheck() {
+    public CompletableFuture<ResponseEntity<String>> healthCheck() {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(ollamaBaseUrl + "/api/tags"))
+            .timeout(Duration.ofMillis(connectTimeoutMs))
+            .GET()
+            .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handle((response, error) -> {
+                if (error != null || response.statusCode() / 100 != 2) {
+                    String message = (error != null) ? unwrap(error).getMessage() : "Ollama answered " + response.statusCode();
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body("{\"status\": \"disconnected\", \"error\": \"" + escape(message) + "\"}");
+                }
+                return ResponseEntity.ok("{\"status\": \"connected\", \"ollama\": " + response.body() + "}");
+            });
+    }
+
+    private HttpRequest upstream(String path, Map<String, Object> body) {
+        byte[] json;
         try {
-            ResponseEntity<String> response = restTemplate.getForEntity(
-                OLLAMA_BASE_URL + "/api/tags",
-                String.class
-            );
-            return ResponseEntity.ok("{\"status\": \"connected\", \"ollama\": " + response.getBody() + "}");
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                .body("{\"status\": \"disconnected\", \"error\": \"" + e.getMessage().replace("\"", "'") + "\"}");
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Request body cannot be serialized", e);
+        }
+        return HttpRequest.newBuilder(URI.create(ollamaBaseUrl + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+            .build();
+    }
+
+    private static ResponseEntity<String> failure(Throwable error) {
+        boolean timedOut = error instanceof TimeoutException;
+        System.err.println("❌ AI Proxy Error: " + (timedOut ? "deadline exceeded" : error.getMessage()));
+        return ResponseEntity.status(timedOut ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.SERVICE_UNAVAILABLE)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(errorJson(timedOut ? "deadline exceeded" : error.getMessage()));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+    }
+
+    private static String errorJson(String message) {
+        return "{\"error\": \"" + escape(message) + "\"}";
+    }
+
+    private static String escape(String message) {
+        return String.valueOf(message).replace("\\", "\\\\").replace("\"", "'").replace("\n", " ");
+    }
+
+    /**
+     * Passes upstream lines to the emitter, asking for the next line only once the previous one has been written -
+     * a slow browser slows down reading from Ollama instead of filling memory. Cancels upstream when the browser
+     * goes away.
+     */
+    private static final class LineRelay implements Flow.Subscriber<String> {
+        private final ResponseBodyEmitter emitter;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean finished;
+
+        LineRelay(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (finished) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (finished) return;
+            try {
+                emitter.send(line + "\n", MediaType.APPLICATION_NDJSON);
+                subscription.request(1);
+            } catch (IOException | IllegalStateException e) {
+                cancel(); // Browser disconnected
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            fail(error.getMessage());
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            if (finished) return;
+            finished = true;
+            emitter.complete();
+        }
+
+        synchronized void fail(String message) {
+            if (finished) return;
+            cancel();
+            System.err.println("❌ AI Proxy stream error: " + message);
+            try {
+                emitter.send(errorJson(message) + "\n", MediaType.APPLICATION_NDJSON);
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // Browser already gone
+            }
+        }
+
+        void cancel() {
+            finished = true;
+            Flow.Subscription current = subscription;
+            if (current != null) current.cancel();
         }
     }
 }
@@ -1,9 +1,22 @@
 package com.safeways.backend.controller;
 
+import com.safeways.backend.service.AiDecisionCache;
+import com.safeways.backend.service.AiDecisionService;
+import com.safeways.backend.service.AntennaRegistry;
+import com.safeways.backend.service.AntennaSnapshot;
+import com.safeways.backend.service.DecisionMetrics;
 import com.safeways.backend.service.IntersectionAntenna;
+import com.safeways.backend.service.LiveVehicleStore;
+import com.safeways.backend.service.VehicleBatchCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,28 +29,63 @@ public class AntennaController {
     @Autowired
     private IntersectionAntenna intersectionAntenna;
 
+    @Autowired
+    private DecisionMetrics decisionMetrics;
+
+    @Autowired
+    private AiDecisionCache aiDecisionCache;
+
+    @Autowired
+    private AiDecisionService aiDecisionService;
+
+    @Autowired
+    private AntennaRegistry antennaRegistry;
+
     /**
      * Get live data from all vehicles in antenna range
-     * Includes speeding information (vehicles over 50 km/h)
+     * Includes speeding information (vehicles over the speed limit).
+     * Served from the antenna's published snapshot with an ETag - If-None-Match answers 304 until the data changes.
      */
     @GetMapping("/live")
-    public Map<String, Object> getLiveData() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("vehicles", intersectionAntenna.getLiveVehicleData());
-        response.put("speedingVehicles", intersectionAntenna.getSpeedingVehicles());
-        response.put("totalCount", intersectionAntenna.getVehicleCount());
-        response.put("speedingCount", intersectionAntenna.getSpeedingVehicleCount());
-        response.put("speedLimit", intersectionAntenna.getSpeedLimit());
-        response.put("antennaRangeMeters", intersectionAntenna.getAntennaRangeMeters());
-        return response;
+    public ResponseEntity<byte[]> getLiveData(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        AntennaSnapshot snapshot = intersectionAntenna.getPublishedSnapshot();
+        return serve(snapshot, snapshot.liveJson(), ifNoneMatch);
+    }
+
+    /**
+     * Live data bookkeeping: tracked vehicles, TTL evictions, expiry wheel size
+     */
+    @GetMapping("/live/stats")
+    public Map<String, Object> getLiveDataStats() {
+        return intersectionAntenna.getLiveDataStats();
     }
 
     /**
-     * Get only vehicles that are speeding (over 50 km/h)
+     * Get only vehicles that are speeding (over the antenna's speed limit)
      */
     @GetMapping("/speeding")
-    public List<IntersectionAntenna.VehicleLiveData> getSpeedingVehicles() {
-        return intersectionAntenna.getSpeedingVehicles();
+    public ResponseEntity<byte[]> getSpeedingVehicles(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        AntennaSnapshot snapshot = intersectionAntenna.getPublishedSnapshot();
+        return serve(snapshot, snapshot.speedingJson(), ifNoneMatch);
+    }
+
+    /**
+     * Vehicles furthest over the speed limit, worst first
+     */
+    @GetMapping("/speeding/top")
+    public List<Map<String, Object>> getWorstSpeeders(@RequestParam(defaultValue = "5") int k) {
+        double limit = intersectionAntenna.getSpeedLimit();
+        List<Map<String, Object>> offenders = new ArrayList<>();
+        for (IntersectionAntenna.VehicleLiveData v : intersectionAntenna.getWorstSpeeders(k)) {
+            Map<String, Object> offender = new HashMap<>();
+            offender.put("id", v.id);
+            offender.put("speed", v.speed);
+            offender.put("overLimitKmH", v.speed - limit);
+            offenders.add(offender);
+        }
+        return offenders;
     }
 
     /**
@@ -50,14 +98,35 @@ public class AntennaController {
         return response;
     }
 
+    /**
+     * Set this antenna's speed limit (km/h)
+     */
+    @PostMapping("/speed-limit")
+    public Map<String, Object> setSpeedLimit(@RequestBody Map<String, Double> body) {
+        Map<String, Object> response = new HashMap<>();
+
+        Double limit = body.get("speedLimit");
+        if (limit == null || !(limit > 0)) {
+            response.put("status", "error");
+            response.put("message", "speedLimit must be a positive number");
+            return response;
+        }
+
+        intersectionAntenna.setSpeedLimit(limit);
+        response.put("speedLimit", limit);
+        response.put("status", "success");
+        return response;
+    }
+
     /**
      * Predict vehicle positions and detect potential collisions.
-     * WARNING: This endpoint BLOCKS if a collision is predicted, waiting for AI decision.
+     * Returns at once with the fast-path decision; an accepted AI refinement is pushed on /topic/antenna/decisions
+     * (only blocks when antenna.ai.blocking=true).
      *
      * Returns:
      * - Vehicle predictions (future positions based on current trajectory)
      * - Collision detection result
-     * - AI decision (if collision predicted)
+     * - Fast-path decision and pending-decision ticket (if collision predicted)
      */
     @GetMapping("/predict")
     public IntersectionAntenna.CollisionPredictionResult predictCollisions() {
@@ -65,22 +134,31 @@ public class AntennaController {
     }
 
     /**
-     * Antenna tick endpoint - the main entry point for collision detection.
+     * Latest antenna tick result.
      *
-     * This endpoint should be called periodically (every 100ms recommended).
-     * It will:
-     * 1. Get all vehicles within the antenna's radius
-     * 2. Check for potential collisions between all pairs within 2 seconds
-     * 3. If collision detected, BLOCK and wait for AI decision
-     * 4. Return the result with AI decision if applicable
+     * The antenna ticks itself every antenna.tick.interval-ms (100ms) and pushes each result on /topic/antenna/tick,
+     * so this is a cheap read and detection cadence does not depend on how often clients poll. Each tick:
+     * 1. Gets all vehicles within the antenna's radius
+     * 2. Checks for potential collisions between all pairs within 2 seconds
+     * 3. If collision detected, returns the kinematic fast-path decision and a pendingDecisionId ticket
+     * 4. Pushes the AI refinement for that ticket on /topic/antenna/decisions if it arrives in time and is safe
      *
-     * WARNING: This call may BLOCK for up to 30 seconds if a collision is detected!
+     * With antenna.tick.server-driven=false the call runs the tick itself (rate limited to one per 100ms), and with
+     * antenna.ai.blocking=true it then BLOCKS waiting for the AI, at most until the time to collision.
      */
     @GetMapping("/tick")
     public IntersectionAntenna.CollisionPredictionResult tick() {
         return intersectionAntenna.tick();
     }
 
+    /**
+     * Tick loop counters: ticks run, overruns, skipped slots, tick duration
+     */
+    @GetMapping("/tick/stats")
+    public Map<String, Object> getTickStats() {
+        return intersectionAntenna.getTickStats();
+    }
+
     /**
      * Set the antenna center position
      * All vehicles within ANTENNA_RANGE of this position will be monitored
@@ -106,13 +184,28 @@ public class AntennaController {
     }
 
     /**
-     * Check if simulation is currently paused (waiting for AI decision)
+     * Check if simulation is currently paused (blocking mode only) and how many AI decisions are pending
      */
     @GetMapping("/is-paused")
     public Map<String, Object> isSimulationPaused() {
         Map<String, Object> response = new HashMap<>();
         response.put("isPaused", intersectionAntenna.isSimulationPaused());
         response.put("lastAiDecision", intersectionAntenna.getLastAiDecision());
+        response.put("pendingDecisions", intersectionAntenna.getPendingDecisionCount());
+        return response;
+    }
+
+    /**
+     * Latency of the fast-path and AI decision paths, how many AI decisions were accepted, rejected or late,
+     * the AI decision cache's hit/miss counters, how many AI requests were coalesced and the AI bulkhead's
+     * queue depth and circuit-breaker state
+     */
+    @GetMapping("/decision-metrics")
+    public Map<String, Object> getDecisionMetrics() {
+        Map<String, Object> response = decisionMetrics.snapshot();
+        response.put("cache", aiDecisionCache.stats());
+        response.put("singleFlight", aiDecisionService.getSingleFlightStats());
+        response.put("bulkhead", aiDecisionService.getBulkheadStats());
         return response;
     }
 
@@ -120,36 +213,88 @@ public class AntennaController {
      * Get vehicles currently within the antenna's radius
      */
     @GetMapping("/vehicles-in-radius")
-    public List<IntersectionAntenna.VehicleLiveData> getVehiclesInRadius() {
-        return intersectionAntenna.getVehiclesInRadius();
+    public ResponseEntity<byte[]> getVehiclesInRadius(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        AntennaSnapshot snapshot = intersectionAntenna.getPublishedSnapshot();
+        return serve(snapshot, snapshot.inRadiusJson(), ifNoneMatch);
     }
 
     /**
-     * Update vehicle data from frontend simulation
-     * Allows frontend to send vehicle positions to backend for collision prediction
+     * Update vehicle data from frontend simulation.
+     * Batch position update - JSON objects, compact rows or binary (see VehicleBatchCodec).
+     * The batch is validated as a whole and applied atomically; rows with an older seq than the stored one are
+     * counted as stale and skipped.
      */
     @PostMapping("/update-vehicles")
-    public Map<String, Object> updateVehicles(@RequestBody List<VehicleUpdateDTO> vehicles) {
+    public ResponseEntity<Map<String, Object>> updateVehicles(
+            @RequestBody byte[] body,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
+        Map<String, Object> response = new HashMap<>();
+
+        List<VehicleBatchCodec.Row> rows;
+        try {
+            rows = VehicleBatchCodec.decode(body, contentType);
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        LiveVehicleStore.BatchResult result = intersectionAntenna.applyVehicleBatch(rows);
+        response.put("updated", result.applied());
+        response.put("stale", result.stale());
+        response.put("version", result.version());
+        response.put("status", "success");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Intersection antennas of the city map: how many, on how many tick shards, vehicles routed and handed over
+     */
+    @GetMapping("/registry")
+    public Map<String, Object> getRegistryStats() {
+        return antennaRegistry.stats();
+    }
+
+    /**
+     * Same as /update-vehicles for a city deployment - each vehicle goes to the intersection antenna covering it
+     */
+    @PostMapping("/registry/update-vehicles")
+    public Map<String, Object> routeVehicles(@RequestBody List<VehicleUpdateDTO> vehicles) {
         Map<String, Object> response = new HashMap<>();
 
+        int unrouted = 0;
         for (VehicleUpdateDTO v : vehicles) {
             IntersectionAntenna.VehicleLiveData data = new IntersectionAntenna.VehicleLiveData(
-                v.id,
-                "Car",
-                v.x,
-                v.y,
-                v.speed,
-                v.rotation,
-                v.speed > 50
+                v.id, "Car", v.x, v.y, v.speed, v.rotation, false // Flagged against the target antenna's limit
             );
-            intersectionAntenna.updateVehicleData(data);
+            if (antennaRegistry.route(data) == null) unrouted++;
         }
 
-        response.put("updated", vehicles.size());
+        response.put("updated", vehicles.size() - unrouted);
+        response.put("unrouted", unrouted);
         response.put("status", "success");
         return response;
     }
 
+    /**
+     * Pre-serialized snapshot body, or 304 if the client already has this version.
+     * no-cache: browsers keep the body but revalidate with the ETag on every poll.
+     */
+    private static ResponseEntity<byte[]> serve(AntennaSnapshot snapshot, byte[] body, String ifNoneMatch) {
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(snapshot.etag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+        }
+        return ResponseEntity.ok()
+            .eTag(snapshot.etag)
+            .cacheControl(CacheControl.noCache())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+
     /**
      * DTO for vehicle updates from frontend
      */
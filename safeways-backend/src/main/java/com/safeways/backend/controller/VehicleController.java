@@ -1,5 +1,6 @@
 package com.safeways.backend.controller;
 
+import com.safeways.backend.service.SimulationLoopService;
 import com.safeways.backend.service.VehicleSimulationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +15,9 @@ public class VehicleController {
     @Autowired
     private VehicleSimulationService vehicleService;
 
+    @Autowired
+    private SimulationLoopService simulationLoop;
+
     @GetMapping
     public List<Map<String, Object>> getVehicles() {
         return vehicleService.getVehicleStates();
@@ -28,5 +32,13 @@ public class VehicleController {
     public Map<String, Object> getGraph() {
         return vehicleService.getGraphInfo();
     }
+
+    /**
+     * Fixed-timestep loop counters: steps run, caught up and dropped, broadcasts and antenna ticks
+     */
+    @GetMapping("/loop/stats")
+    public Map<String, Object> getLoopStats() {
+        return simulationLoop.getStats();
+    }
 }
 
@@ -0,0 +1,79 @@
+package com.safeways.backend.headless;
+
+import com.safeways.backend.service.AiDecisionCache;
+import com.safeways.backend.service.AiDecisionService;
+import com.safeways.backend.service.CollisionPromptBuilder;
+import com.safeways.backend.service.DecisionMetrics;
+import com.safeways.backend.service.IntersectionAntenna;
+import com.safeways.backend.service.MapService;
+import com.safeways.backend.service.VehicleSimulationService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Just the simulation and the antenna's collaborators - no web server, no STOMP broker, no scheduled tasks.
+ * headless.properties overrides application.properties; --key=value arguments override both.
+ */
+@Configuration
+@PropertySource({"classpath:application.properties", "classpath:headless.properties"})
+@Import({MapService.class, VehicleSimulationService.class, AiDecisionService.class, AiDecisionCache.class,
+         CollisionPromptBuilder.class, DecisionMetrics.class, HeadlessScenarioRunner.class})
+public class HeadlessConfig {
+
+    @Bean
+    public RecordingChannel recordingChannel() {
+        return new RecordingChannel();
+    }
+
+    /**
+     * Messages are not converted - the channel sees the payload objects
+     */
+    @Bean
+    public SimpMessagingTemplate messagingTemplate(RecordingChannel channel) {
+        return new SimpMessagingTemplate(channel);
+    }
+
+    /**
+     * Stands in for the broker: drops every message, counting it by destination and antenna decisions by source
+     */
+    public static class RecordingChannel implements MessageChannel {
+
+        private final Map<String, AtomicLong> byDestination = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> decisionsBySource = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean send(Message<?> message, long timeout) {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            byDestination.computeIfAbsent(String.valueOf(destination), k -> new AtomicLong()).incrementAndGet();
+            if (message.getPayload() instanceof IntersectionAntenna.AiDecisionMessage decision) {
+                decisionsBySource.computeIfAbsent(decision.source, k -> new AtomicLong()).incrementAndGet();
+            }
+            return true;
+        }
+
+        public Map<String, Long> getMessagesByDestination() {
+            return counts(byDestination);
+        }
+
+        public Map<String, Long> getDecisionsBySource() {
+            return counts(decisionsBySource);
+        }
+
+        private static Map<String, Long> counts(Map<String, AtomicLong> counters) {
+            Map<String, Long> result = new TreeMap<>();
+            counters.forEach((k, v) -> result.put(k, v.get()));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.safeways.backend.headless;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safeways.backend.model.xml.CityMap;
+import com.safeways.backend.model.xml.MapNode;
+import com.safeways.backend.service.AntennaRegistry;
+import com.safeways.backend.service.DecisionMetrics;
+import com.safeways.backend.service.FixedTimestepLoop;
+import com.safeways.backend.service.IntersectionAntenna;
+import com.safeways.backend.service.LatencyStats;
+import com.safeways.backend.service.MapService;
+import com.safeways.backend.service.SimulationClock;
+import com.safeways.backend.service.VehicleBatchCodec;
+import com.safeways.backend.service.VehicleSimulationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Replays a traffic scenario without the web server: VehicleSimulationService and the antennas run on a virtual
+ * clock as fast as the CPU allows, then a metrics report is written as JSON.
+ *
+ * Run with: mvn compile exec:java -Dexec.mainClass=com.safeways.backend.headless.HeadlessScenarioRunner
+ *           -Dexec.args="--headless.duration-s=3600 --headless.antennas=intersections --simulation.max-vehicles=500"
+ * Settings are the simulation.*, antenna.* and headless.* properties (defaults in headless.properties).
+ */
+public class HeadlessScenarioRunner {
+
+    @Autowired
+    private VehicleSimulationService simulation;
+
+    @Autowired
+    private MapService mapService;
+
+    @Autowired
+    private DecisionMetrics decisionMetrics;
+
+    @Autowired
+    private HeadlessConfig.RecordingChannel channel;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Value("${headless.duration-s:3600}")
+    private long durationSeconds;
+
+    @Value("${headless.antennas:center}")
+    private String antennaPlacement;
+
+    @Value("${headless.antenna.range:50}")
+    private double antennaRange;
+
+    @Value("${headless.antenna.collision-radius:5}")
+    private double collisionRadius;
+
+    @Value("${headless.antenna-tick-ms:100}")
+    private long antennaTickMs;
+
+    @Value("${headless.report:headless-report.json}")
+    private String reportFile;
+
+    @Value("${headless.quiet:true}")
+    private boolean quiet;
+
+    @Value("${simulation.step-ms:50}")
+    private long stepMs;
+
+    @Value("${antenna.registry.min-degree:3}")
+    private int minDegree;
+
+    private final List<IntersectionAntenna> antennas = new ArrayList<>();
+    // Vehicle IDs each antenna was given at its last tick, so the ones that left can be removed
+    private final Map<IntersectionAntenna, Set<String>> fed = new HashMap<>();
+    private final LatencyStats tickLatency = new LatencyStats(65_536);
+    private final Set<String> distinctConflicts = new HashSet<>();
+    private long antennaTicks;
+    private long ticksWithConflict;
+    private long predictedConflicts;
+
+    public static void main(String[] args) throws IOException {
+        run(args);
+    }
+
+    /**
+     * Runs one scenario with the given --key=value overrides and returns the report (also written to
+     * headless.report)
+     */
+    public static Map<String, Object> run(String... args) throws IOException {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.getEnvironment().getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+            context.register(HeadlessConfig.class);
+            context.refresh();
+            return context.getBean(HeadlessScenarioRunner.class).runScenario();
+        }
+    }
+
+    private Map<String, Object> runScenario() throws IOException {
+        placeAntennas();
+
+        SimulationClock.Virtual clock = new SimulationClock.Virtual();
+        FixedTimestepLoop loop = new FixedTimestepLoop(clock, stepMs, 1, simulation::step)
+            .every("antennaTick", antennaTickMs, t -> tickAntennas());
+
+        System.out.println("⏩ Headless run: " + durationSeconds + " s simulated, " + antennas.size() + " antenna(s)");
+        PrintStream console = System.out;
+        if (quiet) System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        long durationMs = durationSeconds * 1000;
+        long vehicleSteps = 0;
+        int maxActive = 0;
+        long wallStart = System.nanoTime();
+        try {
+            while (loop.getSimTimeMs() < durationMs) {
+                clock.advanceMs(stepMs);
+                loop.advance();
+                int active = simulation.getVehicleCount();
+                vehicleSteps += active;
+                maxActive = Math.max(maxActive, active);
+            }
+        } finally {
+            System.setOut(console);
+        }
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+        double simSeconds = loop.getSimTimeMs() / 1000.0;
+
+        Map<String, Object> vehicles = new LinkedHashMap<>();
+        vehicles.put("spawned", simulation.getSpawnedCount());
+        vehicles.put("completed", simulation.getCompletedCount());
+        vehicles.put("activeAtEnd", simulation.getVehicleCount());
+        vehicles.put("maxActive", maxActive);
+        vehicles.put("spawnedPerSimSecond", simulation.getSpawnedCount() / simSeconds);
+        vehicles.put("completedPerSimSecond", simulation.getCompletedCount() / simSeconds);
+        vehicles.put("vehicleStepsPerWallSecond", vehicleSteps / wallSeconds);
+
+        Map<String, Object> conflicts = new LinkedHashMap<>();
+        conflicts.put("antennaTicks", antennaTicks);
+        conflicts.put("ticksWithConflict", ticksWithConflict);
+        conflicts.put("predicted", predictedConflicts);
+        conflicts.put("distinct", distinctConflicts.size());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("map", mapService.getMapFile());
+        report.put("simulatedSeconds", simSeconds);
+        report.put("wallSeconds", wallSeconds);
+        report.put("speedup", simSeconds / wallSeconds);
+        report.put("antennas", antennas.stream().map(IntersectionAntenna::getNodeId).toList());
+        report.put("vehicles", vehicles);
+        report.put("conflicts", conflicts);
+        report.put("tickLatency", tickLatency.toMap());
+        report.put("decisionsBySource", channel.getDecisionsBySource());
+        report.put("decisionMetrics", decisionMetrics.snapshot());
+        report.put("loop", loop.getStats());
+
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(reportFile), report);
+        System.out.println("📊 " + String.format("%.0f", simSeconds) + " s simulated in " + String.format("%.2f", wallSeconds)
+            + " s (x" + String.format("%.0f", simSeconds / wallSeconds) + "), " + simulation.getCompletedCount()
+            + " vehicles through, " + predictedConflicts + " predicted conflicts - report in " + reportFile);
+        return report;
+    }
+
+    /**
+     * center = one antenna at the centroid of the map, intersections = one per intersection (as AntennaRegistry),
+     * otherwise a comma-separated list of node IDs
+     */
+    private void placeAntennas() {
+        CityMap map = mapService.getMap();
+        if (map == null || map.getNodes() == null || map.getNodes().isEmpty()) {
+            throw new IllegalStateException("No map loaded from " + mapService.getMapFile());
+        }
+
+        if ("center".equals(antennaPlacement)) {
+            double x = map.getNodes().stream().mapToDouble(MapNode::getLongitude).average().orElse(0);
+            double y = map.getNodes().stream().mapToDouble(MapNode::getLatitude).average().orElse(0);
+            addAntenna("center", x, y);
+        } else if ("intersections".equals(antennaPlacement)) {
+            for (MapNode node : AntennaRegistry.intersections(map, minDegree)) {
+                addAntenna(node.getId(), node.getLongitude(), node.getLatitude());
+            }
+        } else {
+            Map<String, MapNode> nodes = new HashMap<>();
+            map.getNodes().forEach(node -> nodes.put(node.getId(), node));
+            for (String id : antennaPlacement.split(",")) {
+                MapNode node = nodes.get(id.trim());
+                if (node == null) {
+                    throw new IllegalArgumentException("Unknown node for an antenna: " + id.trim());
+                }
+                addAntenna(node.getId(), node.getLongitude(), node.getLatitude());
+            }
+        }
+    }
+
+    private void addAntenna(String nodeId, double x, double y) {
+        IntersectionAntenna antenna = new IntersectionAntenna(nodeId, x, y, antennaRange, collisionRadius);
+        beanFactory.autowireBean(antenna);
+        antennas.add(antenna);
+        fed.put(antenna, new HashSet<>());
+    }
+
+    /**
+     * Gives every antenna the vehicles in its range (removing those that left it), then runs its detection
+     */
+    private void tickAntennas() {
+        List<VehicleBatchCodec.Row> all = new ArrayList<>();
+        simulation.forEachVehicle((id, x, y, speedKmH, rotation) ->
+            all.add(new VehicleBatchCodec.Row(id, x, y, speedKmH, rotation, 0)));
+
+        double rangeSquared = antennaRange * antennaRange;
+        for (IntersectionAntenna antenna : antennas) {
+            List<VehicleBatchCodec.Row> inRange = new ArrayList<>();
+            Set<String> ids = new HashSet<>();
+            for (VehicleBatchCodec.Row row : all) {
+                double dx = row.x() - antenna.getAntennaX();
+                double dy = row.y() - antenna.getAntennaY();
+                if (dx * dx + dy * dy <= rangeSquared) {
+                    inRange.add(row);
+                    ids.add(row.id());
+                }
+            }
+            for (String gone : fed.get(antenna)) {
+                if (!ids.contains(gone)) antenna.removeVehicle(gone);
+            }
+            fed.put(antenna, ids);
+            antenna.applyVehicleBatch(inRange);
+
+            long start = System.nanoTime();
+            IntersectionAntenna.CollisionPredictionResult result = antenna.tickNow();
+            tickLatency.record(System.nanoTime() - start);
+            antennaTicks++;
+            if (result.collisionPredicted) {
+                ticksWithConflict++;
+                predictedConflicts += result.conflicts.size();
+                for (IntersectionAntenna.CollisionInfo conflict : result.conflicts) {
+                    List<String> involved = new ArrayList<>(conflict.vehicleIds);
+                    Collections.sort(involved);
+                    distinctConflicts.add(antenna.getNodeId() + ":" + String.join(",", involved));
+                }
+            }
+        }
+    }
+}
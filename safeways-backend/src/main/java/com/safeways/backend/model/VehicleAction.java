@@ -0,0 +1,40 @@
+package com.safeways.backend.model;
+
+public enum VehicleAction {
+    CONTINUE("CONTINUA"),      // Menține viteza și traiectoria
+    STOP("OPRESTE"),           // Frânează până la oprire
+    SLOW_DOWN("INCETINESTE"),  // Reduce viteza până la vitezaTintaKmH
+    ACCELERATE("ACCELEREAZA"); // Eliberează punctul de coliziune cât mai repede
+
+    // Label used in the decision JSON ("actiune") exchanged with the AI and the frontend
+    private final String label;
+
+    VehicleAction(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Accepts the Romanian label or the English name, case-insensitive. Returns null if unknown.
+     */
+    public static VehicleAction fromLabel(String raw) {
+        if (raw == null) return null;
+        String value = raw.trim().toUpperCase();
+        for (VehicleAction action : values()) {
+            if (action.label.equals(value) || action.name().equals(value)) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * True for actions that give way (lower the vehicle's speed)
+     */
+    public boolean yields() {
+        return this == STOP || this == SLOW_DOWN;
+    }
+}
@@ -0,0 +1,7 @@
+package com.safeways.backend.model;
+
+/**
+ * One command for one vehicle, as produced by the fast-path engine or decoded from the AI answer
+ */
+public record VehicleCommand(String vehicleId, VehicleAction action, double targetSpeedKmH, String reason) {
+}
@@ -0,0 +1,105 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.VehicleCommand;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accepted AI decisions keyed by ScenarioSignature, so a repeating conflict geometry does not pay for another
+ * model round trip. Entries hold commands per role and are remapped to the current vehicle IDs on a hit.
+ * LRU bounded, entries expire after a TTL.
+ */
+@Service
+public class AiDecisionCache {
+
+    @Value("${ai.cache.max-entries:512}")
+    private int maxEntries;
+
+    @Value("${ai.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private long hits = 0;
+    private long misses = 0;
+    private long expirations = 0;
+    private long evictions = 0;
+
+    public AiDecisionCache() {
+    }
+
+    AiDecisionCache(int maxEntries, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * Cached commands for this scenario, addressed to its vehicles - or null on a miss
+     */
+    public synchronized List<VehicleCommand> get(ScenarioSignature signature) {
+        Entry entry = entries.get(signature.key);
+        if (entry != null && System.currentTimeMillis() - entry.storedAt > ttlSeconds * 1000) {
+            entries.remove(signature.key);
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+
+        List<VehicleCommand> commands = new ArrayList<>();
+        for (Map.Entry<Integer, VehicleCommand> roleCommand : entry.commandsByRole.entrySet()) {
+            VehicleCommand c = roleCommand.getValue();
+            commands.add(new VehicleCommand(signature.roleIds.get(roleCommand.getKey()), c.action(),
+                                            c.targetSpeedKmH(), c.reason()));
+        }
+        return commands;
+    }
+
+    /**
+     * Stores the commands by role; commands for vehicles outside the scenario are dropped
+     */
+    public synchronized void put(ScenarioSignature signature, List<VehicleCommand> commands) {
+        Map<Integer, VehicleCommand> byRole = new HashMap<>();
+        for (VehicleCommand command : commands) {
+            int role = signature.roleIds.indexOf(command.vehicleId());
+            if (role >= 0) {
+                byRole.put(role, command);
+            }
+        }
+        if (!byRole.isEmpty()) {
+            entries.put(signature.key, new Entry(byRole, System.currentTimeMillis()));
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", (hits + misses == 0) ? 0.0 : (double) hits / (hits + misses));
+        stats.put("expirations", expirations);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+
+    private record Entry(Map<Integer, VehicleCommand> commandsByRole, long storedAt) {
+    }
+}
@@ -1,55 +1,327 @@
 package com.safeways.backend.service;
 
+import com.safeways.backend.model.VehicleCommand;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.ollama.OllamaChatModel;
+import dev.langchain4j.model.ollama.OllamaStreamingChatModel;
+import dev.langchain4j.model.output.Response;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Service
 public class AiDecisionService {
 
     private ChatLanguageModel qwenModel;
+    private StreamingChatLanguageModel qwenStreamingModel;
 
-    @Value("${ollama.host:localhost}")
-    private String ollamaHost;
+    // true: decisions are streamed and every vehicle command is handed over as soon as its JSON object closes
+    @Value("${ai.streaming.enabled:true}")
+    private boolean streamingEnabled;
+
+    @Value("${ollama.base-url:http://localhost:11434}")
+    private String ollamaBaseUrl;
+
+    @Autowired
+    private DecisionMetrics decisionMetrics;
+
+    // How long a finished request keeps answering callers for the same conflict
+    @Value("${ai.single-flight.linger-ms:500}")
+    private long singleFlightLingerMs;
+
+    // In-flight (and just finished) requests: intersection + sorted vehicle IDs -> shared future
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong modelCalls = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+
+    // Answer meaning "no AI verdict" - callers keep their own fallback (the antenna's fast path)
+    public static final String NO_DECISION = "[]";
+
+    // Bulkhead: model calls run on their own virtual threads, at most maxConcurrent at a time
+    @Value("${ai.bulkhead.max-concurrent:4}")
+    private int maxConcurrent;
+
+    // Calls allowed to wait for a permit; beyond that they are rejected straight away
+    @Value("${ai.bulkhead.max-queue:32}")
+    private int maxQueue;
+
+    // Per call, queueing included
+    @Value("${ai.call-timeout-ms:10000}")
+    private long callTimeoutMs;
+
+    @Value("${ai.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${ai.breaker.open-ms:15000}")
+    private long breakerOpenMs;
+
+    private ExecutorService aiExecutor;
+    private Semaphore permits;
+    private CircuitBreaker circuitBreaker;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong shortCircuited = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final LatencyStats queueWait = new LatencyStats(1024);
 
     @PostConstruct
     public void init() {
         this.qwenModel = OllamaChatModel.builder()
-                .baseUrl("http://" + ollamaHost + ":11434")
+                .baseUrl(ollamaBaseUrl)
                 .modelName("qwen2.5:7b")
                 .temperature(0.0)
                 .format("json")
+                .timeout(Duration.ofMillis(callTimeoutMs))
                 .build();
+        this.qwenStreamingModel = OllamaStreamingChatModel.builder()
+                .baseUrl(ollamaBaseUrl)
+                .modelName("qwen2.5:7b")
+                .temperature(0.0)
+                .format("json")
+                .timeout(Duration.ofMillis(callTimeoutMs))
+                .build();
+        this.aiExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.permits = new Semaphore(maxConcurrent);
+        this.circuitBreaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        aiExecutor.shutdownNow();
+    }
+
+    /**
+     * Single-flight variant: callers asking about the same vehicles at the same intersection while a request is
+     * running (or finished less than ai.single-flight.linger-ms ago) share its future instead of calling the model
+     * again. The first caller's context is the one sent to the model.
+     */
+    public CompletableFuture<String> decideForConflictAsync(String intersectionId, Collection<String> vehicleIds,
+                                                            String batchContext) {
+        return decideForConflictAsync(intersectionId, vehicleIds, batchContext, null);
+    }
+
+    /**
+     * As above; in streaming mode onCommand receives each vehicle command as soon as the model has written it.
+     * Only the caller that starts the request gets the streamed commands - coalesced callers get the full answer.
+     */
+    public CompletableFuture<String> decideForConflictAsync(String intersectionId, Collection<String> vehicleIds,
+                                                            String batchContext, Consumer<VehicleCommand> onCommand) {
+        String key = intersectionId + "|" + String.join(",", new TreeSet<>(vehicleIds));
+
+        boolean[] started = new boolean[1];
+        CompletableFuture<String> shared = inFlight.computeIfAbsent(key, k -> {
+            started[0] = true;
+            return new CompletableFuture<>();
+        });
+        if (!started[0]) {
+            coalescedCalls.incrementAndGet();
+            return shared;
+        }
+
+        CompletableFuture<String> call = streamingEnabled
+            ? decideStreamingAsync(intersectionId, batchContext, onCommand != null ? onCommand : command -> { })
+            : decideForIntersectionBatchAsync(intersectionId, batchContext);
+        call.whenComplete((decision, error) -> {
+            CompletableFuture.delayedExecutor(singleFlightLingerMs, TimeUnit.MILLISECONDS)
+                .execute(() -> inFlight.remove(key, shared));
+            if (error != null) {
+                shared.completeExceptionally(error);
+            } else {
+                shared.complete(decision);
+            }
+        });
+        return shared;
     }
 
+    public Map<String, Object> getSingleFlightStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", inFlight.size());
+        stats.put("modelCalls", modelCalls.get());
+        stats.put("coalescedCalls", coalescedCalls.get());
+        return stats;
+    }
+
+    /**
+     * Queue depth, rejections, breaker state and queue-wait latency of the AI bulkhead
+     */
+    public Map<String, Object> getBulkheadStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queued.get());
+        stats.put("active", active.get());
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("maxQueue", maxQueue);
+        stats.put("rejected", rejected.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("shortCircuited", shortCircuited.get());
+        stats.put("breakerState", circuitBreaker.getState().name());
+        stats.put("breakerOpenedCount", circuitBreaker.getTimesOpened());
+        stats.put("queueWait", queueWait.toMap());
+        return stats;
+    }
+
+    /**
+     * Runs the model call inside the bulkhead. Completes with NO_DECISION (never exceptionally) when the breaker
+     * is open, the queue is full, the call times out or the model fails.
+     */
     public CompletableFuture<String> decideForIntersectionBatchAsync(String intersectionId, String batchContext) {
-        return CompletableFuture.supplyAsync(() -> {
-            String prompt = """
-                    Ești sistemul de decizie V2X pentru intersecția %s.
-                    Analizează situația vehiculelor (timpul sosirii dacă mențin ruta și timpul dacă accelerează la maximum).
-                    
-                    Situație:
-                    %s
-                    
-                    Returnează STRICT un ARRAY JSON. Structura:
-                     [
-                       {
-                         "vehicleId": "ID",
-                         "actiune": "CONTINUA" | "OPRESTE" | "INCETINESTE" | "ACCELEREAZA",
-                         "vitezaTintaKmH": 0, // Pune viteza recomandată AICI (ex: 20 pentru INCETINESTE, 0 pentru OPRESTE)
-                         "motiv": "explicație bazată pe fizică"
-                       }
-                     ]
-                    """.formatted(intersectionId, batchContext);
-            try {
-                return qwenModel.generate(prompt).trim();
-            } catch (Exception e) {
-                return "[]";
+        return runInBulkhead(intersectionId, () -> callModel(intersectionId, batchContext));
+    }
+
+    /**
+     * Streaming model call inside the same bulkhead. Each command is passed to onCommand as soon as its object
+     * closes; the future completes with the whole answer (or NO_DECISION, as above).
+     */
+    public CompletableFuture<String> decideStreamingAsync(String intersectionId, String batchContext,
+                                                          Consumer<VehicleCommand> onCommand) {
+        return runInBulkhead(intersectionId, () -> streamModel(intersectionId, batchContext, onCommand));
+    }
+
+    /**
+     * The queue slot is taken before asking the breaker: a half-open trial call is only let through once it is
+     * sure to run, so its outcome is always recorded and the breaker cannot stay half-open forever
+     */
+    CompletableFuture<String> runInBulkhead(String intersectionId, Callable<String> modelCall) {
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            System.err.println("❌ AI bulkhead full - request for " + intersectionId + " rejected");
+            return CompletableFuture.completedFuture(NO_DECISION);
+        }
+        if (!circuitBreaker.allowRequest()) {
+            queued.decrementAndGet();
+            shortCircuited.incrementAndGet();
+            return CompletableFuture.completedFuture(NO_DECISION);
+        }
+        modelCalls.incrementAndGet();
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicBoolean leftQueue = new AtomicBoolean();
+        long submittedAt = System.nanoTime();
+        Future<?> task;
+        try {
+            task = aiExecutor.submit(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    return; // Timed out while queued
+                } finally {
+                    if (leftQueue.compareAndSet(false, true)) queued.decrementAndGet();
+                }
+                active.incrementAndGet();
+                queueWait.record(System.nanoTime() - submittedAt);
+                try {
+                    String decision = modelCall.call();
+                    if (result.complete(decision)) {
+                        circuitBreaker.recordSuccess();
+                    }
+                } catch (Exception e) {
+                    if (result.complete(NO_DECISION)) {
+                        circuitBreaker.recordFailure();
+                        System.err.println("❌ AI call failed: " + e.getMessage());
+                    }
+                } finally {
+                    active.decrementAndGet();
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down - the call never runs, count it as failed so a trial call does not stay open
+            queued.decrementAndGet();
+            circuitBreaker.recordFailure();
+            return CompletableFuture.completedFuture(NO_DECISION);
+        }
+
+        CompletableFuture.delayedExecutor(callTimeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.complete(NO_DECISION)) {
+                timedOut.incrementAndGet();
+                circuitBreaker.recordFailure();
+                task.cancel(true);
+                if (leftQueue.compareAndSet(false, true)) queued.decrementAndGet(); // Cancelled before it ever ran
+            }
+        });
+        return result;
+    }
+
+    private String callModel(String intersectionId, String batchContext) {
+        String prompt = buildPrompt(intersectionId, batchContext);
+        long start = System.nanoTime();
+        try {
+            return qwenModel.generate(prompt).trim();
+        } finally {
+            decisionMetrics.recordLlm(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Blocks the (virtual) bulkhead thread until the stream ends, so the permit covers the whole generation
+     */
+    private String streamModel(String intersectionId, String batchContext, Consumer<VehicleCommand> onCommand)
+            throws Exception {
+        String prompt = buildPrompt(intersectionId, batchContext);
+        long start = System.nanoTime();
+        CompletableFuture<String> done = new CompletableFuture<>();
+        boolean[] first = {true};
+        IncrementalDecisionParser parser = new IncrementalDecisionParser(command -> {
+            if (done.isDone()) return;
+            if (first[0]) {
+                first[0] = false;
+                decisionMetrics.recordLlmFirstCommand(System.nanoTime() - start);
             }
+            onCommand.accept(command);
         });
+
+        qwenStreamingModel.generate(prompt, new StreamingResponseHandler<AiMessage>() {
+            @Override
+            public void onNext(String token) {
+                parser.feed(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+                done.complete(parser.getText().trim());
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.completeExceptionally(error);
+            }
+        });
+
+        try {
+            return done.get();
+        } finally {
+            done.complete(NO_DECISION); // Interrupted by the call timeout - ignore anything still streaming in
+            decisionMetrics.recordLlm(System.nanoTime() - start);
+        }
+    }
+
+    private static String buildPrompt(String intersectionId, String batchContext) {
+        return CollisionPromptBuilder.prompt(intersectionId, batchContext);
     }
-}
\ No newline at end of file
+}
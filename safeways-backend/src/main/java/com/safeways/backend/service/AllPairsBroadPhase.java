@@ -0,0 +1,21 @@
+package com.safeways.backend.service;
+
+import java.util.List;
+
+/**
+ * No pruning - every pair is a candidate. Cheapest for a handful of vehicles.
+ */
+public class AllPairsBroadPhase implements BroadPhase {
+
+    @Override
+    public void forEachCandidatePair(List<CollisionPredictor.VehicleState2D> states,
+                                     double collisionRadius, double timeHorizonSeconds,
+                                     PairVisitor visitor) {
+        int n = states.size();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                visitor.visit(i, j);
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.xml.CityMap;
+import com.safeways.backend.model.xml.MapArc;
+import com.safeways.backend.model.xml.MapNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One IntersectionAntenna per intersection of the city map, for deployments beyond the single demo antenna.
+ *
+ * Every map node with at least antenna.registry.min-degree distinct neighbours gets its own antenna (own vehicles,
+ * tickets and tick state). Antennas are split over a fixed set of single-threaded shards, each ticking its
+ * antennas every antenna.registry.tick-ms - an antenna is always ticked by the same thread, and different
+ * antennas tick in parallel. Vehicle updates are routed to the nearest antenna in range through a uniform grid.
+ */
+@Service
+public class AntennaRegistry {
+
+    @Autowired
+    private MapService mapService;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Value("${antenna.registry.enabled:true}")
+    private boolean enabled;
+
+    // Nodes with fewer distinct neighbours are plain road bends, not intersections
+    @Value("${antenna.registry.min-degree:3}")
+    private int minDegree;
+
+    // Coverage radius in map coordinate units (Harta_Mica.xml is in metres), also the collision radius
+    @Value("${antenna.registry.range:50}")
+    private double range;
+
+    @Value("${antenna.registry.tick-ms:100}")
+    private long tickMs;
+
+    // 0 = one shard per core
+    @Value("${antenna.registry.shards:0}")
+    private int shardCount;
+
+    private final Map<String, IntersectionAntenna> antennas = new ConcurrentHashMap<>();
+    private final Map<Long, List<IntersectionAntenna>> grid = new ConcurrentHashMap<>();
+    private final Map<String, IntersectionAntenna> ownerByVehicle = new ConcurrentHashMap<>();
+    private final List<List<IntersectionAntenna>> shards = new ArrayList<>();
+    private final List<ScheduledExecutorService> shardExecutors = new ArrayList<>();
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong routed = new AtomicLong();
+    private final AtomicLong unrouted = new AtomicLong();
+    private final AtomicLong handovers = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final LatencyStats shardRoundLatency = new LatencyStats(1024);
+
+    public AntennaRegistry() {
+    }
+
+    AntennaRegistry(double range, int shardCount) {
+        this.range = range;
+        this.shardCount = shardCount;
+        initShards();
+    }
+
+    @PostConstruct
+    public void init() {
+        initShards();
+        if (!enabled) return;
+
+        CityMap map = mapService.getMap();
+        if (map == null || map.getNodes() == null || map.getArcs() == null) {
+            System.err.println("⚠️ Antenna registry: no map loaded, no intersection antennas created");
+            return;
+        }
+        for (MapNode node : intersections(map, minDegree)) {
+            IntersectionAntenna antenna = new IntersectionAntenna(node.getId(), node.getLongitude(), node.getLatitude(),
+                                                                  range, range);
+            beanFactory.autowireBean(antenna);
+            register(antenna);
+        }
+
+        for (int s = 0; s < shardExecutors.size(); s++) {
+            List<IntersectionAntenna> shard = shards.get(s);
+            shardExecutors.get(s).scheduleAtFixedRate(() -> tickShard(shard), tickMs, tickMs, TimeUnit.MILLISECONDS);
+        }
+        System.out.println("📡 Antenna registry: " + antennas.size() + " intersection antennas on "
+                           + shardExecutors.size() + " shards");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shardExecutors.forEach(ScheduledExecutorService::shutdownNow);
+    }
+
+    /**
+     * Map nodes with at least minDegree distinct neighbours (arcs are counted in both directions)
+     */
+    public static List<MapNode> intersections(CityMap map, int minDegree) {
+        Map<String, Set<String>> neighbours = new HashMap<>();
+        for (MapArc arc : map.getArcs()) {
+            neighbours.computeIfAbsent(arc.getFrom(), k -> new HashSet<>()).add(arc.getTo());
+            neighbours.computeIfAbsent(arc.getTo(), k -> new HashSet<>()).add(arc.getFrom());
+        }
+        List<MapNode> result = new ArrayList<>();
+        for (MapNode node : map.getNodes()) {
+            if (neighbours.getOrDefault(node.getId(), Set.of()).size() >= minDegree) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds an antenna to the routing grid and to a shard (by node ID, so a restart keeps the same layout)
+     */
+    void register(IntersectionAntenna antenna) {
+        antennas.put(antenna.getNodeId(), antenna);
+        grid.computeIfAbsent(cell(antenna.getAntennaX(), antenna.getAntennaY()), k -> new CopyOnWriteArrayList<>())
+            .add(antenna);
+        shards.get(Math.floorMod(antenna.getNodeId().hashCode(), shards.size())).add(antenna);
+    }
+
+    /**
+     * Hands the vehicle to the nearest antenna covering its position. A vehicle that moved out of its previous
+     * antenna's area is removed there; one outside every area is dropped.
+     *
+     * @return the antenna now tracking the vehicle, null if none covers it
+     */
+    public IntersectionAntenna route(IntersectionAntenna.VehicleLiveData data) {
+        IntersectionAntenna target = nearest(data.x, data.y);
+        IntersectionAntenna previous = (target != null) ? ownerByVehicle.put(data.id, target)
+                                                        : ownerByVehicle.remove(data.id);
+        if (previous != null && previous != target) {
+            previous.removeVehicle(data.id);
+            if (target != null) handovers.incrementAndGet();
+        }
+        if (target == null) {
+            unrouted.incrementAndGet();
+            return null;
+        }
+        target.updateVehicleData(data);
+        routed.incrementAndGet();
+        return target;
+    }
+
+    public void removeVehicle(String vehicleId) {
+        IntersectionAntenna owner = ownerByVehicle.remove(vehicleId);
+        if (owner != null) owner.removeVehicle(vehicleId);
+    }
+
+    public IntersectionAntenna getAntenna(String nodeId) {
+        return antennas.get(nodeId);
+    }
+
+    public Collection<IntersectionAntenna> getAntennas() {
+        return antennas.values();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("antennas", antennas.size());
+        stats.put("shards", shards.size());
+        stats.put("trackedVehicles", ownerByVehicle.size());
+        stats.put("ticks", ticks.get());
+        stats.put("routed", routed.get());
+        stats.put("unrouted", unrouted.get());
+        stats.put("handovers", handovers.get());
+        stats.put("expired", expired.get());
+        stats.put("shardRound", shardRoundLatency.toMap());
+        return stats;
+    }
+
+    private void initShards() {
+        if (!shards.isEmpty()) return;
+        int count = (shardCount > 0) ? shardCount : Runtime.getRuntime().availableProcessors();
+        for (int s = 0; s < count; s++) {
+            shards.add(new CopyOnWriteArrayList<>());
+            int index = s;
+            shardExecutors.add(Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "antenna-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+    }
+
+    /**
+     * One round over a shard - antennas with fewer than two vehicles have nothing to check
+     */
+    private void tickShard(List<IntersectionAntenna> shard) {
+        long start = System.nanoTime();
+        for (IntersectionAntenna antenna : shard) {
+            // Vehicles that stopped reporting leave both the antenna and the routing table
+            for (String vehicleId : antenna.expireStaleVehicles()) {
+                ownerByVehicle.remove(vehicleId, antenna);
+                expired.incrementAndGet();
+            }
+            if (antenna.getVehicleCount() < 2) continue;
+            try {
+                antenna.tickNow();
+                ticks.incrementAndGet();
+            } catch (Exception e) {
+                System.err.println("❌ Tick failed on antenna " + antenna.getNodeId() + ": " + e.getMessage());
+            }
+        }
+        shardRoundLatency.record(System.nanoTime() - start);
+    }
+
+    private IntersectionAntenna nearest(double x, double y) {
+        long cx = (long) Math.floor(x / range);
+        long cy = (long) Math.floor(y / range);
+        IntersectionAntenna best = null;
+        double bestDistance = range * range;
+        for (long dx = -1; dx <= 1; dx++) {
+            for (long dy = -1; dy <= 1; dy++) {
+                List<IntersectionAntenna> candidates = grid.get(key(cx + dx, cy + dy));
+                if (candidates == null) continue;
+                for (IntersectionAntenna antenna : candidates) {
+                    double ax = antenna.getAntennaX() - x;
+                    double ay = antenna.getAntennaY() - y;
+                    double distance = ax * ax + ay * ay;
+                    if (distance <= bestDistance) {
+                        bestDistance = distance;
+                        best = antenna;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private long cell(double x, double y) {
+        return key((long) Math.floor(x / range), (long) Math.floor(y / range));
+    }
+
+    private static long key(long cx, long cy) {
+        return (cx << 32) ^ (cy & 0xffffffffL);
+    }
+}
@@ -0,0 +1,103 @@
+package com.safeways.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * What an antenna shows its pollers at one version of its live data, serialized once to JSON bytes.
+ *
+ * Every client polling /live, /speeding or /vehicles-in-radius between two changes gets the same bytes, and one
+ * that already has them (If-None-Match: etag) gets a 304 - read cost no longer grows with the number of pollers.
+ */
+public final class AntennaSnapshot {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // The versions start at 0 on every boot - without this an ETag from before a restart could match new data
+    private static final String BOOT_ID = UUID.randomUUID().toString().substring(0, 8);
+
+    public final String etag;
+    public final long dataVersion;
+    private final byte[] liveJson;
+    private final byte[] speedingJson;
+    private final byte[] inRadiusJson;
+
+    private AntennaSnapshot(String etag, long dataVersion, byte[] liveJson, byte[] speedingJson, byte[] inRadiusJson) {
+        this.etag = etag;
+        this.dataVersion = dataVersion;
+        this.liveJson = liveJson;
+        this.speedingJson = speedingJson;
+        this.inRadiusJson = inRadiusJson;
+    }
+
+    /**
+     * Strong ETag for a data version and a settings version (speed limit, position) of this boot
+     */
+    static String etag(String nodeId, long dataVersion, long settingsVersion) {
+        return "\"" + nodeId + "-" + BOOT_ID + "-" + dataVersion + "-" + settingsVersion + "\"";
+    }
+
+    /**
+     * Builds all three views from the same vehicle list, so they always agree with each other
+     */
+    static AntennaSnapshot build(String etag, long dataVersion, List<IntersectionAntenna.VehicleLiveData> vehicles,
+                                 double speedLimit, double antennaRangeMeters,
+                                 Predicate<IntersectionAntenna.VehicleLiveData> inRadius) {
+        List<IntersectionAntenna.VehicleLiveData> speeding = new ArrayList<>();
+        List<IntersectionAntenna.VehicleLiveData> inRange = new ArrayList<>();
+        for (IntersectionAntenna.VehicleLiveData v : vehicles) {
+            if (v.isSpeeding) speeding.add(v);
+            if (inRadius.test(v)) inRange.add(v);
+        }
+
+        Map<String, Object> live = new LinkedHashMap<>();
+        live.put("vehicles", vehicles);
+        live.put("speedingVehicles", speeding);
+        live.put("totalCount", vehicles.size());
+        live.put("speedingCount", speeding.size());
+        live.put("speedLimit", speedLimit);
+        live.put("antennaRangeMeters", antennaRangeMeters);
+
+        try {
+            return new AntennaSnapshot(etag, dataVersion, MAPPER.writeValueAsBytes(live),
+                                       MAPPER.writeValueAsBytes(speeding), MAPPER.writeValueAsBytes(inRange));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize antenna snapshot", e);
+        }
+    }
+
+    /**
+     * Body of /live - the bytes are shared, do not modify them
+     */
+    public byte[] liveJson() {
+        return liveJson;
+    }
+
+    public byte[] speedingJson() {
+        return speedingJson;
+    }
+
+    public byte[] inRadiusJson() {
+        return inRadiusJson;
+    }
+
+    /**
+     * True if an If-None-Match header value names this snapshot (or is "*")
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals("*") || t.equals(etag)) return true;
+        }
+        return false;
+    }
+}
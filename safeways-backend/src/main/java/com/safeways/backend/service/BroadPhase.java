@@ -0,0 +1,23 @@
+package com.safeways.backend.service;
+
+import java.util.List;
+
+/**
+ * Broad-phase stage for pairwise collision checks.
+ * Cheaply narrows the vehicle pairs down to the ones that can possibly touch within the horizon;
+ * only those are handed to the narrow-phase CollisionPredictor check.
+ */
+public interface BroadPhase {
+
+    interface PairVisitor {
+        void visit(int i, int j);
+    }
+
+    /**
+     * Visit candidate pairs as indices into states, with i < j and each pair at most once.
+     * Must never skip a pair that detectCollision2DAnalytic would report.
+     */
+    void forEachCandidatePair(List<CollisionPredictor.VehicleState2D> states,
+                              double collisionRadius, double timeHorizonSeconds,
+                              PairVisitor visitor);
+}
@@ -0,0 +1,53 @@
+package com.safeways.backend.service;
+
+/**
+ * Minimal circuit breaker: opens after failureThreshold consecutive failures, rejects every call while open,
+ * then lets a single trial call through (half-open) after openMillis. The trial's outcome closes or re-opens it.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private long timesOpened = 0;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            return true; // The trial call
+        }
+        return state == State.CLOSED;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) timesOpened++;
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+}
@@ -103,7 +103,8 @@ public class CollisionPredictor {
     }
 
     /**
-     * Detect potential collision between 2 vehicles in 2D space
+     * Detect potential collision between 2 vehicles in 2D space.
+     * Samples the horizon in 100ms steps - kept as the reference for detectCollision2DAnalytic.
      */
     public static CollisionResult detectCollision2D(VehicleState2D v1, VehicleState2D v2,
                                                      double collisionRadius, double timeHorizonSeconds,
@@ -131,6 +132,88 @@ public class CollisionPredictor {
         return new CollisionResult(false, -1, null, null, null);
     }
 
+    /**
+     * Detect potential collision between 2 vehicles using the closed-form closest point of approach.
+     * Under the constant-velocity model the separation is |d + w*t|, so the first time it drops
+     * below 2 * collisionRadius is the smaller root of a quadratic - no sampling, no missed gaps.
+     */
+    public static CollisionResult detectCollision2DAnalytic(VehicleState2D v1, VehicleState2D v2,
+                                                            double collisionRadius, double timeHorizonSeconds,
+                                                            WeatherCondition weather) {
+        double contactDistance = collisionRadius * 2;
+        double t = timeOfFirstContact(v2.x - v1.x, v2.y - v1.y, v2.vx - v1.vx, v2.vy - v1.vy,
+                                      contactDistance * contactDistance, timeHorizonSeconds);
+        if (t < 0) {
+            return new CollisionResult(false, -1, null, null, null);
+        }
+        return buildCollisionResult(v1, v2, t, weather);
+    }
+
+    /**
+     * Batch closed-form check of one vehicle against an array of others.
+     * result[i] corresponds to others[i]; the subject itself may appear in the array and is skipped.
+     */
+    public static CollisionResult[] detectCollisionsAgainst(VehicleState2D subject, VehicleState2D[] others,
+                                                            double collisionRadius, double timeHorizonSeconds,
+                                                            WeatherCondition weather) {
+        CollisionResult[] results = new CollisionResult[others.length];
+        double contactDistanceSq = (collisionRadius * 2) * (collisionRadius * 2);
+        CollisionResult none = new CollisionResult(false, -1, null, null, null);
+
+        for (int i = 0; i < others.length; i++) {
+            VehicleState2D other = others[i];
+            if (other == subject) {
+                results[i] = none;
+                continue;
+            }
+            double t = timeOfFirstContact(other.x - subject.x, other.y - subject.y,
+                                          other.vx - subject.vx, other.vy - subject.vy,
+                                          contactDistanceSq, timeHorizonSeconds);
+            results[i] = (t < 0) ? none : buildCollisionResult(subject, other, t, weather);
+        }
+        return results;
+    }
+
+    /**
+     * Earliest t in [0, horizon] with |d + w*t|^2 < contactDistanceSq, or -1 if the vehicles never get that close.
+     * d is the relative position (v2 - v1), w the relative velocity.
+     */
+    static double timeOfFirstContact(double dx, double dy, double wx, double wy,
+                                     double contactDistanceSq, double timeHorizonSeconds) {
+        double c = dx * dx + dy * dy - contactDistanceSq;
+        if (c < 0) {
+            return 0; // Already overlapping
+        }
+
+        double a = wx * wx + wy * wy;
+        double b = dx * wx + dy * wy;
+        if (a < 1e-12 || b >= 0) {
+            return -1; // No relative motion, or moving apart
+        }
+
+        double discriminant = b * b - a * c;
+        if (discriminant <= 0) {
+            return -1; // Closest approach stays outside the contact distance
+        }
+
+        double t = (-b - Math.sqrt(discriminant)) / a;
+        return (t <= timeHorizonSeconds) ? t : -1;
+    }
+
+    private static CollisionResult buildCollisionResult(VehicleState2D v1, VehicleState2D v2, double t,
+                                                        WeatherCondition weather) {
+        double x1 = v1.x + v1.vx * t;
+        double y1 = v1.y + v1.vy * t;
+        double x2 = v2.x + v2.vx * t;
+        double y2 = v2.y + v2.vy * t;
+        double[] collisionPoint = new double[]{(x1 + x2) / 2, (y1 + y2) / 2};
+
+        Prediction pred1 = calculateKinematics2D(v1, collisionPoint[0], collisionPoint[1], weather);
+        Prediction pred2 = calculateKinematics2D(v2, collisionPoint[0], collisionPoint[1], weather);
+
+        return new CollisionResult(true, t, collisionPoint, pred1, pred2);
+    }
+
     /**
      * Detect collisions among multiple vehicles
      */
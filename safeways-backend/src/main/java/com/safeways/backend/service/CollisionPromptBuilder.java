@@ -0,0 +1,200 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.WeatherCondition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds the situation part of the AI prompt for a set of conflicts.
+ *
+ * Conflict participants come first as compact table rows, vehicles outside any conflict only while the token
+ * budget allows. Everything that changes between calls (intersection, weather, rows) comes after INSTRUCTIONS,
+ * which never changes, so the model server can reuse the cached prefix.
+ */
+@Service
+public class CollisionPromptBuilder {
+
+    /**
+     * Static instruction prefix - keep it free of anything that varies per call
+     */
+    public static final String INSTRUCTIONS = """
+            Ești sistemul de decizie V2X al unei intersecții.
+            Pentru fiecare vehicul implicat într-un conflict decide o acțiune, pe baza timpului de sosire la punctul \
+            de coliziune (t_sos), a timpului dacă accelerează la maximum (t_acc) și dacă mai poate opri (opreste).
+            Tabele: câmpuri separate prin |, antetul dă ordinea câmpurilor. Timpi în secunde, viteze în km/h.
+
+            Returnează STRICT un ARRAY JSON. Structura:
+             [
+               {
+                 "vehicleId": "ID",
+                 "actiune": "CONTINUA" | "OPRESTE" | "INCETINESTE" | "ACCELEREAZA",
+                 "vitezaTintaKmH": 0, // Pune viteza recomandată AICI (ex: 20 pentru INCETINESTE, 0 pentru OPRESTE)
+                 "motiv": "explicație bazată pe fizică"
+               }
+             ]
+
+            """;
+
+    @Value("${ai.prompt.max-tokens:600}")
+    private int maxTokens;
+
+    public CollisionPromptBuilder() {
+    }
+
+    public CollisionPromptBuilder(int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    /**
+     * Full prompt - the static prefix followed by the per-call part
+     */
+    public static String prompt(String intersectionId, String situation) {
+        return INSTRUCTIONS + "intersectie=" + intersectionId + "\n" + situation;
+    }
+
+    /**
+     * Situation table for the conflicts, capped at ai.prompt.max-tokens (participants of the most urgent
+     * conflicts are kept first; rows that do not fit are summarised as a count). Every line counts against the
+     * budget - room for a section's summary line is kept back while its rows are added.
+     */
+    public String buildSituation(WeatherCondition weather, List<ConflictClusterer.Cluster> clusters,
+                                 List<CollisionPredictor.VehicleState2D> states,
+                                 List<String> ids, List<String> types) {
+        StringBuilder out = new StringBuilder();
+        if (!append(out, "vreme=" + weather + "\n", 0)) return out.toString();
+
+        if (!append(out, "conflicte\nnr|ttc|vehicule\n", reserveFor(clusters.size()))) return out.toString();
+        for (int c = 0; c < clusters.size(); c++) {
+            ConflictClusterer.Cluster cluster = clusters.get(c);
+            List<String> memberIds = new ArrayList<>();
+            for (int member : cluster.members) {
+                memberIds.add(ids.get(member));
+            }
+            String row = (c + 1) + "|" + num(cluster.getTimeToCollision()) + "|" + String.join(",", memberIds) + "\n";
+            if (!append(out, row, reserveFor(clusters.size() - c - 1))) {
+                out.append(more(clusters.size() - c));
+                break;
+            }
+        }
+
+        // Participants, most urgent conflict first, each with its prediction towards its most urgent collision point
+        Map<Integer, CollisionPredictor.Prediction> participants = participantPredictions(clusters);
+        if (!append(out, "implicate\nid|tip|kg|v|dist|t_sos|t_acc|opreste\n", reserveFor(participants.size()))) {
+            return out.toString();
+        }
+        int written = 0;
+        for (Map.Entry<Integer, CollisionPredictor.Prediction> entry : participants.entrySet()) {
+            int v = entry.getKey();
+            CollisionPredictor.Prediction p = entry.getValue();
+            CollisionPredictor.VehicleState2D state = states.get(v);
+            String row = ids.get(v) + "|" + ScenarioSignature.vehicleClass(types.get(v)) + "|" + Math.round(state.weightKg)
+                + "|" + Math.round(state.speedKmH) + "|" + num(p.distanceToCollision) + "|" + num(p.timeToArrivalNormal)
+                + "|" + num(p.timeToArrivalAccelerated) + "|" + (p.cannotStopPhysically ? "NU" : "da") + "\n";
+            if (!append(out, row, reserveFor(participants.size() - written - 1))) break;
+            written++;
+        }
+        if (written < participants.size()) {
+            out.append(more(participants.size() - written));
+            return out.toString();
+        }
+
+        // Everything else in range, if there is room left
+        List<String> others = new ArrayList<>();
+        for (int v = 0; v < ids.size(); v++) {
+            if (participants.containsKey(v)) continue;
+            CollisionPredictor.VehicleState2D state = states.get(v);
+            others.add(ids.get(v) + "|" + Math.round(state.speedKmH) + "\n");
+        }
+        if (others.isEmpty()) return out.toString();
+
+        if (!append(out, "altele\nid|v\n", reserveFor(others.size()))) {
+            append(out, "altele=" + others.size() + "\n", 0);
+            return out.toString();
+        }
+        int shown = 0;
+        for (String row : others) {
+            if (!append(out, row, reserveFor(others.size() - shown - 1))) break;
+            shown++;
+        }
+        if (shown < others.size()) {
+            out.append(more(others.size() - shown));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Rough token estimate for mixed Romanian text and numbers (digits and separators tokenize densely)
+     */
+    public static int estimateTokens(CharSequence text) {
+        return tokensForChars(text.length());
+    }
+
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    private static int tokensForChars(int chars) {
+        return (chars + 2) / 3;
+    }
+
+    /**
+     * Appends text if it fits in the budget with reserveChars still free after it
+     */
+    private boolean append(StringBuilder out, String text, int reserveChars) {
+        if (tokensForChars(out.length() + text.length() + reserveChars) > maxTokens) return false;
+        out.append(text);
+        return true;
+    }
+
+    /**
+     * Room for the summary line if the remaining rows of a section do not fit
+     */
+    private static int reserveFor(int remaining) {
+        return remaining > 0 ? more(remaining).length() : 0;
+    }
+
+    private static String more(int count) {
+        return "...+" + count + "\n";
+    }
+
+    private static Map<Integer, CollisionPredictor.Prediction> participantPredictions(List<ConflictClusterer.Cluster> clusters) {
+        Map<Integer, CollisionPredictor.Prediction> predictions = new LinkedHashMap<>();
+        Map<Integer, Double> bestTime = new LinkedHashMap<>();
+        for (ConflictClusterer.Cluster cluster : clusters) {
+            for (int member : cluster.members) {
+                predictions.put(member, null);
+            }
+            for (ConflictClusterer.PairConflict pair : cluster.pairs) {
+                double ttc = pair.result.timeToCollision;
+                if (ttc < bestTime.getOrDefault(pair.i, Double.MAX_VALUE)) {
+                    bestTime.put(pair.i, ttc);
+                    predictions.put(pair.i, pair.result.predictionV1);
+                }
+                if (ttc < bestTime.getOrDefault(pair.j, Double.MAX_VALUE)) {
+                    bestTime.put(pair.j, ttc);
+                    predictions.put(pair.j, pair.result.predictionV2);
+                }
+            }
+        }
+        return predictions;
+    }
+
+    /**
+     * Three significant digits, no trailing zeros - 0.000412 -> 0.000412, 1.2345 -> 1.23, 999 -> 999
+     */
+    private static String num(double value) {
+        String s = String.format(Locale.ROOT, "%.3g", value);
+        if (s.contains("e") || s.contains("E")) return s;
+        if (s.contains(".")) {
+            s = s.replaceAll("0+$", "");
+            if (s.endsWith(".")) s = s.substring(0, s.length() - 1);
+        }
+        return s;
+    }
+}
@@ -0,0 +1,107 @@
+package com.safeways.backend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups colliding vehicle pairs into connected conflict clusters.
+ * Two pairs that share a vehicle end up in the same cluster (union-find over vehicle indices),
+ * so one decision round can settle every vehicle that is tangled in the same conflict.
+ */
+public class ConflictClusterer {
+
+    /**
+     * One colliding pair, as indices into the vehicle list the clusterer was built for
+     */
+    public static class PairConflict {
+        public final int i;
+        public final int j;
+        public final CollisionPredictor.CollisionResult result;
+
+        public PairConflict(int i, int j, CollisionPredictor.CollisionResult result) {
+            this.i = i;
+            this.j = j;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Connected set of vehicles plus every colliding pair between them
+     */
+    public static class Cluster {
+        public final List<Integer> members;
+        public final List<PairConflict> pairs;
+        public final PairConflict mostUrgent;
+
+        Cluster(List<Integer> members, List<PairConflict> pairs) {
+            this.members = members;
+            this.pairs = pairs;
+            this.mostUrgent = pairs.stream()
+                .min(Comparator.comparingDouble(p -> p.result.timeToCollision))
+                .orElseThrow();
+        }
+
+        public double getTimeToCollision() {
+            return mostUrgent.result.timeToCollision;
+        }
+    }
+
+    private final int[] parent;
+    private final List<PairConflict> pairs = new ArrayList<>();
+
+    public ConflictClusterer(int vehicleCount) {
+        parent = new int[vehicleCount];
+        for (int i = 0; i < vehicleCount; i++) {
+            parent[i] = i;
+        }
+    }
+
+    public void add(int i, int j, CollisionPredictor.CollisionResult result) {
+        pairs.add(new PairConflict(i, j, result));
+        int rootI = find(i);
+        int rootJ = find(j);
+        if (rootI != rootJ) {
+            parent[Math.max(rootI, rootJ)] = Math.min(rootI, rootJ);
+        }
+    }
+
+    public boolean isEmpty() {
+        return pairs.isEmpty();
+    }
+
+    /**
+     * Clusters ordered by urgency (smallest time to collision first); members ascending within a cluster
+     */
+    public List<Cluster> clusters() {
+        Map<Integer, List<Integer>> membersByRoot = new LinkedHashMap<>();
+        Map<Integer, List<PairConflict>> pairsByRoot = new LinkedHashMap<>();
+
+        for (PairConflict pair : pairs) {
+            pairsByRoot.computeIfAbsent(find(pair.i), k -> new ArrayList<>()).add(pair);
+        }
+        for (int v = 0; v < parent.length; v++) {
+            int root = find(v);
+            if (pairsByRoot.containsKey(root)) {
+                membersByRoot.computeIfAbsent(root, k -> new ArrayList<>()).add(v);
+            }
+        }
+
+        List<Cluster> clusters = new ArrayList<>();
+        for (Map.Entry<Integer, List<PairConflict>> entry : pairsByRoot.entrySet()) {
+            clusters.add(new Cluster(membersByRoot.get(entry.getKey()), entry.getValue()));
+        }
+        clusters.sort(Comparator.comparingDouble(Cluster::getTimeToCollision));
+        return clusters;
+    }
+
+    private int find(int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+}
@@ -0,0 +1,149 @@
+package com.safeways.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.safeways.backend.model.VehicleAction;
+import com.safeways.backend.model.VehicleCommand;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the decision JSON: [{vehicleId, actiune, vitezaTintaKmH, motiv}, ...]
+ */
+public final class DecisionCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private DecisionCodec() {
+    }
+
+    public static String toJson(List<VehicleCommand> commands) {
+        ArrayNode array = MAPPER.createArrayNode();
+        for (VehicleCommand command : commands) {
+            ObjectNode node = array.addObject();
+            node.put("vehicleId", command.vehicleId());
+            node.put("actiune", command.action().getLabel());
+            node.put("vitezaTintaKmH", Math.round(command.targetSpeedKmH()));
+            node.put("motiv", command.reason());
+        }
+        return array.toString();
+    }
+
+    /**
+     * Parses an AI answer with a streaming parser, straight into commands (no intermediate tree).
+     * Tolerates ``` fences, a single object instead of an array, a wrapper object ({"decizii": [...]}) and the
+     * English keys (id, action, targetSpeedKmH, reason). An unknown action is kept as null so the caller can
+     * reject it; objects without a vehicle ID are skipped.
+     *
+     * @throws IllegalArgumentException if the text is not JSON
+     */
+    public static List<VehicleCommand> parse(String text) {
+        List<VehicleCommand> commands = new ArrayList<>();
+        try (JsonParser parser = FACTORY.createParser(stripFences(text))) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                readArray(parser, commands);
+            } else if (token == JsonToken.START_OBJECT) {
+                readObject(parser, commands, true);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Decision is not valid JSON: " + e.getMessage(), e);
+        }
+        return commands;
+    }
+
+    /**
+     * Decodes a single command object - null if it is not valid JSON or carries no vehicle ID
+     */
+    public static VehicleCommand parseCommand(String objectJson) {
+        List<VehicleCommand> commands = new ArrayList<>(1);
+        try (JsonParser parser = FACTORY.createParser(objectJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return null;
+            readObject(parser, commands, false);
+        } catch (IOException e) {
+            return null;
+        }
+        return commands.isEmpty() ? null : commands.get(0);
+    }
+
+    private static String stripFences(String text) {
+        return text.replace("```json", "").replace("```", "").trim();
+    }
+
+    /**
+     * Parser positioned on START_ARRAY - every object element is a command, anything else is skipped
+     */
+    private static void readArray(JsonParser parser, List<VehicleCommand> commands) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) throw new JsonParseException(parser, "Unexpected end of decision array");
+            if (token == JsonToken.START_OBJECT) {
+                readObject(parser, commands, false);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Parser positioned on START_OBJECT. Reads the known command fields; with allowWrapper, the first array or
+     * object value met before any command field is taken as the wrapped decision instead.
+     */
+    private static void readObject(JsonParser parser, List<VehicleCommand> commands, boolean allowWrapper)
+            throws IOException {
+        String id = null;
+        String action = null;
+        double speed = 0.0;
+        String reason = null;
+        boolean commandField = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (value == JsonToken.START_ARRAY || value == JsonToken.START_OBJECT) {
+                if (allowWrapper && !commandField) {
+                    allowWrapper = false;
+                    if (value == JsonToken.START_ARRAY) {
+                        readArray(parser, commands);
+                    } else {
+                        readObject(parser, commands, false);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+                continue;
+            }
+
+            switch (field) {
+                case "vehicleId", "id" -> {
+                    if (id == null) id = parser.getValueAsString();
+                }
+                case "actiune", "action", "Action" -> {
+                    if (action == null) action = parser.getValueAsString();
+                }
+                case "vitezaTintaKmH", "targetSpeedKmH" -> speed = parser.getValueAsDouble(0.0);
+                case "motiv", "reason" -> {
+                    if (reason == null) reason = parser.getValueAsString();
+                }
+                default -> {
+                    continue;
+                }
+            }
+            commandField = true;
+        }
+
+        if (id != null && !id.isEmpty()) {
+            commands.add(new VehicleCommand(id, VehicleAction.fromLabel(action), speed,
+                                            reason != null ? reason : ""));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.safeways.backend.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and outcome counters for the two decision paths: the kinematic fast path and the LLM
+ * (whole answer and, when streaming, first command)
+ */
+@Service
+public class DecisionMetrics {
+
+    private static final int WINDOW = 1024;
+
+    private final LatencyStats fastPath = new LatencyStats(WINDOW);
+    private final LatencyStats llm = new LatencyStats(WINDOW);
+    private final LatencyStats llmFirstCommand = new LatencyStats(WINDOW);
+
+    private final AtomicLong llmAccepted = new AtomicLong();
+    private final AtomicLong llmRejectedUnsafe = new AtomicLong();
+    private final AtomicLong llmLate = new AtomicLong();
+    private final AtomicLong llmFailed = new AtomicLong();
+
+    public void recordFastPath(long nanos) {
+        fastPath.record(nanos);
+    }
+
+    public void recordLlm(long nanos) {
+        llm.record(nanos);
+    }
+
+    /**
+     * Streaming mode: time from the request to the first complete vehicle command
+     */
+    public void recordLlmFirstCommand(long nanos) {
+        llmFirstCommand.record(nanos);
+    }
+
+    public void llmAccepted() { llmAccepted.incrementAndGet(); }
+    public void llmRejectedUnsafe() { llmRejectedUnsafe.incrementAndGet(); }
+    public void llmLate() { llmLate.incrementAndGet(); }
+    public void llmFailed() { llmFailed.incrementAndGet(); }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> outcomes = new LinkedHashMap<>();
+        outcomes.put("accepted", llmAccepted.get());
+        outcomes.put("rejectedUnsafe", llmRejectedUnsafe.get());
+        outcomes.put("late", llmLate.get());
+        outcomes.put("failed", llmFailed.get());
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("fastPath", fastPath.toMap());
+        metrics.put("llm", llm.toMap());
+        metrics.put("llmFirstCommand", llmFirstCommand.toMap());
+        metrics.put("llmOutcomes", outcomes);
+        return metrics;
+    }
+}
@@ -0,0 +1,163 @@
+package com.safeways.backend.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Fixed-timestep loop: time read from a SimulationClock goes into an accumulator, and the simulation is stepped
+ * by exactly stepMs for every full step in it. A late wake-up runs extra steps (caught up) instead of one longer
+ * step, so the physics does not depend on when the loop thread got to run.
+ *
+ * A wake-up runs at most maxStepsPerAdvance steps; time beyond that is dropped and counted - under sustained
+ * overload the simulation falls behind the clock visibly instead of running a growing backlog.
+ *
+ * Periodic tasks (broadcast, antenna tick) have their own period in simulation time and run after the steps of
+ * a wake-up. They are not caught up: a task runs at most once per wake-up and the periods it missed are counted
+ * as skipped.
+ *
+ * advance() is meant to be called from one thread; the stats can be read from any.
+ */
+public class FixedTimestepLoop {
+
+    public interface StepHandler {
+        void step(long simTimeMs, double dtMs);
+    }
+
+    private static final class Task {
+        final String name;
+        final long periodMs;
+        final LongConsumer action;
+        long nextDueMs;
+        final AtomicLong runs = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+
+        Task(String name, long periodMs, LongConsumer action) {
+            this.name = name;
+            this.periodMs = periodMs;
+            this.action = action;
+            this.nextDueMs = periodMs;
+        }
+    }
+
+    private final SimulationClock clock;
+    private final long stepMs;
+    private final long stepNanos;
+    private final int maxStepsPerAdvance;
+    private final StepHandler handler;
+    private final List<Task> tasks = new ArrayList<>();
+
+    private long lastNanos;
+    private long accumulatorNanos;
+    private volatile long simTimeMs;
+    private final AtomicLong steps = new AtomicLong();
+    private final AtomicLong caughtUpSteps = new AtomicLong();
+    private final AtomicLong droppedSteps = new AtomicLong();
+    private final LatencyStats stepDuration = new LatencyStats(1024);
+
+    public FixedTimestepLoop(SimulationClock clock, long stepMs, int maxStepsPerAdvance, StepHandler handler) {
+        if (stepMs <= 0 || maxStepsPerAdvance <= 0) {
+            throw new IllegalArgumentException("stepMs and maxStepsPerAdvance must be positive");
+        }
+        this.clock = clock;
+        this.stepMs = stepMs;
+        this.stepNanos = stepMs * 1_000_000L;
+        this.maxStepsPerAdvance = maxStepsPerAdvance;
+        this.handler = handler;
+        this.lastNanos = clock.nowNanos();
+    }
+
+    /**
+     * Runs action(simTimeMs) every periodMs of simulation time; call before the loop starts
+     */
+    public FixedTimestepLoop every(String name, long periodMs, LongConsumer action) {
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("Period of " + name + " must be positive");
+        }
+        tasks.add(new Task(name, periodMs, action));
+        return this;
+    }
+
+    /**
+     * Steps the simulation for the time elapsed on the clock since the last call, then runs the periodic tasks
+     * that are due. Returns the number of steps run.
+     */
+    public int advance() {
+        long now = clock.nowNanos();
+        accumulatorNanos += Math.max(0, now - lastNanos);
+        lastNanos = now;
+
+        int ran = 0;
+        while (accumulatorNanos >= stepNanos && ran < maxStepsPerAdvance) {
+            long start = System.nanoTime();
+            handler.step(simTimeMs + stepMs, stepMs);
+            stepDuration.record(System.nanoTime() - start);
+            simTimeMs += stepMs;
+            accumulatorNanos -= stepNanos;
+            ran++;
+        }
+        if (accumulatorNanos >= stepNanos) {
+            droppedSteps.addAndGet(accumulatorNanos / stepNanos);
+            accumulatorNanos %= stepNanos;
+        }
+        steps.addAndGet(ran);
+        if (ran > 1) caughtUpSteps.addAndGet(ran - 1);
+
+        for (Task task : tasks) {
+            runIfDue(task);
+        }
+        return ran;
+    }
+
+    private void runIfDue(Task task) {
+        if (simTimeMs < task.nextDueMs) return;
+        try {
+            task.action.accept(simTimeMs);
+            task.runs.incrementAndGet();
+        } catch (Exception e) {
+            System.err.println("❌ Simulation task " + task.name + " failed: " + e.getMessage());
+        }
+        long next = task.nextDueMs + task.periodMs;
+        if (next <= simTimeMs) {
+            long missed = (simTimeMs - next) / task.periodMs + 1;
+            task.skipped.addAndGet(missed);
+            next += missed * task.periodMs;
+        }
+        task.nextDueMs = next;
+    }
+
+    public long getSimTimeMs() {
+        return simTimeMs;
+    }
+
+    public long getStepMs() {
+        return stepMs;
+    }
+
+    /**
+     * Steps run, caught up (extra steps in one wake-up) and dropped, simulation time, step duration and per-task
+     * runs and skipped periods
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stepMs", stepMs);
+        stats.put("simTimeMs", simTimeMs);
+        stats.put("steps", steps.get());
+        stats.put("caughtUpSteps", caughtUpSteps.get());
+        stats.put("droppedSteps", droppedSteps.get());
+        stats.put("stepDuration", stepDuration.toMap());
+        Map<String, Object> taskStats = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            Map<String, Object> t = new LinkedHashMap<>();
+            t.put("periodMs", task.periodMs);
+            t.put("runs", task.runs.get());
+            t.put("skipped", task.skipped.get());
+            taskStats.put(task.name, t);
+        }
+        stats.put("tasks", taskStats);
+        return stats;
+    }
+}
@@ -0,0 +1,93 @@
+package com.safeways.backend.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: keys are hashed into slots by the tick they are due in, and advancing the wheel visits
+ * only the slots of the ticks that elapsed. Scheduling is O(1), expiry is O(1) amortized per key - keys due
+ * more than one revolution ahead stay in their slot until their round comes.
+ *
+ * Resolution is one tick: a key due at t is returned once the tick containing t has fully elapsed.
+ */
+public class HashedTimingWheel<K> {
+
+    private record Timeout<K>(K key, long dueTick) {
+    }
+
+    private final long tickMs;
+    private final List<ArrayDeque<Timeout<K>>> slots;
+    private final int mask;
+
+    // Last tick whose slot has been processed
+    private long cursorTick;
+    private int size;
+
+    /**
+     * @param slotCount rounded up to a power of two
+     * @param startMs   time the wheel starts at - nothing due before it is ever returned late by more than a tick
+     */
+    public HashedTimingWheel(long tickMs, int slotCount, long startMs) {
+        if (tickMs <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("tickMs and slotCount must be positive");
+        }
+        int count = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+        this.tickMs = tickMs;
+        this.mask = count - 1;
+        this.slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+        this.cursorTick = Math.floorDiv(startMs, tickMs) - 1;
+    }
+
+    /**
+     * Schedules the key for dueMs; a time already behind the wheel goes into the next tick to be processed
+     */
+    public synchronized void schedule(K key, long dueMs) {
+        long dueTick = Math.max(Math.floorDiv(dueMs, tickMs), cursorTick + 1);
+        slots.get((int) (dueTick & mask)).addLast(new Timeout<>(key, dueTick));
+        size++;
+    }
+
+    /**
+     * Removes and returns every key due in a tick that ended at or before untilMs
+     */
+    public synchronized List<K> advance(long untilMs) {
+        long lastTick = Math.floorDiv(untilMs, tickMs) - 1;
+        if (lastTick <= cursorTick) {
+            return List.of();
+        }
+        // After a long pause every slot is visited once, not once per missed tick
+        long steps = Math.min(lastTick - cursorTick, slots.size());
+        List<K> due = new ArrayList<>();
+        for (long tick = lastTick - steps + 1; tick <= lastTick; tick++) {
+            Iterator<Timeout<K>> it = slots.get((int) (tick & mask)).iterator();
+            while (it.hasNext()) {
+                Timeout<K> timeout = it.next();
+                if (timeout.dueTick() <= lastTick) {
+                    it.remove();
+                    due.add(timeout.key());
+                }
+            }
+        }
+        size -= due.size();
+        cursorTick = lastTick;
+        return due;
+    }
+
+    public synchronized void clear() {
+        slots.forEach(ArrayDeque::clear);
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+}
@@ -0,0 +1,66 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.VehicleCommand;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Feeds on model output chunk by chunk and emits each vehicle command as soon as its JSON object closes.
+ *
+ * Only tracks string/escape state and the start of every open object, so each character is looked at once.
+ * Any closed object that carries a vehicle ID is decoded with DecisionCodec; wrappers and fences are skipped.
+ */
+public class IncrementalDecisionParser {
+
+    private final StringBuilder text = new StringBuilder();
+    private final Deque<Integer> openObjects = new ArrayDeque<>();
+    private final Consumer<VehicleCommand> onCommand;
+
+    private boolean inString = false;
+    private boolean escaped = false;
+    private int emitted = 0;
+
+    public IncrementalDecisionParser(Consumer<VehicleCommand> onCommand) {
+        this.onCommand = onCommand;
+    }
+
+    public void feed(String chunk) {
+        int from = text.length();
+        text.append(chunk);
+
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escaped) escaped = false;
+                else if (c == '\\') escaped = true;
+                else if (c == '"') inString = false;
+                continue;
+            }
+            if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                openObjects.push(i);
+            } else if (c == '}' && !openObjects.isEmpty()) {
+                int start = openObjects.pop();
+                VehicleCommand command = DecisionCodec.parseCommand(text.substring(start, i + 1));
+                if (command != null) {
+                    emitted++;
+                    onCommand.accept(command);
+                }
+            }
+        }
+    }
+
+    /**
+     * Everything received so far
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    public int getEmittedCount() {
+        return emitted;
+    }
+}
@@ -1,20 +1,33 @@
 package com.safeways.backend.service;
 
+import com.safeways.backend.model.VehicleCommand;
 import com.safeways.backend.model.WeatherCondition;
 import com.safeways.backend.model.vehicle.Vehicle;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,9 +36,46 @@ public class IntersectionAntenna {
     @Autowired
     private AiDecisionService aiDecisionService;
 
-    private List<Vehicle> vehiclesInRange = new ArrayList<>();
-    private CopyOnWriteArrayList<VehicleLiveData> liveVehicleData = new CopyOnWriteArrayList<>();
-    private String nodeId = "Main_Node";
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private DecisionMetrics decisionMetrics;
+
+    @Autowired
+    private AiDecisionCache aiDecisionCache;
+
+    @Autowired
+    private CollisionPromptBuilder promptBuilder;
+
+    // STOMP topic the decisions are pushed on in non-blocking mode
+    public static final String DECISIONS_TOPIC = "/topic/antenna/decisions";
+
+    // STOMP topic every server-driven tick result is pushed on
+    public static final String TICK_TOPIC = "/topic/antenna/tick";
+
+    // Where a decision came from
+    public static final String SOURCE_FAST_PATH = "FAST_PATH";
+    public static final String SOURCE_AI = "AI";
+    public static final String SOURCE_AI_CACHE = "AI_CACHE";
+    public static final String SOURCE_AI_STREAM = "AI_STREAM";
+
+    // false (default): tick/predict return at once with the fast-path decision, the AI refinement arrives on DECISIONS_TOPIC
+    // true: legacy behaviour, the request thread waits for the AI (never past the time to collision)
+    @Value("${antenna.ai.blocking:false}")
+    private boolean blockingAiDecisions;
+
+    // false: conflicts are decided by the fast path (and the AI cache) only, the model is never called
+    @Value("${antenna.ai.enabled:true}")
+    private boolean aiEnabled = true;
+
+    // Vehicles not heard from for this long are dropped from the live data (0 = keep them until removed)
+    @Value("${antenna.live.ttl-ms:5000}")
+    private long liveTtlMs;
+
+    private volatile List<Vehicle> vehiclesInRange = new ArrayList<>();
+    private final LiveVehicleStore liveVehicles = new LiveVehicleStore(DEFAULT_SPEED_LIMIT);
+    private final String nodeId;
 
     // Weather condition at antenna level - CLEAR for normal sunny conditions
     private WeatherCondition currentWeather = WeatherCondition.CLEAR;
@@ -37,22 +87,82 @@ public class IntersectionAntenna {
     private static final double COLLISION_RADIUS = 0.00045; // ~50m in coordinate units
     private static final double TIME_HORIZON_SECONDS = 2.0; // Predict collisions within 2 seconds
 
+    // Per antenna - the registry's antennas work in map coordinate units
+    private final double antennaRange;
+    private final double collisionRadius;
+
     // Antenna tick system
     private static final long TICK_INTERVAL_MS = 100; // 100ms tick interval
-    private long lastTickTime = 0;
+    private static final long AI_DECISION_TIMEOUT_SECONDS = 30;
+    private final AtomicLong lastTickTime = new AtomicLong();
+    private final AtomicInteger lastReportedVehicleCount = new AtomicInteger(-1);
+
+    // true: the antenna ticks itself every antenna.tick.interval-ms and /tick only reads the latest result
+    @Value("${antenna.tick.server-driven:true}")
+    private boolean serverDrivenTick;
+
+    @Value("${antenna.tick.interval-ms:100}")
+    private long tickIntervalMs = TICK_INTERVAL_MS;
+
+    // > 0: SimulationLoopService ticks the antenna in simulation time - its own loop does not start
+    @Value("${simulation.antenna-tick-ms:0}")
+    private long simulationTickMs;
+
+    // Server-driven tick loop: one thread, ticks on a fixed grid, slots missed by a slow tick are skipped
+    private ScheduledExecutorService tickScheduler;
+    private long nextTickDueNanos;
+    private final AtomicLong ticksRun = new AtomicLong();
+    private final AtomicLong ticksSkipped = new AtomicLong();
+    private final AtomicLong tickOverruns = new AtomicLong();
+    private final LatencyStats tickDuration = new LatencyStats(1024);
     private volatile boolean simulationPaused = false;
     private volatile String lastAiDecision = null;
 
-    // Speed limit threshold (km/h) - hardcoded at 50
-    private static final double SPEED_LIMIT = 50.0;
+    // Pending AI decisions: conflict key (sorted vehicle IDs) -> ticket ID
+    private final Map<String, String> pendingTicketsByConflict = new ConcurrentHashMap<>();
+    private final AtomicLong ticketSequence = new AtomicLong();
+
+    // Speed limit (km/h) of this antenna's area, kept by liveVehicles - vehicles above it are flagged and
+    // indexed as speeding there (antenna.speed-limit-kmh, see setSpeedLimit)
+    private static final double DEFAULT_SPEED_LIMIT = 50.0;
+
+    // Published view for pollers; settingsVersion changes with everything in it that is not vehicle data
+    private final AtomicLong settingsVersion = new AtomicLong();
+    private final Object publishLock = new Object();
+    private volatile AntennaSnapshot published;
 
     // Antenna center position (can be configured)
-    private double antennaX = 0.0;
-    private double antennaY = 0.0;
+    private double antennaX;
+    private double antennaY;
 
     // Tick system state
     private AtomicBoolean isProcessingCollision = new AtomicBoolean(false);
-    private volatile CollisionPredictionResult lastPredictionResult = null;
+    // Replaced by every tick; an AI refinement only updates the result of its own tick (compare-and-set)
+    private final AtomicReference<CollisionPredictionResult> lastPredictionResult = new AtomicReference<>();
+
+    // Broad phase used to prune vehicle pairs before the narrow-phase collision check
+    private volatile BroadPhase broadPhase = new SpatialHashBroadPhase();
+
+    // Local rule engine - answers in microseconds, the AI can only refine its decision
+    private final KinematicDecisionEngine decisionEngine = new KinematicDecisionEngine();
+
+    public IntersectionAntenna() {
+        this("Main_Node", 0.0, 0.0, ANTENNA_RANGE, COLLISION_RADIUS);
+    }
+
+    /**
+     * Antenna of one intersection in a city deployment (see AntennaRegistry)
+     *
+     * @param range coverage radius around (x, y), in the same units as the vehicle positions
+     * @param collisionRadius distance under which two vehicles count as colliding, same units
+     */
+    public IntersectionAntenna(String nodeId, double x, double y, double range, double collisionRadius) {
+        this.nodeId = nodeId;
+        this.antennaX = x;
+        this.antennaY = y;
+        this.antennaRange = range;
+        this.collisionRadius = collisionRadius;
+    }
 
     public void receiveSignal(Vehicle v) {
         vehiclesInRange.add(v);
@@ -65,44 +175,71 @@ public class IntersectionAntenna {
             v.getY(),
             v.getVitezaKmH(),
             v.getRotation(),
-            v.getVitezaKmH() > SPEED_LIMIT
+            false // Flagged by the store against the current limit
         );
 
-        // Update or add vehicle data
-        boolean found = false;
-        for (int i = 0; i < liveVehicleData.size(); i++) {
-            if (liveVehicleData.get(i).id.equals(v.getId())) {
-                liveVehicleData.set(i, data);
-                found = true;
-                break;
-            }
-        }
-        if (!found) {
-            liveVehicleData.add(data);
-        }
+        liveVehicles.upsert(data);
     }
 
     /**
      * Get all vehicles currently in antenna range with their live data
      */
     public List<VehicleLiveData> getLiveVehicleData() {
-        return new ArrayList<>(liveVehicleData);
+        return liveVehicles.snapshot().vehicles();
     }
 
     /**
      * Get only vehicles that are speeding (over the limit)
      */
     public List<VehicleLiveData> getSpeedingVehicles() {
-        return liveVehicleData.stream()
-            .filter(v -> v.isSpeeding)
-            .collect(Collectors.toList());
+        return liveVehicles.speeding();
+    }
+
+    /**
+     * The k vehicles furthest over the speed limit, worst first
+     */
+    public List<VehicleLiveData> getWorstSpeeders(int k) {
+        return liveVehicles.topSpeeding(k);
     }
 
     /**
      * Get the current speed limit
      */
     public double getSpeedLimit() {
-        return SPEED_LIMIT;
+        return liveVehicles.getSpeedLimit();
+    }
+
+    /**
+     * Changes this antenna's speed limit and re-flags the vehicles it tracks, so /speeding and the snapshot
+     * follow the new limit at once
+     */
+    @Value("${antenna.speed-limit-kmh:50}")
+    public void setSpeedLimit(double speedLimitKmH) {
+        liveVehicles.setSpeedLimit(speedLimitKmH);
+        settingsVersion.incrementAndGet();
+    }
+
+    /**
+     * Immutable, pre-serialized view of the live data for pollers. Built at most once per data version - every
+     * tick publishes one, requests in between reuse it.
+     */
+    public AntennaSnapshot getPublishedSnapshot() {
+        LiveVehicleStore.Snapshot data = liveVehicles.snapshot();
+        String etag = AntennaSnapshot.etag(nodeId, data.version(), settingsVersion.get());
+        AntennaSnapshot current = published;
+        if (current != null && current.etag.equals(etag)) {
+            return current;
+        }
+        synchronized (publishLock) {
+            current = published;
+            if (current != null && current.etag.equals(etag)) {
+                return current;
+            }
+            AntennaSnapshot fresh = AntennaSnapshot.build(etag, data.version(), data.vehicles(), getSpeedLimit(),
+                                                          getAntennaRangeMeters(), this::isInRadius);
+            published = fresh;
+            return fresh;
+        }
     }
 
     /**
@@ -112,28 +249,54 @@ public class IntersectionAntenna {
         return 50.0; // ~50m range
     }
 
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public double getAntennaX() {
+        return antennaX;
+    }
+
+    public double getAntennaY() {
+        return antennaY;
+    }
+
     /**
      * Set the antenna center position
      */
     public void setAntennaPosition(double x, double y) {
         this.antennaX = x;
         this.antennaY = y;
+        settingsVersion.incrementAndGet();
+    }
+
+    /**
+     * Swap the broad-phase strategy (e.g. AllPairsBroadPhase for very small junctions)
+     */
+    public void setBroadPhase(BroadPhase broadPhase) {
+        this.broadPhase = broadPhase;
+    }
+
+    public BroadPhase getBroadPhase() {
+        return broadPhase;
     }
 
     /**
      * Get vehicles within the antenna's radius
      */
     public List<VehicleLiveData> getVehiclesInRadius() {
-        return liveVehicleData.stream()
-            .filter(v -> {
-                double dx = v.x - antennaX;
-                double dy = v.y - antennaY;
-                double distance = Math.sqrt(dx * dx + dy * dy);
-                return distance <= ANTENNA_RANGE;
-            })
+        return liveVehicles.snapshot().vehicles().stream()
+            .filter(this::isInRadius)
             .collect(Collectors.toList());
     }
 
+    private boolean isInRadius(VehicleLiveData v) {
+        double dx = v.x - antennaX;
+        double dy = v.y - antennaY;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        return distance <= antennaRange;
+    }
+
     /**
      * Check if simulation is paused due to collision processing
      */
@@ -148,11 +311,18 @@ public class IntersectionAntenna {
         return lastAiDecision;
     }
 
+    /**
+     * Number of AI refinements that were requested but have not finished yet
+     */
+    public int getPendingDecisionCount() {
+        return pendingTicketsByConflict.size();
+    }
+
     /**
      * Get the last prediction result
      */
     public CollisionPredictionResult getLastPredictionResult() {
-        return lastPredictionResult;
+        return lastPredictionResult.get();
     }
 
     /**
@@ -162,32 +332,141 @@ public class IntersectionAntenna {
      * When called, it:
      * 1. Gets all vehicles within the antenna's radius
      * 2. For each pair of vehicles, predicts if they will collide within 2 seconds
-     * 3. If a collision is detected, pauses simulation and sends to AI
-     * 4. Waits for AI decision and returns it
+     * 3. If a collision is detected, decides every conflict with the kinematic fast path and asks the AI to refine it
+     * 4. Non-blocking mode: returns at once with the fast-path decision and a ticket, an accepted AI refinement
+     *    is pushed on DECISIONS_TOPIC. Blocking mode: pauses the simulation and waits for the AI until the time to collision
      *
-     * @return CollisionPredictionResult with collision info and AI decision if applicable
+     * @return CollisionPredictionResult with collision info and the decision in force
      */
     public CollisionPredictionResult tick() {
+        if (tickScheduler != null || simulationTickMs > 0) {
+            return latestTickResult(); // A tick loop owns detection - this is only a read
+        }
+
         long currentTime = System.currentTimeMillis();
+        long last = lastTickTime.get();
+
+        // Rate limit ticks to prevent overwhelming the system - of concurrent callers only one wins the slot
+        if (currentTime - last < TICK_INTERVAL_MS || !lastTickTime.compareAndSet(last, currentTime)) {
+            return latestTickResult();
+        }
+        return tickNow();
+    }
+
+    private CollisionPredictionResult latestTickResult() {
+        CollisionPredictionResult last = lastPredictionResult.get();
+        return (last != null) ? last : new CollisionPredictionResult(
+            false, List.of(), null, List.of(), new ArrayList<>(), "No tick has run yet");
+    }
 
-        // Rate limit ticks to prevent overwhelming the system
-        if (currentTime - lastTickTime < TICK_INTERVAL_MS) {
-            return lastPredictionResult;
+    @PostConstruct
+    public void startTickLoop() {
+        if (simulationTickMs > 0) {
+            System.out.println("📡 Antenna " + nodeId + ": ticked by the simulation loop every " + simulationTickMs + " ms");
+            return;
         }
-        lastTickTime = currentTime;
+        if (!serverDrivenTick) return;
+        tickScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "antenna-tick-" + nodeId);
+            t.setDaemon(true);
+            return t;
+        });
+        nextTickDueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(tickIntervalMs);
+        tickScheduler.schedule(this::runScheduledTick, tickIntervalMs, TimeUnit.MILLISECONDS);
+        System.out.println("📡 Antenna " + nodeId + ": server-driven tick every " + tickIntervalMs + " ms");
+    }
+
+    @PreDestroy
+    public void stopTickLoop() {
+        if (tickScheduler != null) tickScheduler.shutdownNow();
+    }
+
+    /**
+     * One tick of the loop: detect, push the result on TICK_TOPIC, re-arm for the next free slot of the grid
+     */
+    private void runScheduledTick() {
+        long period = TimeUnit.MILLISECONDS.toNanos(tickIntervalMs);
+        long start = System.nanoTime();
+        try {
+            tickAndPublish();
+        } catch (Exception e) {
+            System.err.println("❌ Antenna tick failed: " + e.getMessage());
+        } finally {
+            long end = System.nanoTime();
+            if (end - start > period) tickOverruns.incrementAndGet();
+
+            long next = nextTickDueNanos + period;
+            if (next <= end) {
+                long missed = (end - next) / period + 1;
+                ticksSkipped.addAndGet(missed);
+                next += missed * period;
+            }
+            nextTickDueNanos = next;
+            try {
+                tickScheduler.schedule(this::runScheduledTick, next - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+    }
+
+    /**
+     * One tick as the tick loop runs it: detect, count and time it, push the result on TICK_TOPIC. Also used by
+     * SimulationLoopService when the antenna ticks in simulation time.
+     */
+    public CollisionPredictionResult tickAndPublish() {
+        long start = System.nanoTime();
+        try {
+            CollisionPredictionResult result = tickNow();
+            ticksRun.incrementAndGet();
+            messagingTemplate.convertAndSend(TICK_TOPIC, result);
+            return result;
+        } finally {
+            tickDuration.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Tick loop counters: ticks run, overruns (ticks longer than the interval), grid slots skipped because of them
+     * and tick duration
+     */
+    public Map<String, Object> getTickStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("serverDriven", tickScheduler != null || simulationTickMs > 0);
+        stats.put("simulationDriven", simulationTickMs > 0);
+        stats.put("intervalMs", simulationTickMs > 0 ? simulationTickMs : tickIntervalMs);
+        stats.put("ticks", ticksRun.get());
+        stats.put("overruns", tickOverruns.get());
+        stats.put("skipped", ticksSkipped.get());
+        stats.put("duration", tickDuration.toMap());
+        return stats;
+    }
+
+    /**
+     * Same as tick() without the rate limit - for callers that schedule the ticks themselves (the tick loop,
+     * AntennaRegistry)
+     */
+    public CollisionPredictionResult tickNow() {
+        // One published view per tick for the pollers
+        getPublishedSnapshot();
 
         // Get only vehicles within antenna radius
         List<VehicleLiveData> vehiclesInRadius = getVehiclesInRadius();
 
-        System.out.println("📡 Antenna tick - " + vehiclesInRadius.size() + " vehicles in radius");
+        // The loop ticks 10 times a second - only report when the count changes
+        int vehicleCount = vehiclesInRadius.size();
+        if (lastReportedVehicleCount.getAndSet(vehicleCount) != vehicleCount) {
+            System.out.println("📡 Antenna tick - " + vehicleCount + " vehicles in radius");
+        }
 
         if (vehiclesInRadius.size() < 2) {
-            lastPredictionResult = new CollisionPredictionResult(
-                false, null, null, vehiclesInRadius,
+            CollisionPredictionResult result = new CollisionPredictionResult(
+                false, List.of(), null, vehiclesInRadius,
                 new ArrayList<>(), "Less than 2 vehicles in range - no collision possible"
             );
             simulationPaused = false;
-            return lastPredictionResult;
+            lastPredictionResult.set(result);
+            return result;
         }
 
         // Convert live data to 2D states for collision prediction
@@ -216,165 +495,384 @@ public class IntersectionAntenna {
             ));
         }
 
-        // Detect potential collisions between ALL pairs of vehicles
-        CollisionPredictor.CollisionResult dangerousCollision = null;
-        String vehicle1Id = null;
-        String vehicle2Id = null;
-
-        for (int i = 0; i < vehicleStates.size(); i++) {
-            for (int j = i + 1; j < vehicleStates.size(); j++) {
-                CollisionPredictor.CollisionResult result = CollisionPredictor.detectCollision2D(
-                    vehicleStates.get(i), vehicleStates.get(j),
-                    COLLISION_RADIUS, TIME_HORIZON_SECONDS, currentWeather
-                );
-                if (result.collisionDetected) {
-                    dangerousCollision = result;
-                    vehicle1Id = vehiclesInRadius.get(i).id;
-                    vehicle2Id = vehiclesInRadius.get(j).id;
-                    System.out.println("🚨 Collision predicted between " + vehicle1Id + " and " + vehicle2Id +
-                                     " in " + String.format("%.1f", result.timeToCollision) + " seconds!");
-                    break;
-                }
-            }
-            if (dangerousCollision != null) break;
-        }
+        // Detect ALL potential collisions (broad phase + narrow phase), grouped into conflict clusters
+        List<ConflictClusterer.Cluster> clusters = findConflictClusters(vehicleStates);
 
         // No collision detected
-        if (dangerousCollision == null) {
-            lastPredictionResult = new CollisionPredictionResult(
-                false, null, null, vehiclesInRadius,
+        if (clusters.isEmpty()) {
+            CollisionPredictionResult result = new CollisionPredictionResult(
+                false, List.of(), null, vehiclesInRadius,
                 predictions, "All vehicles have safe trajectories"
             );
             simulationPaused = false;
-            return lastPredictionResult;
+            lastPredictionResult.set(result);
+            return result;
         }
 
-        // COLLISION DETECTED - STOP EVERYTHING and send to AI
-        System.out.println("🛑 STOPPING SIMULATION - Collision imminent!");
-        simulationPaused = true;
-
-        // Build context for AI
-        StringBuilder contextBatch = new StringBuilder("🚨 URGENT COLLISION ALERT!\n");
-        contextBatch.append("==================================\n");
-        contextBatch.append("Weather conditions: ").append(currentWeather).append("\n");
-        contextBatch.append(String.format("⏱️ TIME TO COLLISION: %.1f seconds\n", dangerousCollision.timeToCollision));
-        contextBatch.append(String.format("📍 Collision point: [%.6f, %.6f]\n",
-            dangerousCollision.collisionPoint[0], dangerousCollision.collisionPoint[1]));
-        contextBatch.append(String.format("🚗 Vehicles involved: %s and %s\n\n", vehicle1Id, vehicle2Id));
-
-        for (int i = 0; i < vehiclesInRadius.size(); i++) {
-            VehicleLiveData v = vehiclesInRadius.get(i);
-            CollisionPredictor.VehicleState2D state = vehicleStates.get(i);
-
-            contextBatch.append(String.format("Vehicle %s:\n", v.id));
-            contextBatch.append(String.format("  📍 Position: [%.6f, %.6f]\n", v.x, v.y));
-            contextBatch.append(String.format("  🏎️ Velocity: [%.4f, %.4f] m/s | Speed: %.0f km/h\n", state.vx, state.vy, v.speed));
-            contextBatch.append(String.format("  ⚠️ Speeding: %s\n", v.isSpeeding ? "YES" : "No"));
-
-            if (dangerousCollision.collisionPoint != null) {
-                CollisionPredictor.Prediction p = CollisionPredictor.calculateKinematics2D(
-                    state, dangerousCollision.collisionPoint[0], dangerousCollision.collisionPoint[1], currentWeather
-                );
-                contextBatch.append(String.format("  ⏱️ Time to collision point: %.2fs | Distance: %.4f\n",
-                    p.timeToArrivalNormal, p.distanceToCollision));
-                if (p.cannotStopPhysically) {
-                    contextBatch.append("  🔴 CRITICAL: CANNOT PHYSICALLY STOP before collision!\n");
-                }
-            }
-            contextBatch.append("\n");
+        List<String> vehicleIds = vehiclesInRadius.stream().map(v -> v.id).collect(Collectors.toList());
+        List<CollisionInfo> conflicts = toCollisionInfos(clusters, vehicleIds);
+        for (CollisionInfo conflict : conflicts) {
+            System.out.println("🚨 Collision predicted between " + String.join(", ", conflict.vehicleIds) +
+                             " in " + String.format("%.1f", conflict.timeToCollision) + " seconds!");
         }
 
-        System.out.println("📡 Sending emergency context to AI:\n" + contextBatch);
-
-        // BLOCKING CALL - Wait for AI response
-        String aiDecision;
-        try {
-            CompletableFuture<String> aiFuture = aiDecisionService.decideForIntersectionBatchAsync(nodeId, contextBatch.toString());
-            aiDecision = aiFuture.get(30, TimeUnit.SECONDS); // Block for up to 30 seconds
-            System.out.println("✅ AI Response received: " + aiDecision);
-        } catch (Exception e) {
-            System.err.println("❌ AI Decision timeout or error: " + e.getMessage());
-            // Emergency fallback - stop both vehicles
-            aiDecision = "[{\"vehicleId\": \"" + vehicle1Id + "\", \"actiune\": \"OPRESTE\", \"vitezaTintaKmH\": 0, \"motiv\": \"Emergency stop - AI timeout\"}, " +
-                         "{\"vehicleId\": \"" + vehicle2Id + "\", \"actiune\": \"OPRESTE\", \"vitezaTintaKmH\": 0, \"motiv\": \"Emergency stop - AI timeout\"}]";
+        // Fast path first - these commands are in force until an AI refinement is accepted
+        List<String> vehicleTypes = vehiclesInRadius.stream().map(v -> v.type).collect(Collectors.toList());
+        List<VehicleCommand> fastCommands = fastPathCommands(clusters, vehicleStates, vehicleIds, vehicleTypes);
+        String fastDecision = DecisionCodec.toJson(fastCommands);
+        lastAiDecision = fastDecision;
+        ScenarioSignature signature = ScenarioSignature.of(clusters, vehicleStates, vehicleIds, vehicleTypes, currentWeather);
+
+        // Context for the AI - every conflict cluster goes into the same decision round
+        String contextBatch = promptBuilder.buildSituation(currentWeather, clusters, vehicleStates, vehicleIds, vehicleTypes);
+
+        if (!blockingAiDecisions) {
+            String ticketId = submitDecisionAsync(contextBatch, signature, clusters, vehicleStates, vehicleIds, fastCommands);
+            CollisionPredictionResult result = new CollisionPredictionResult(
+                true, conflicts, fastDecision, ticketId, vehiclesInRadius, predictions,
+                "Collision predicted - fast-path decision applied, AI refinement pending"
+            );
+            lastPredictionResult.set(result);
+            return result;
         }
 
+        // COLLISION DETECTED - STOP EVERYTHING and wait for the AI
+        System.out.println("🛑 STOPPING SIMULATION - " + conflicts.size() + " conflict(s) imminent!");
+        simulationPaused = true;
+
+        // BLOCKING CALL - bounded by the time to collision, falls back to the fast path
+        String aiDecision = refineWithAi(contextBatch, signature, clusters, vehicleStates, vehicleIds, fastCommands, null).join().decision();
         lastAiDecision = aiDecision;
 
         // Resume simulation after AI decision is received
         simulationPaused = false;
         System.out.println("▶️ RESUMING SIMULATION - AI decision applied");
 
-        lastPredictionResult = new CollisionPredictionResult(
+        CollisionPredictionResult result = new CollisionPredictionResult(
             true,
-            new CollisionInfo(
-                dangerousCollision.timeToCollision,
-                dangerousCollision.collisionPoint,
-                vehicle1Id,
-                vehicle2Id
-            ),
+            conflicts,
             aiDecision,
             vehiclesInRadius,
             predictions,
             "Collision predicted - AI decision provided"
         );
 
-        return lastPredictionResult;
+        lastPredictionResult.set(result);
+
+        return result;
+    }
+
+    /**
+     * Broad phase prunes the pairs, narrow phase runs the closed-form check on the survivors.
+     * Every colliding pair is kept and pairs sharing a vehicle are merged into one cluster.
+     */
+    private List<ConflictClusterer.Cluster> findConflictClusters(List<CollisionPredictor.VehicleState2D> vehicleStates) {
+        ConflictClusterer clusterer = new ConflictClusterer(vehicleStates.size());
+        broadPhase.forEachCandidatePair(vehicleStates, collisionRadius, TIME_HORIZON_SECONDS, (i, j) -> {
+            CollisionPredictor.CollisionResult result = CollisionPredictor.detectCollision2DAnalytic(
+                vehicleStates.get(i), vehicleStates.get(j),
+                collisionRadius, TIME_HORIZON_SECONDS, currentWeather
+            );
+            if (result.collisionDetected) {
+                clusterer.add(i, j, result);
+            }
+        });
+        return clusterer.clusters();
+    }
+
+    private static List<CollisionInfo> toCollisionInfos(List<ConflictClusterer.Cluster> clusters, List<String> vehicleIds) {
+        List<CollisionInfo> conflicts = new ArrayList<>();
+        for (ConflictClusterer.Cluster cluster : clusters) {
+            List<String> memberIds = new ArrayList<>();
+            for (int member : cluster.members) {
+                memberIds.add(vehicleIds.get(member));
+            }
+            List<ConflictPair> pairs = new ArrayList<>();
+            for (ConflictClusterer.PairConflict pair : cluster.pairs) {
+                pairs.add(new ConflictPair(vehicleIds.get(pair.i), vehicleIds.get(pair.j),
+                                           pair.result.timeToCollision, pair.result.collisionPoint));
+            }
+            ConflictClusterer.PairConflict urgent = cluster.mostUrgent;
+            conflicts.add(new CollisionInfo(
+                urgent.result.timeToCollision,
+                urgent.result.collisionPoint,
+                vehicleIds.get(urgent.i),
+                vehicleIds.get(urgent.j),
+                memberIds,
+                pairs
+            ));
+        }
+        return conflicts;
+    }
+
+    /**
+     * Kinematic fast-path commands for every vehicle in a conflict (emergency vehicles on a mission keep priority)
+     */
+    private List<VehicleCommand> fastPathCommands(List<ConflictClusterer.Cluster> clusters,
+                                                  List<CollisionPredictor.VehicleState2D> vehicleStates,
+                                                  List<String> vehicleIds, List<String> vehicleTypes) {
+        long start = System.nanoTime();
+        boolean[] priority = new boolean[vehicleTypes.size()];
+        for (int i = 0; i < priority.length; i++) {
+            priority[i] = vehicleTypes.get(i) != null && vehicleTypes.get(i).contains("URGENCY");
+        }
+        List<VehicleCommand> commands = decisionEngine.decide(clusters, vehicleStates, vehicleIds, priority);
+        decisionMetrics.recordFastPath(System.nanoTime() - start);
+        return commands;
+    }
+
+    /**
+     * Ask the AI without blocking. The fast-path decision is pushed on DECISIONS_TOPIC at once, an accepted AI
+     * refinement follows under the same ticket. A conflict that is already waiting for the AI reuses its ticket.
+     */
+    private String submitDecisionAsync(String context, ScenarioSignature signature, List<ConflictClusterer.Cluster> clusters,
+                                       List<CollisionPredictor.VehicleState2D> vehicleStates,
+                                       List<String> vehicleIds, List<VehicleCommand> fastCommands) {
+        List<String> involved = fastCommands.stream()
+            .map(VehicleCommand::vehicleId)
+            .sorted()
+            .collect(Collectors.toList());
+        String conflictKey = String.join(",", involved);
+
+        String[] created = new String[1];
+        String ticketId = pendingTicketsByConflict.computeIfAbsent(conflictKey,
+            k -> created[0] = nodeId + "-" + ticketSequence.incrementAndGet());
+        if (created[0] == null) {
+            return ticketId;
+        }
+
+        long startTime = System.currentTimeMillis();
+        completeDecision(new AiDecisionMessage(ticketId, nodeId, involved, DecisionCodec.toJson(fastCommands),
+                                               SOURCE_FAST_PATH, 0));
+
+        // Streaming: every command the model finishes is pushed at once, overlaid on the fast path, as long as
+        // the combined plan is still safe and the deadline has not passed
+        long deadline = startTime + aiDeadlineMs(clusters);
+        List<VehicleCommand> streamed = new ArrayList<>(); // Only touched from the model's stream callbacks
+        Consumer<VehicleCommand> onStreamedCommand = command -> {
+            if (System.currentTimeMillis() > deadline) return;
+            streamed.add(command);
+            List<VehicleCommand> merged = KinematicDecisionEngine.overlay(fastCommands, streamed);
+            if (decisionEngine.validate(merged, clusters, vehicleStates, vehicleIds) == null) {
+                completeDecision(new AiDecisionMessage(ticketId, nodeId, involved, DecisionCodec.toJson(merged),
+                                                       SOURCE_AI_STREAM, System.currentTimeMillis() - startTime));
+            }
+        };
+
+        refineWithAi(context, signature, clusters, vehicleStates, vehicleIds, fastCommands, onStreamedCommand).thenAccept(verdict -> {
+            if (!SOURCE_FAST_PATH.equals(verdict.source())) {
+                completeDecision(new AiDecisionMessage(ticketId, nodeId, involved, verdict.decision(), verdict.source(),
+                                                       System.currentTimeMillis() - startTime));
+            }
+            pendingTicketsByConflict.remove(conflictKey, ticketId);
+        });
+        return ticketId;
+    }
+
+    /**
+     * The AI decision replaces the fast path only if it arrives before the most urgent time to collision
+     * and passes the engine's safety check. Never completes exceptionally - every failure keeps the fast path.
+     * A scenario the AI has already decided is answered from the cache (still safety-checked) without a model call.
+     *
+     * @param onStreamedCommand receives each command as the model streams it (may be null)
+     */
+    private CompletableFuture<Verdict> refineWithAi(String context, ScenarioSignature signature,
+                                                    List<ConflictClusterer.Cluster> clusters,
+                                                    List<CollisionPredictor.VehicleState2D> vehicleStates,
+                                                    List<String> vehicleIds, List<VehicleCommand> fastCommands,
+                                                    Consumer<VehicleCommand> onStreamedCommand) {
+        Verdict fastPath = new Verdict(DecisionCodec.toJson(fastCommands), SOURCE_FAST_PATH);
+
+        List<VehicleCommand> cached = aiDecisionCache.get(signature);
+        if (cached != null) {
+            List<VehicleCommand> merged = KinematicDecisionEngine.overlay(fastCommands, cached);
+            if (decisionEngine.validate(merged, clusters, vehicleStates, vehicleIds) == null) {
+                System.out.println("⚡ AI decision served from cache for " + String.join(", ", signature.roleIds));
+                return CompletableFuture.completedFuture(new Verdict(DecisionCodec.toJson(merged), SOURCE_AI_CACHE));
+            }
+        }
+        if (!aiEnabled) {
+            return CompletableFuture.completedFuture(fastPath);
+        }
+        long deadlineMs = aiDeadlineMs(clusters);
+
+        // Shared with any other caller deciding the same conflict right now
+        CompletableFuture<String> aiFuture = aiDecisionService.decideForConflictAsync(
+            nodeId, fastCommands.stream().map(VehicleCommand::vehicleId).collect(Collectors.toList()), context,
+            onStreamedCommand);
+
+        // Time out a copy - the shared future must stay intact for the other callers
+        return aiFuture.copy()
+            .orTimeout(deadlineMs, TimeUnit.MILLISECONDS)
+            .handle((decision, error) -> {
+                if (error != null) {
+                    Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        decisionMetrics.llmLate();
+                        System.out.println("⏱️ AI decision missed the " + deadlineMs + "ms deadline - fast path stays in force");
+                    } else {
+                        decisionMetrics.llmFailed();
+                        System.err.println("❌ AI decision error: " + cause.getMessage() + " - fast path stays in force");
+                    }
+                    return fastPath;
+                }
+
+                List<VehicleCommand> proposed;
+                try {
+                    proposed = DecisionCodec.parse(decision);
+                } catch (IllegalArgumentException e) {
+                    decisionMetrics.llmFailed();
+                    System.err.println("❌ Unreadable AI decision: " + decision);
+                    return fastPath;
+                }
+                if (proposed.isEmpty()) {
+                    decisionMetrics.llmFailed();
+                    return fastPath;
+                }
+
+                List<VehicleCommand> merged = KinematicDecisionEngine.overlay(fastCommands, proposed);
+                String rejection = decisionEngine.validate(merged, clusters, vehicleStates, vehicleIds);
+                if (rejection != null) {
+                    decisionMetrics.llmRejectedUnsafe();
+                    System.err.println("🚫 AI decision rejected (" + rejection + ") - fast path stays in force");
+                    return fastPath;
+                }
+
+                decisionMetrics.llmAccepted();
+                aiDecisionCache.put(signature, proposed);
+                System.out.println("✅ AI decision accepted: " + decision);
+                return new Verdict(DecisionCodec.toJson(merged), SOURCE_AI);
+            });
+    }
+
+    /**
+     * An AI answer is only useful before the most urgent collision
+     */
+    private static long aiDeadlineMs(List<ConflictClusterer.Cluster> clusters) {
+        return Math.min((long) (clusters.get(0).getTimeToCollision() * 1000),
+                        TimeUnit.SECONDS.toMillis(AI_DECISION_TIMEOUT_SECONDS));
+    }
+
+    private void completeDecision(AiDecisionMessage message) {
+        lastAiDecision = message.aiDecision;
+
+        // Pollers reading the cached tick result see the refinement too - unless a newer tick has replaced it
+        CollisionPredictionResult last;
+        CollisionPredictionResult refined;
+        do {
+            last = lastPredictionResult.get();
+            if (last == null || !message.ticketId.equals(last.pendingDecisionId)) break;
+            refined = new CollisionPredictionResult(
+                true, last.conflicts, message.aiDecision, message.ticketId, last.vehicles, last.predictions,
+                SOURCE_FAST_PATH.equals(message.source) ? last.status : "Collision predicted - AI decision provided"
+            );
+        } while (!lastPredictionResult.compareAndSet(last, refined));
+
+        try {
+            messagingTemplate.convertAndSend(DECISIONS_TOPIC, message);
+        } catch (Exception e) {
+            System.err.println("❌ Could not push decision " + message.ticketId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Decision JSON plus where it came from (SOURCE_FAST_PATH, SOURCE_AI or SOURCE_AI_CACHE)
+     */
+    private record Verdict(String decision, String source) {
     }
 
     /**
      * Get count of vehicles in range
      */
     public int getVehicleCount() {
-        return liveVehicleData.size();
+        return liveVehicles.size();
     }
 
     /**
      * Get count of speeding vehicles
      */
     public int getSpeedingVehicleCount() {
-        return (int) liveVehicleData.stream()
-            .filter(v -> v.isSpeeding)
-            .count();
+        return liveVehicles.speedingCount();
     }
 
     /**
-     * Update or add vehicle data from external source (e.g., frontend simulation)
+     * Update or add vehicle data from external source (e.g., frontend simulation).
+     * The speeding flag is set against this antenna's limit, whatever the caller passed.
      */
     public void updateVehicleData(VehicleLiveData data) {
-        // Update or add vehicle data
-        boolean found = false;
-        for (int i = 0; i < liveVehicleData.size(); i++) {
-            if (liveVehicleData.get(i).id.equals(data.id)) {
-                liveVehicleData.set(i, data);
-                found = true;
-                break;
-            }
+        liveVehicles.upsert(data);
+    }
+
+    /**
+     * Applies a validated batch in one step - ticks see either none or all of it
+     */
+    public LiveVehicleStore.BatchResult applyVehicleBatch(List<VehicleBatchCodec.Row> rows) {
+        List<LiveVehicleStore.Update> updates = new ArrayList<>(rows.size());
+        for (VehicleBatchCodec.Row row : rows) {
+            VehicleLiveData data = new VehicleLiveData(
+                row.id(), "Car", row.x(), row.y(), row.speed(), row.rotation(), false); // Flagged by the store
+            updates.add(new LiveVehicleStore.Update(data, row.seq()));
         }
-        if (!found) {
-            liveVehicleData.add(data);
+        return liveVehicles.applyBatch(updates);
+    }
+
+    /**
+     * Drops vehicles not updated for antenna.live.ttl-ms. Runs on a timer for this bean; AntennaRegistry calls it
+     * from its shard ticks for the intersection antennas.
+     *
+     * @return IDs of the vehicles dropped
+     */
+    public List<String> expireStaleVehicles() {
+        if (simulationPaused) return List.of(); // Nobody reports while the simulation waits for a decision
+        List<String> dropped = liveVehicles.expire(liveTtlMs);
+        if (!dropped.isEmpty()) {
+            System.out.println("🧹 Antenna " + nodeId + ": " + dropped.size() + " stale vehicles dropped");
         }
+        return dropped;
+    }
+
+    @Scheduled(fixedDelayString = "${antenna.live.sweep-ms:250}")
+    public void sweepStaleVehicles() {
+        expireStaleVehicles();
+    }
+
+    /**
+     * Tracked vehicles, TTL evictions and expiry wheel size
+     */
+    public Map<String, Object> getLiveDataStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("tracked", liveVehicles.size());
+        stats.put("expired", liveVehicles.getExpiredCount());
+        stats.put("expiryWheelEntries", liveVehicles.getExpiryWheelSize());
+        stats.put("ttlMs", liveTtlMs);
+        stats.put("version", liveVehicles.getVersion());
+        return stats;
+    }
+
+    void setLiveTtlMs(long liveTtlMs) {
+        this.liveTtlMs = liveTtlMs;
     }
 
     /**
      * Remove vehicles that are no longer active
      */
     public void removeVehicle(String vehicleId) {
-        liveVehicleData.removeIf(v -> v.id.equals(vehicleId));
+        liveVehicles.remove(vehicleId);
     }
 
     /**
      * Predict vehicle positions and detect potential collisions.
-     * If a collision is predicted, this method BLOCKS until AI provides a decision.
+     * If a collision is predicted the fast-path decision is returned and the AI is asked to refine it - an accepted
+     * refinement is pushed on DECISIONS_TOPIC in non-blocking mode, waited for in blocking mode.
      *
-     * @return CollisionPredictionResult containing predictions and AI decision if collision detected
+     * @return CollisionPredictionResult containing predictions and the decision in force
      */
     public CollisionPredictionResult predictAndAnalyze() {
-        List<VehicleLiveData> currentVehicles = new ArrayList<>(liveVehicleData);
+        List<VehicleLiveData> currentVehicles = liveVehicles.snapshot().vehicles();
 
         if (currentVehicles.size() < 2) {
             return new CollisionPredictionResult(
-                false, null, null, currentVehicles,
+                false, List.of(), null, currentVehicles,
                 new ArrayList<>(), "Less than 2 vehicles in range - no collision possible"
             );
         }
@@ -405,89 +903,45 @@ public class IntersectionAntenna {
             ));
         }
 
-        // Detect potential collisions
-        CollisionPredictor.CollisionResult dangerousCollision = null;
-        String vehicle1Id = null;
-        String vehicle2Id = null;
-
-        for (int i = 0; i < vehicleStates.size(); i++) {
-            for (int j = i + 1; j < vehicleStates.size(); j++) {
-                CollisionPredictor.CollisionResult result = CollisionPredictor.detectCollision2D(
-                    vehicleStates.get(i), vehicleStates.get(j),
-                    COLLISION_RADIUS, TIME_HORIZON_SECONDS, currentWeather
-                );
-                if (result.collisionDetected) {
-                    dangerousCollision = result;
-                    vehicle1Id = currentVehicles.get(i).id;
-                    vehicle2Id = currentVehicles.get(j).id;
-                    break;
-                }
-            }
-            if (dangerousCollision != null) break;
-        }
+        // Detect ALL potential collisions, grouped into conflict clusters
+        List<ConflictClusterer.Cluster> clusters = findConflictClusters(vehicleStates);
 
         // No collision detected
-        if (dangerousCollision == null) {
+        if (clusters.isEmpty()) {
             return new CollisionPredictionResult(
-                false, null, null, currentVehicles,
+                false, List.of(), null, currentVehicles,
                 predictions, "All vehicles have safe trajectories"
             );
         }
 
-        // COLLISION DETECTED - Build context and BLOCK for AI decision
-        System.out.println("🚨 COLLISION PREDICTED! Blocking for AI decision...");
-
-        StringBuilder contextBatch = new StringBuilder("COLLISION PREDICTION ALERT!\n");
-        contextBatch.append("Weather conditions: ").append(currentWeather).append("\n");
-        contextBatch.append(String.format("Predicted collision in: %.1f seconds\n", dangerousCollision.timeToCollision));
-        contextBatch.append(String.format("Collision point: [%.6f, %.6f]\n",
-            dangerousCollision.collisionPoint[0], dangerousCollision.collisionPoint[1]));
-        contextBatch.append(String.format("Vehicles involved: %s and %s\n\n", vehicle1Id, vehicle2Id));
-
-        for (int i = 0; i < currentVehicles.size(); i++) {
-            VehicleLiveData v = currentVehicles.get(i);
-            CollisionPredictor.VehicleState2D state = vehicleStates.get(i);
-
-            contextBatch.append(String.format("- ID: %s\n", v.id));
-            contextBatch.append(String.format("  Position: [%.6f, %.6f]\n", v.x, v.y));
-            contextBatch.append(String.format("  Velocity: [%.4f, %.4f] m/s | Speed: %.0f km/h\n", state.vx, state.vy, v.speed));
-            contextBatch.append(String.format("  Speeding: %s\n", v.isSpeeding ? "YES ⚠️" : "No"));
-
-            if (dangerousCollision.collisionPoint != null) {
-                CollisionPredictor.Prediction p = CollisionPredictor.calculateKinematics2D(
-                    state, dangerousCollision.collisionPoint[0], dangerousCollision.collisionPoint[1], currentWeather
-                );
-                contextBatch.append(String.format("  Time to collision point: %.1fs | Distance: %.4f\n",
-                    p.timeToArrivalNormal, p.distanceToCollision));
-                if (p.cannotStopPhysically) {
-                    contextBatch.append("  ⚠️ CRITICAL: Cannot physically stop before collision!\n");
-                }
-            }
-            contextBatch.append("\n");
-        }
+        List<String> vehicleIds = currentVehicles.stream().map(v -> v.id).collect(Collectors.toList());
+        List<CollisionInfo> conflicts = toCollisionInfos(clusters, vehicleIds);
+
+        // COLLISION DETECTED - decide on the fast path, then ask the AI
+        System.out.println("🚨 " + conflicts.size() + " COLLISION(S) PREDICTED! Requesting AI decision...");
 
+        List<String> vehicleTypes = currentVehicles.stream().map(v -> v.type).collect(Collectors.toList());
+        List<VehicleCommand> fastCommands = fastPathCommands(clusters, vehicleStates, vehicleIds, vehicleTypes);
+        String fastDecision = DecisionCodec.toJson(fastCommands);
+        ScenarioSignature signature = ScenarioSignature.of(clusters, vehicleStates, vehicleIds, vehicleTypes, currentWeather);
+
+        String contextBatch = promptBuilder.buildSituation(currentWeather, clusters, vehicleStates, vehicleIds, vehicleTypes);
         System.out.println("📡 Sending to AI:\n" + contextBatch);
 
-        // BLOCKING CALL - Wait for AI response
-        String aiDecision;
-        try {
-            CompletableFuture<String> aiFuture = aiDecisionService.decideForIntersectionBatchAsync(nodeId, contextBatch.toString());
-            aiDecision = aiFuture.get(30, TimeUnit.SECONDS); // Block for up to 30 seconds
-            System.out.println("✅ AI Response received: " + aiDecision);
-        } catch (Exception e) {
-            System.err.println("❌ AI Decision timeout or error: " + e.getMessage());
-            aiDecision = "[{\"vehicleId\": \"" + vehicle1Id + "\", \"actiune\": \"OPRESTE\", \"vitezaTintaKmH\": 0, \"motiv\": \"Emergency stop - AI timeout\"}, " +
-                         "{\"vehicleId\": \"" + vehicle2Id + "\", \"actiune\": \"OPRESTE\", \"vitezaTintaKmH\": 0, \"motiv\": \"Emergency stop - AI timeout\"}]";
+        if (!blockingAiDecisions) {
+            String ticketId = submitDecisionAsync(contextBatch, signature, clusters, vehicleStates, vehicleIds, fastCommands);
+            return new CollisionPredictionResult(
+                true, conflicts, fastDecision, ticketId, currentVehicles, predictions,
+                "Collision predicted - fast-path decision applied, AI refinement pending"
+            );
         }
 
+        // BLOCKING CALL - bounded by the time to collision, falls back to the fast path
+        String aiDecision = refineWithAi(contextBatch, signature, clusters, vehicleStates, vehicleIds, fastCommands, null).join().decision();
+
         return new CollisionPredictionResult(
             true,
-            new CollisionInfo(
-                dangerousCollision.timeToCollision,
-                dangerousCollision.collisionPoint,
-                vehicle1Id,
-                vehicle2Id
-            ),
+            conflicts,
             aiDecision,
             currentVehicles,
             predictions,
@@ -500,18 +954,32 @@ public class IntersectionAntenna {
      */
     public static class CollisionPredictionResult {
         public final boolean collisionPredicted;
-        public final CollisionInfo collisionInfo;
+        public final CollisionInfo collisionInfo; // Most urgent conflict (kept for older clients)
+        public final List<CollisionInfo> conflicts;
         public final String aiDecision;
+        public final String pendingDecisionId; // Ticket of the AI decision still in flight (non-blocking mode)
         public final List<VehicleLiveData> vehicles;
         public final List<VehiclePrediction> predictions;
         public final String status;
 
-        public CollisionPredictionResult(boolean collisionPredicted, CollisionInfo collisionInfo,
+        /**
+         * @param conflicts one entry per conflict cluster, most urgent first
+         */
+        public CollisionPredictionResult(boolean collisionPredicted, List<CollisionInfo> conflicts,
                                           String aiDecision, List<VehicleLiveData> vehicles,
                                           List<VehiclePrediction> predictions, String status) {
+            this(collisionPredicted, conflicts, aiDecision, null, vehicles, predictions, status);
+        }
+
+        public CollisionPredictionResult(boolean collisionPredicted, List<CollisionInfo> conflicts,
+                                          String aiDecision, String pendingDecisionId,
+                                          List<VehicleLiveData> vehicles,
+                                          List<VehiclePrediction> predictions, String status) {
             this.collisionPredicted = collisionPredicted;
-            this.collisionInfo = collisionInfo;
+            this.conflicts = conflicts;
+            this.collisionInfo = conflicts.isEmpty() ? null : conflicts.get(0);
             this.aiDecision = aiDecision;
+            this.pendingDecisionId = pendingDecisionId;
             this.vehicles = vehicles;
             this.predictions = predictions;
             this.status = status;
@@ -520,33 +988,101 @@ public class IntersectionAntenna {
         // Getters for JSON
         public boolean isCollisionPredicted() { return collisionPredicted; }
         public CollisionInfo getCollisionInfo() { return collisionInfo; }
+        public List<CollisionInfo> getConflicts() { return conflicts; }
         public String getAiDecision() { return aiDecision; }
+        public String getPendingDecisionId() { return pendingDecisionId; }
         public List<VehicleLiveData> getVehicles() { return vehicles; }
         public List<VehiclePrediction> getPredictions() { return predictions; }
         public String getStatus() { return status; }
     }
 
     /**
-     * DTO for collision information
+     * DTO for collision information - one conflict cluster.
+     * timeToCollision, collisionPoint and vehicle1Id/vehicle2Id describe the cluster's most urgent pair.
      */
     public static class CollisionInfo {
         public final double timeToCollision;
         public final double[] collisionPoint;
         public final String vehicle1Id;
         public final String vehicle2Id;
+        public final List<String> vehicleIds;
+        public final List<ConflictPair> pairs;
 
         public CollisionInfo(double timeToCollision, double[] collisionPoint,
                             String vehicle1Id, String vehicle2Id) {
+            this(timeToCollision, collisionPoint, vehicle1Id, vehicle2Id,
+                 List.of(vehicle1Id, vehicle2Id),
+                 List.of(new ConflictPair(vehicle1Id, vehicle2Id, timeToCollision, collisionPoint)));
+        }
+
+        public CollisionInfo(double timeToCollision, double[] collisionPoint,
+                            String vehicle1Id, String vehicle2Id,
+                            List<String> vehicleIds, List<ConflictPair> pairs) {
             this.timeToCollision = timeToCollision;
             this.collisionPoint = collisionPoint;
             this.vehicle1Id = vehicle1Id;
             this.vehicle2Id = vehicle2Id;
+            this.vehicleIds = vehicleIds;
+            this.pairs = pairs;
         }
 
         public double getTimeToCollision() { return timeToCollision; }
         public double[] getCollisionPoint() { return collisionPoint; }
         public String getVehicle1Id() { return vehicle1Id; }
         public String getVehicle2Id() { return vehicle2Id; }
+        public List<String> getVehicleIds() { return vehicleIds; }
+        public List<ConflictPair> getPairs() { return pairs; }
+    }
+
+    /**
+     * DTO for a single colliding pair inside a conflict cluster
+     */
+    public static class ConflictPair {
+        public final String vehicle1Id;
+        public final String vehicle2Id;
+        public final double timeToCollision;
+        public final double[] collisionPoint;
+
+        public ConflictPair(String vehicle1Id, String vehicle2Id, double timeToCollision, double[] collisionPoint) {
+            this.vehicle1Id = vehicle1Id;
+            this.vehicle2Id = vehicle2Id;
+            this.timeToCollision = timeToCollision;
+            this.collisionPoint = collisionPoint;
+        }
+
+        public String getVehicle1Id() { return vehicle1Id; }
+        public String getVehicle2Id() { return vehicle2Id; }
+        public double getTimeToCollision() { return timeToCollision; }
+        public double[] getCollisionPoint() { return collisionPoint; }
+    }
+
+    /**
+     * DTO pushed on DECISIONS_TOPIC - the fast-path decision of a new ticket, then its streamed and final AI refinements
+     */
+    public static class AiDecisionMessage {
+        public final String ticketId;
+        public final String nodeId;
+        public final List<String> vehicleIds;
+        public final String aiDecision;
+        public final String source; // SOURCE_FAST_PATH, SOURCE_AI_STREAM, SOURCE_AI or SOURCE_AI_CACHE
+        public final long latencyMs;
+
+        public AiDecisionMessage(String ticketId, String nodeId, List<String> vehicleIds,
+                                 String aiDecision, String source, long latencyMs) {
+            this.ticketId = ticketId;
+            this.nodeId = nodeId;
+            this.vehicleIds = vehicleIds;
+            this.aiDecision = aiDecision;
+            this.source = source;
+            this.latencyMs = latencyMs;
+        }
+
+        public String getTicketId() { return ticketId; }
+        public String getNodeId() { return nodeId; }
+        public List<String> getVehicleIds() { return vehicleIds; }
+        public String getAiDecision() { return aiDecision; }
+        public String getSource() { return source; }
+        public long getLatencyMs() { return latencyMs; }
     }
 
     /**
@@ -589,18 +1125,21 @@ public class IntersectionAntenna {
      * Clear stale vehicle data (call periodically if needed)
      */
     public void clearLiveData() {
-        liveVehicleData.clear();
+        liveVehicles.clear();
     }
 
     public CompletableFuture<String> processTraffic() {
-        if (vehiclesInRange.size() < 2) {
-            vehiclesInRange.clear();
+        // Take this round's signals and start a new list, whatever branch (or exception) ends the round
+        List<Vehicle> signals = vehiclesInRange;
+        vehiclesInRange = new ArrayList<>();
+
+        if (signals.size() < 2) {
             return CompletableFuture.completedFuture("[\"Traffic safe, less than 2 vehicles.\"]");
         }
 
         // Convert vehicles to 2D states for collision detection
         List<CollisionPredictor.VehicleState2D> vehicleStates = new ArrayList<>();
-        for (Vehicle v : vehiclesInRange) {
+        for (Vehicle v : signals) {
             CollisionPredictor.VehicleState2D state = CollisionPredictor.VehicleState2D.fromVehicleWithDirection(
                 v.getX(), v.getY(), v.getRotation(),
                 v.getVitezaKmH(), v.getGreutateKg(), v.getCapabilitateFranareBaza()
@@ -609,67 +1148,24 @@ public class IntersectionAntenna {
         }
 
         // Check for 2D collisions between all vehicle pairs
-        boolean collisionDanger = false;
-        CollisionPredictor.CollisionResult dangerousCollision = null;
-
-        for (int i = 0; i < vehicleStates.size(); i++) {
-            for (int j = i + 1; j < vehicleStates.size(); j++) {
-                CollisionPredictor.CollisionResult result = CollisionPredictor.detectCollision2D(
-                    vehicleStates.get(i), vehicleStates.get(j),
-                    COLLISION_RADIUS, TIME_HORIZON_SECONDS, currentWeather
-                );
-                if (result.collisionDetected) {
-                    collisionDanger = true;
-                    dangerousCollision = result;
-                    break;
-                }
-            }
-            if (collisionDanger) break;
-        }
+        List<ConflictClusterer.Cluster> clusters = findConflictClusters(vehicleStates);
 
-        if (!collisionDanger) {
-            vehiclesInRange.clear();
+        if (clusters.isEmpty()) {
             return CompletableFuture.completedFuture("[\"Vehicles have safe spacing. AI offline.\"]");
         }
 
-        // --- BUILD PROMPT FOR AI ---
-        StringBuilder contextBatch = new StringBuilder("COLLISION ALARM!\n");
-        contextBatch.append("Weather conditions at intersection: ").append(currentWeather).append("\n");
-
-        if (dangerousCollision != null) {
-            contextBatch.append(String.format("Estimated time to collision: %.1f seconds\n", dangerousCollision.timeToCollision));
-            if (dangerousCollision.collisionPoint != null) {
-                contextBatch.append(String.format("Collision point: [%.6f, %.6f]\n",
-                    dangerousCollision.collisionPoint[0], dangerousCollision.collisionPoint[1]));
-            }
-        }
-        contextBatch.append("\n");
+        List<String> vehicleIds = signals.stream().map(Vehicle::getId).collect(Collectors.toList());
 
-        for (int i = 0; i < vehiclesInRange.size(); i++) {
-            Vehicle v = vehiclesInRange.get(i);
-            CollisionPredictor.VehicleState2D state = vehicleStates.get(i);
-
-            contextBatch.append(String.format("- ID: %s (%s, %.0fkg)\n", v.getId(), v.getTipVehicul(), v.getGreutateKg()));
-            contextBatch.append(String.format("  Position: [%.6f, %.6f]\n", state.x, state.y));
-            contextBatch.append(String.format("  Velocity: [%.4f, %.4f] m/s | Speed: %.0f km/h\n", state.vx, state.vy, v.getVitezaKmH()));
-
-            // Calculate individual predictions if collision point exists
-            if (dangerousCollision != null && dangerousCollision.collisionPoint != null) {
-                CollisionPredictor.Prediction p = CollisionPredictor.calculateKinematics2D(
-                    state, dangerousCollision.collisionPoint[0], dangerousCollision.collisionPoint[1], currentWeather
-                );
-                contextBatch.append(String.format("  Time to collision point: %.1fs | Distance: %.4f\n",
-                    p.timeToArrivalNormal, p.distanceToCollision));
-
-                if (p.cannotStopPhysically) {
-                    contextBatch.append("  CRITICAL: Due to weather and speed, this vehicle CANNOT physically stop before collision point!\n");
-                }
-            }
-        }
+        List<String> vehicleTypes = signals.stream().map(Vehicle::getTipVehicul).collect(Collectors.toList());
+        List<VehicleCommand> fastCommands = fastPathCommands(clusters, vehicleStates, vehicleIds, vehicleTypes);
+        ScenarioSignature signature = ScenarioSignature.of(clusters, vehicleStates, vehicleIds, vehicleTypes, currentWeather);
 
+        // --- BUILD PROMPT FOR AI ---
+        String contextBatch = promptBuilder.buildSituation(currentWeather, clusters, vehicleStates, vehicleIds, vehicleTypes);
         System.out.println("⚠️ AI TRIGGERED:\n" + contextBatch);
-        vehiclesInRange.clear();
-        return aiDecisionService.decideForIntersectionBatchAsync(nodeId, contextBatch.toString());
+        // Completes with the AI decision if it is in time and safe, otherwise with the fast path
+        return refineWithAi(contextBatch, signature, clusters, vehicleStates, vehicleIds, fastCommands, null)
+            .thenApply(Verdict::decision);
     }
 
     // Legacy method name for backward compatibility
@@ -0,0 +1,221 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.VehicleAction;
+import com.safeways.backend.model.VehicleCommand;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic fast path ahead of the LLM.
+ *
+ * For every colliding pair one vehicle keeps its right of way and the other yields. The rules only use the
+ * kinematics CollisionPredictor already computed towards the pair's collision point (arrival times, stopping
+ * distance vs. distance left, braking scaled by weight and weather grip), so a full decision round costs
+ * microseconds. The same rules are used to check that an LLM verdict is safe before it replaces this one.
+ */
+public class KinematicDecisionEngine {
+
+    // Gap the yielding vehicle should leave behind the one that keeps going
+    static final double CLEARANCE_MARGIN_SECONDS = 1.0;
+
+    // Below this a slow-down target is not worth it - stop instead
+    static final double MIN_CRAWL_SPEED_KMH = 5.0;
+
+    /**
+     * Commands for every vehicle that is part of a conflict, one per vehicle, in cluster order.
+     *
+     * @param states   vehicle states the clusters' indices point into
+     * @param ids      vehicle IDs, same order as states
+     * @param priority emergency vehicles on a mission - they keep the right of way whenever the other can stop
+     */
+    public List<VehicleCommand> decide(List<ConflictClusterer.Cluster> clusters,
+                                       List<CollisionPredictor.VehicleState2D> states,
+                                       List<String> ids, boolean[] priority) {
+        Map<Integer, VehicleCommand> commands = new LinkedHashMap<>();
+
+        for (ConflictClusterer.Cluster cluster : clusters) {
+            for (ConflictClusterer.PairConflict pair : cluster.pairs) {
+                CollisionPredictor.Prediction pi = pair.result.predictionV1;
+                CollisionPredictor.Prediction pj = pair.result.predictionV2;
+
+                boolean iGoes = keepsRightOfWay(pair.i, pi, pair.j, pj, states, priority);
+                int goer = iGoes ? pair.i : pair.j;
+                int yielder = iGoes ? pair.j : pair.i;
+                CollisionPredictor.Prediction goerPrediction = iGoes ? pi : pj;
+                CollisionPredictor.Prediction yielderPrediction = iGoes ? pj : pi;
+
+                VehicleCommand goerCommand;
+                VehicleCommand yielderCommand;
+                String other = ids.get(yielder);
+
+                if (yielderPrediction.cannotStopPhysically) {
+                    // Neither can stop - clear the point as fast as possible and brake hard behind
+                    goerCommand = new VehicleCommand(ids.get(goer), VehicleAction.ACCELERATE, 0,
+                        "Fast path: " + other + " cannot stop either, clear the collision point");
+                    yielderCommand = new VehicleCommand(other, VehicleAction.STOP, 0,
+                        "Fast path: cannot stop before the collision point, full braking to reduce impact");
+                } else {
+                    goerCommand = new VehicleCommand(ids.get(goer), VehicleAction.CONTINUE, states.get(goer).speedKmH,
+                        "Fast path: keeps right of way over " + other);
+                    yielderCommand = yieldCommand(other, ids.get(goer), yielderPrediction, goerPrediction,
+                                                  states.get(yielder));
+                }
+
+                commands.merge(goer, goerCommand, KinematicDecisionEngine::mostRestrictive);
+                commands.merge(yielder, yielderCommand, KinematicDecisionEngine::mostRestrictive);
+            }
+        }
+        return new ArrayList<>(commands.values());
+    }
+
+    /**
+     * Proposed commands take over from the fallback ones for the vehicles they name; the rest keep the fallback
+     */
+    public static List<VehicleCommand> overlay(List<VehicleCommand> fallback, List<VehicleCommand> proposed) {
+        Map<String, VehicleCommand> byId = new LinkedHashMap<>();
+        for (VehicleCommand command : fallback) {
+            byId.put(command.vehicleId(), command);
+        }
+        for (VehicleCommand command : proposed) {
+            byId.put(command.vehicleId(), command);
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    /**
+     * Checks a command set against the conflicts. Returns null when it is safe, otherwise the reason it is not.
+     * A SLOW_DOWN only counts as yielding if it is below the vehicle's speed and slow enough to let the other
+     * vehicle clear the point first (the speed the fast path would have asked for).
+     */
+    public String validate(List<VehicleCommand> commands, List<ConflictClusterer.Cluster> clusters,
+                           List<CollisionPredictor.VehicleState2D> states, List<String> ids) {
+        Map<String, VehicleCommand> byId = new HashMap<>();
+        for (VehicleCommand command : commands) {
+            if (command.action() == null) {
+                return "Unknown action for " + command.vehicleId();
+            }
+            if (!Double.isFinite(command.targetSpeedKmH()) || command.targetSpeedKmH() < 0) {
+                return "Invalid target speed for " + command.vehicleId();
+            }
+            byId.put(command.vehicleId(), command);
+        }
+
+        for (ConflictClusterer.Cluster cluster : clusters) {
+            for (ConflictClusterer.PairConflict pair : cluster.pairs) {
+                String idI = ids.get(pair.i);
+                String idJ = ids.get(pair.j);
+                CollisionPredictor.Prediction pi = pair.result.predictionV1;
+                CollisionPredictor.Prediction pj = pair.result.predictionV2;
+
+                VehicleCommand ci = byId.get(idI);
+                VehicleCommand cj = byId.get(idJ);
+                CollisionPredictor.VehicleState2D si = states.get(pair.i);
+                CollisionPredictor.VehicleState2D sj = states.get(pair.j);
+
+                if (pi.cannotStopPhysically && pj.cannotStopPhysically) {
+                    // Unavoidable - at least one of them has to brake to reduce the impact
+                    if (!brakes(ci, si) && !brakes(cj, sj)) {
+                        return "Neither " + idI + " nor " + idJ + " brakes before an unavoidable collision";
+                    }
+                } else if (!(yields(ci, si, pi, pj) && !pi.cannotStopPhysically)
+                        && !(yields(cj, sj, pj, pi) && !pj.cannotStopPhysically)) {
+                    return "Nobody that can stop yields between " + idI + " and " + idJ;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Right of way: an emergency vehicle first, then whoever reaches the point first, then the faster one
+     * (harder to stop). The vehicle that cannot stop never yields to one that can.
+     */
+    private static boolean keepsRightOfWay(int i, CollisionPredictor.Prediction pi,
+                                           int j, CollisionPredictor.Prediction pj,
+                                           List<CollisionPredictor.VehicleState2D> states, boolean[] priority) {
+        if (pi.cannotStopPhysically != pj.cannotStopPhysically) {
+            return pi.cannotStopPhysically;
+        }
+        if (priority[i] != priority[j]) {
+            return priority[i];
+        }
+        if (pi.timeToArrivalNormal != pj.timeToArrivalNormal) {
+            return pi.timeToArrivalNormal < pj.timeToArrivalNormal;
+        }
+        if (states.get(i).speedKmH != states.get(j).speedKmH) {
+            return states.get(i).speedKmH > states.get(j).speedKmH;
+        }
+        return i < j;
+    }
+
+    /**
+     * Slow down just enough to reach the point CLEARANCE_MARGIN_SECONDS after the other vehicle, or stop
+     */
+    private static VehicleCommand yieldCommand(String id, String otherId,
+                                               CollisionPredictor.Prediction own,
+                                               CollisionPredictor.Prediction other,
+                                               CollisionPredictor.VehicleState2D state) {
+        double targetKmH = clearingSpeedKmH(own, other);
+
+        if (targetKmH >= MIN_CRAWL_SPEED_KMH && targetKmH < state.speedKmH) {
+            return new VehicleCommand(id, VehicleAction.SLOW_DOWN, Math.floor(targetKmH),
+                String.format("Fast path: slow down so %s clears the collision point first", otherId));
+        }
+        return new VehicleCommand(id, VehicleAction.STOP, 0,
+            String.format("Fast path: stop and give way to %s", otherId));
+    }
+
+    /**
+     * Speed at which the vehicle reaches the point CLEARANCE_MARGIN_SECONDS after the other one
+     */
+    private static double clearingSpeedKmH(CollisionPredictor.Prediction own, CollisionPredictor.Prediction other) {
+        double clearTime = other.timeToArrivalNormal + CLEARANCE_MARGIN_SECONDS;
+        return own.distanceToCollision / clearTime * 3.6;
+    }
+
+    /**
+     * STOP, or SLOW_DOWN to a target below the current speed and no faster than the clearing speed
+     */
+    private static boolean yields(VehicleCommand command, CollisionPredictor.VehicleState2D state,
+                                  CollisionPredictor.Prediction own, CollisionPredictor.Prediction other) {
+        if (!brakes(command, state)) {
+            return false;
+        }
+        return command.action() == VehicleAction.STOP || command.targetSpeedKmH() <= clearingSpeedKmH(own, other);
+    }
+
+    /**
+     * STOP, or SLOW_DOWN to a target below the current speed
+     */
+    private static boolean brakes(VehicleCommand command, CollisionPredictor.VehicleState2D state) {
+        if (command == null || !command.action().yields()) {
+            return false;
+        }
+        return command.action() == VehicleAction.STOP || command.targetSpeedKmH() < state.speedKmH;
+    }
+
+    /**
+     * STOP > SLOW_DOWN (lowest target wins) > ACCELERATE > CONTINUE
+     */
+    static VehicleCommand mostRestrictive(VehicleCommand a, VehicleCommand b) {
+        int rankA = rank(a.action());
+        int rankB = rank(b.action());
+        if (rankA != rankB) {
+            return rankA > rankB ? a : b;
+        }
+        return b.targetSpeedKmH() < a.targetSpeedKmH() ? b : a;
+    }
+
+    private static int rank(VehicleAction action) {
+        return switch (action) {
+            case STOP -> 3;
+            case SLOW_DOWN -> 2;
+            case ACCELERATE -> 1;
+            case CONTINUE -> 0;
+        };
+    }
+}
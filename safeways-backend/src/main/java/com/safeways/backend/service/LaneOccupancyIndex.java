@@ -0,0 +1,188 @@
+package com.safeways.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which simulated vehicles are on which lane, ordered by how far along the lane they are.
+ *
+ * A lane is a directed arc of the map (from node -> to node) plus a lane number. Vehicles are int handles; each
+ * lane keeps its handles sorted by progress (distance from the start of the arc), so the car in front of a
+ * vehicle is simply the next handle of its lane - O(1) instead of a scan of every vehicle.
+ *
+ * Lanes also have dense int IDs (laneId) so a step can look them up without building keys.
+ *
+ * Progress changes every step without re-sorting; reorder() restores the order once per step. Vehicles on one
+ * lane rarely overtake each other, so that is an insertion sort over an almost sorted list - O(n) per step.
+ * Not thread-safe - owned by the simulation step.
+ */
+public class LaneOccupancyIndex {
+
+    /**
+     * Directed arc (node indices) and lane number on it
+     */
+    public record LaneKey(int from, int to, int lane) {
+    }
+
+    private static final class Lane {
+        int[] members = new int[4]; // Vehicle handles, rearmost first
+        int size;
+        boolean dirty;
+    }
+
+    private final Map<LaneKey, Integer> laneIds = new HashMap<>();
+    private final List<Lane> lanes = new ArrayList<>();
+
+    // Per vehicle handle
+    private Lane[] laneOf = new Lane[64];
+    private int[] position = new int[64];
+    private double[] progress = new double[64];
+    private int vehicleCount;
+
+    /**
+     * Dense ID of the lane, created on first use
+     */
+    public int laneId(LaneKey key) {
+        return laneIds.computeIfAbsent(key, k -> {
+            lanes.add(new Lane());
+            return lanes.size() - 1;
+        });
+    }
+
+    public void place(int vehicle, LaneKey key, double progressOnLane) {
+        place(vehicle, laneId(key), progressOnLane);
+    }
+
+    /**
+     * Puts the vehicle on the lane at the given progress - also moves it there from its previous lane
+     */
+    public void place(int vehicle, int laneId, double progressOnLane) {
+        ensureCapacity(vehicle);
+        remove(vehicle);
+        Lane lane = lanes.get(laneId);
+        if (lane.size == lane.members.length) {
+            lane.members = Arrays.copyOf(lane.members, lane.size * 2);
+        }
+
+        // Insert in order - a vehicle entering an arc is usually the rearmost one
+        int at = lane.size;
+        while (at > 0 && progress[lane.members[at - 1]] > progressOnLane) {
+            at--;
+        }
+        System.arraycopy(lane.members, at, lane.members, at + 1, lane.size - at);
+        lane.members[at] = vehicle;
+        lane.size++;
+        for (int i = at; i < lane.size; i++) {
+            position[lane.members[i]] = i;
+        }
+
+        laneOf[vehicle] = lane;
+        progress[vehicle] = progressOnLane;
+        vehicleCount++;
+    }
+
+    /**
+     * New progress along the current lane; the lane order is fixed by the next reorder()
+     */
+    public void setProgress(int vehicle, double progressOnLane) {
+        Lane lane = laneOf[vehicle];
+        if (lane == null) return;
+        progress[vehicle] = progressOnLane;
+        lane.dirty = true;
+    }
+
+    public void remove(int vehicle) {
+        if (vehicle >= laneOf.length) return;
+        Lane lane = laneOf[vehicle];
+        if (lane == null) return;
+        int at = position[vehicle];
+        System.arraycopy(lane.members, at + 1, lane.members, at, lane.size - at - 1);
+        lane.size--;
+        for (int i = at; i < lane.size; i++) {
+            position[lane.members[i]] = i;
+        }
+        laneOf[vehicle] = null;
+        vehicleCount--;
+    }
+
+    /**
+     * Re-sorts the lanes whose vehicles moved since the last call
+     */
+    public void reorder() {
+        for (Lane lane : lanes) {
+            if (!lane.dirty) continue;
+            lane.dirty = false;
+            int[] members = lane.members;
+            for (int i = 1; i < lane.size; i++) {
+                int vehicle = members[i];
+                double p = progress[vehicle];
+                int j = i - 1;
+                while (j >= 0 && progress[members[j]] > p) {
+                    members[j + 1] = members[j];
+                    position[members[j + 1]] = j + 1;
+                    j--;
+                }
+                members[j + 1] = vehicle;
+                position[vehicle] = j + 1;
+            }
+        }
+    }
+
+    /**
+     * The next vehicle ahead on the same lane, -1 if this one is in front (or on no lane)
+     */
+    public int leader(int vehicle) {
+        if (vehicle >= laneOf.length) return -1;
+        Lane lane = laneOf[vehicle];
+        if (lane == null) return -1;
+        int next = position[vehicle] + 1;
+        return (next < lane.size) ? lane.members[next] : -1;
+    }
+
+    /**
+     * The vehicle furthest back on the lane, -1 if the lane is empty
+     */
+    public int rearmost(LaneKey key) {
+        Integer laneId = laneIds.get(key);
+        return (laneId == null) ? -1 : rearmost(laneId);
+    }
+
+    public int rearmost(int laneId) {
+        Lane lane = lanes.get(laneId);
+        return (lane.size == 0) ? -1 : lane.members[0];
+    }
+
+    public double progress(int vehicle) {
+        return progress[vehicle];
+    }
+
+    public boolean contains(int vehicle) {
+        return vehicle < laneOf.length && laneOf[vehicle] != null;
+    }
+
+    public int size() {
+        return vehicleCount;
+    }
+
+    public int laneCount() {
+        return lanes.size();
+    }
+
+    public void clear() {
+        laneIds.clear();
+        lanes.clear();
+        Arrays.fill(laneOf, null);
+        vehicleCount = 0;
+    }
+
+    private void ensureCapacity(int vehicle) {
+        if (vehicle < laneOf.length) return;
+        int capacity = Math.max(laneOf.length * 2, vehicle + 1);
+        laneOf = Arrays.copyOf(laneOf, capacity);
+        position = Arrays.copyOf(position, capacity);
+        progress = Arrays.copyOf(progress, capacity);
+    }
+}
@@ -0,0 +1,66 @@
+package com.safeways.backend.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency recorder: lifetime count/mean/max plus percentiles over the most recent samples (ring buffer).
+ * Thread-safe; recording is a short synchronized block, percentiles are computed on a copy when asked.
+ */
+public class LatencyStats {
+
+    private final long[] window;
+    private int next = 0;
+    private int filled = 0;
+    private long count = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    public LatencyStats(int windowSize) {
+        this.window = new long[windowSize];
+    }
+
+    public synchronized void record(long nanos) {
+        window[next] = nanos;
+        next = (next + 1) % window.length;
+        filled = Math.min(filled + 1, window.length);
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * count, mean, max and p50/p95/p99 of the recent window - all times in microseconds
+     */
+    public Map<String, Object> toMap() {
+        long[] recent;
+        long countSnapshot, total, max;
+        synchronized (this) {
+            recent = Arrays.copyOf(window, filled);
+            countSnapshot = count;
+            total = totalNanos;
+            max = maxNanos;
+        }
+        Arrays.sort(recent);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", countSnapshot);
+        stats.put("meanMicros", countSnapshot == 0 ? 0.0 : total / 1_000.0 / countSnapshot);
+        stats.put("maxMicros", max / 1_000.0);
+        stats.put("p50Micros", percentile(recent, 0.50));
+        stats.put("p95Micros", percentile(recent, 0.95));
+        stats.put("p99Micros", percentile(recent, 0.99));
+        return stats;
+    }
+
+    private static double percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return 0.0;
+        int index = (int) Math.ceil(q * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000.0;
+    }
+}
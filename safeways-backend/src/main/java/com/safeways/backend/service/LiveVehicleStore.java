@@ -0,0 +1,340 @@
+package com.safeways.backend.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Live data of the vehicles an antenna tracks, keyed by vehicle ID.
+ *
+ * Upserts and removals are O(1) and never copy the whole set. Readers take a snapshot - an immutable list tagged
+ * with the store version it was built from. The last snapshot is reused until the next change, so repeated reads
+ * between two position updates cost nothing.
+ *
+ * A batch is applied as one change: snapshots are built under the same lock, so a reader sees all of a batch or
+ * none of it. Sequenced updates are last-writer-wins per vehicle - one older than what is stored is dropped.
+ *
+ * Every write stamps the vehicle's last-seen time. A hashed timing wheel indexed by that time finds the vehicles
+ * not seen for longer than the TTL without scanning the store (see expire).
+ *
+ * The store owns the speed limit: VehicleLiveData.isSpeeding is set against it on every write, whatever the caller
+ * passed, and all vehicles are re-flagged when it changes. Speeding vehicles are indexed on every write, removal
+ * and limit change, fastest first, so counts are O(1) and the k worst offenders O(k).
+ */
+public class LiveVehicleStore {
+
+    /**
+     * Immutable view of the store; version grows with every change
+     */
+    public record Snapshot(long version, List<IntersectionAntenna.VehicleLiveData> vehicles) {
+    }
+
+    /**
+     * One vehicle of a batch; sequence is the client's sequence number for that vehicle, 0 if not sequenced
+     */
+    public record Update(IntersectionAntenna.VehicleLiveData data, long sequence) {
+    }
+
+    public record BatchResult(int applied, int stale, long version) {
+    }
+
+    private record Entry(IntersectionAntenna.VehicleLiveData data, long seenAtMs) {
+    }
+
+    // Wheel resolution and size - 256 x 100ms covers TTLs up to ~25s in one revolution, longer ones just take rounds
+    static final long WHEEL_TICK_MS = 100;
+    static final int WHEEL_SLOTS = 256;
+
+    private final Map<String, Entry> vehicles = new ConcurrentHashMap<>();
+    private final Map<String, Long> sequences = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final Object batchLock = new Object();
+    private volatile Snapshot cached = new Snapshot(0, List.of());
+
+    private final LongSupplier clock;
+    private final HashedTimingWheel<String> expiryWheel;
+    // Vehicles with an entry in the wheel - at most one each, refreshed vehicles are rescheduled when it fires
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+    private final AtomicLong expired = new AtomicLong();
+
+    // Speeding vehicles, fastest (= furthest over the limit) first; kept in step with vehicles inside compute
+    private static final Comparator<IntersectionAntenna.VehicleLiveData> FASTEST_FIRST =
+        Comparator.comparingDouble((IntersectionAntenna.VehicleLiveData v) -> -v.speed).thenComparing(v -> v.id);
+    private final ConcurrentSkipListSet<IntersectionAntenna.VehicleLiveData> speeding =
+        new ConcurrentSkipListSet<>(FASTEST_FIRST);
+    private final AtomicInteger speedingCount = new AtomicInteger();
+    // Read inside each vehicle's compute - a write racing with a limit change is re-flagged by setSpeedLimit
+    private volatile double speedLimitKmH;
+
+    /**
+     * No speed limit - nobody is flagged as speeding
+     */
+    public LiveVehicleStore() {
+        this(Double.POSITIVE_INFINITY);
+    }
+
+    public LiveVehicleStore(double speedLimitKmH) {
+        this(System::currentTimeMillis, speedLimitKmH);
+    }
+
+    LiveVehicleStore(LongSupplier clock) {
+        this(clock, Double.POSITIVE_INFINITY);
+    }
+
+    LiveVehicleStore(LongSupplier clock, double speedLimitKmH) {
+        this.clock = clock;
+        this.expiryWheel = new HashedTimingWheel<>(WHEEL_TICK_MS, WHEEL_SLOTS, clock.getAsLong());
+        this.speedLimitKmH = speedLimitKmH;
+    }
+
+    /**
+     * Adds the vehicle or replaces its previous data
+     */
+    public void upsert(IntersectionAntenna.VehicleLiveData data) {
+        put(data, clock.getAsLong());
+        version.incrementAndGet();
+    }
+
+    /**
+     * Applies the whole batch as a single version. Within the batch, later rows for the same vehicle win unless
+     * their sequence number is lower.
+     */
+    public BatchResult applyBatch(List<Update> updates) {
+        long now = clock.getAsLong();
+        synchronized (batchLock) {
+            int applied = 0;
+            int stale = 0;
+            for (Update update : updates) {
+                String id = update.data().id;
+                if (update.sequence() > 0) {
+                    Long last = sequences.get(id);
+                    if (last != null && update.sequence() <= last) {
+                        stale++;
+                        continue;
+                    }
+                    sequences.put(id, update.sequence());
+                }
+                put(update.data(), now);
+                applied++;
+            }
+            long current = (applied > 0) ? version.incrementAndGet() : version.get();
+            return new BatchResult(applied, stale, current);
+        }
+    }
+
+    public boolean remove(String vehicleId) {
+        sequences.remove(vehicleId);
+        boolean removed = drop(vehicleId, null);
+        if (removed) version.incrementAndGet();
+        return removed;
+    }
+
+    /**
+     * Drops the vehicles not seen for ttlMs or longer (to within one wheel tick). Only the wheel slots that elapsed
+     * since the last call are visited. A vehicle updated while it was being checked is kept.
+     *
+     * @return IDs of the vehicles dropped
+     */
+    public List<String> expire(long ttlMs) {
+        if (ttlMs <= 0) return List.of();
+        long cutoff = clock.getAsLong() - ttlMs;
+        List<String> dropped = new ArrayList<>();
+        for (String id : expiryWheel.advance(cutoff)) {
+            scheduled.remove(id);
+            Entry entry = vehicles.get(id);
+            if (entry == null) continue; // Removed meanwhile
+            if (entry.seenAtMs() < cutoff && drop(id, entry)) {
+                sequences.remove(id);
+                dropped.add(id);
+                continue;
+            }
+            // Seen again since it was scheduled - back into the wheel at its new last-seen time
+            Entry current = vehicles.get(id);
+            if (current != null && scheduled.add(id)) {
+                expiryWheel.schedule(id, current.seenAtMs());
+            }
+        }
+        if (!dropped.isEmpty()) {
+            expired.addAndGet(dropped.size());
+            version.incrementAndGet();
+        }
+        return dropped;
+    }
+
+    public double getSpeedLimit() {
+        return speedLimitKmH;
+    }
+
+    /**
+     * Changes the limit and re-flags every vehicle against it, rebuilding the speeding index to match. Last-seen
+     * times are kept; the version grows if any flag changed.
+     *
+     * @return number of vehicles whose flag changed
+     */
+    public int setSpeedLimit(double speedLimitKmH) {
+        int changed = 0;
+        synchronized (batchLock) {
+            this.speedLimitKmH = speedLimitKmH;
+            for (String id : vehicles.keySet()) {
+                boolean[] flipped = new boolean[1];
+                vehicles.computeIfPresent(id, (k, entry) -> {
+                    IntersectionAntenna.VehicleLiveData flagged = flagged(entry.data());
+                    if (flagged == entry.data()) return entry;
+                    Entry fresh = new Entry(flagged, entry.seenAtMs());
+                    reindex(entry, fresh);
+                    flipped[0] = true;
+                    return fresh;
+                });
+                if (flipped[0]) changed++;
+            }
+            if (changed > 0) version.incrementAndGet();
+        }
+        return changed;
+    }
+
+    public void clear() {
+        synchronized (batchLock) {
+            for (String id : vehicles.keySet()) {
+                drop(id, null);
+            }
+            sequences.clear();
+            scheduled.clear();
+            expiryWheel.clear();
+        }
+        version.incrementAndGet();
+    }
+
+    public IntersectionAntenna.VehicleLiveData get(String vehicleId) {
+        Entry entry = vehicles.get(vehicleId);
+        return (entry != null) ? entry.data() : null;
+    }
+
+    /**
+     * Last time the vehicle was written, -1 if it is not in the store
+     */
+    public long getLastSeen(String vehicleId) {
+        Entry entry = vehicles.get(vehicleId);
+        return (entry != null) ? entry.seenAtMs() : -1;
+    }
+
+    public int size() {
+        return vehicles.size();
+    }
+
+    public int speedingCount() {
+        return speedingCount.get();
+    }
+
+    /**
+     * Speeding vehicles, fastest first
+     */
+    public List<IntersectionAntenna.VehicleLiveData> speeding() {
+        return List.copyOf(speeding);
+    }
+
+    /**
+     * The k fastest speeding vehicles - only k index entries are visited
+     */
+    public List<IntersectionAntenna.VehicleLiveData> topSpeeding(int k) {
+        List<IntersectionAntenna.VehicleLiveData> top = new ArrayList<>(Math.min(Math.max(k, 0), 64));
+        for (IntersectionAntenna.VehicleLiveData v : speeding) {
+            if (top.size() >= k) break;
+            top.add(v);
+        }
+        return top;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Vehicles dropped by expire since the store was created
+     */
+    public long getExpiredCount() {
+        return expired.get();
+    }
+
+    /**
+     * Entries currently in the expiry wheel (one per tracked vehicle, plus removed ones not yet reached)
+     */
+    public int getExpiryWheelSize() {
+        return expiryWheel.size();
+    }
+
+    /**
+     * Current vehicles. Built at most once per version - single upserts racing with the build may already be
+     * included, in which case the next call simply builds again. A batch is never seen half applied.
+     */
+    public Snapshot snapshot() {
+        Snapshot current = cached;
+        if (current.version() == version.get()) {
+            return current;
+        }
+        synchronized (batchLock) {
+            long now = version.get();
+            current = cached;
+            if (current.version() == now) {
+                return current;
+            }
+            List<IntersectionAntenna.VehicleLiveData> list = new ArrayList<>(vehicles.size());
+            for (Entry entry : vehicles.values()) {
+                list.add(entry.data());
+            }
+            Snapshot fresh = new Snapshot(now, Collections.unmodifiableList(list));
+            cached = fresh;
+            return fresh;
+        }
+    }
+
+    private void put(IntersectionAntenna.VehicleLiveData data, long seenAtMs) {
+        vehicles.compute(data.id, (id, previous) -> {
+            Entry fresh = new Entry(flagged(data), seenAtMs);
+            reindex(previous, fresh);
+            return fresh;
+        });
+        if (scheduled.add(data.id)) {
+            expiryWheel.schedule(data.id, seenAtMs);
+        }
+    }
+
+    /**
+     * Removes the vehicle - only if its entry is still expected, when one is given
+     */
+    private boolean drop(String vehicleId, Entry expected) {
+        boolean[] removed = new boolean[1];
+        vehicles.computeIfPresent(vehicleId, (id, entry) -> {
+            if (expected != null && entry != expected) return entry;
+            reindex(entry, null);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * The vehicle with isSpeeding set against the current limit - the same instance if it already was
+     */
+    private IntersectionAntenna.VehicleLiveData flagged(IntersectionAntenna.VehicleLiveData v) {
+        boolean speeding = v.speed > speedLimitKmH;
+        if (v.isSpeeding == speeding) return v;
+        return new IntersectionAntenna.VehicleLiveData(v.id, v.type, v.x, v.y, v.speed, v.rotation, speeding);
+    }
+
+    private void reindex(Entry previous, Entry next) {
+        if (previous != null && previous.data().isSpeeding && speeding.remove(previous.data())) {
+            speedingCount.decrementAndGet();
+        }
+        if (next != null && next.data().isSpeeding && speeding.add(next.data())) {
+            speedingCount.incrementAndGet();
+        }
+    }
+}
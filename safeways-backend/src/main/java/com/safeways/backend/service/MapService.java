@@ -3,7 +3,8 @@ package com.safeways.backend.service;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.safeways.backend.model.xml.CityMap;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import java.io.InputStream;
@@ -13,6 +14,10 @@ public class MapService {
 
     private CityMap cityMap;
 
+    // classpath: or file: location of the map XML
+    @Value("${map.file:classpath:Harta_Mica.xml}")
+    private String mapFile = "classpath:Harta_Mica.xml";
+
     @PostConstruct
     public void init() {
         try {
@@ -20,9 +25,10 @@ public class MapService {
             // Ignorăm orice tag-uri extra care ar putea apărea în XML
             xmlMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-            // Citim fisierul din folderul resources
-            InputStream inputStream = new ClassPathResource("Harta_Mica.xml").getInputStream();
-            this.cityMap = xmlMapper.readValue(inputStream, CityMap.class);
+            // Citim fisierul din folderul resources (sau de la map.file)
+            try (InputStream inputStream = new DefaultResourceLoader().getResource(mapFile).getInputStream()) {
+                this.cityMap = xmlMapper.readValue(inputStream, CityMap.class);
+            }
 
             System.out.println("✅ Harta a fost parsată cu succes!");
             System.out.println("📍 Noduri (Intersecții): " + cityMap.getNodes().size());
@@ -36,4 +42,8 @@ public class MapService {
     public CityMap getMap() {
         return cityMap;
     }
+
+    public String getMapFile() {
+        return mapFile;
+    }
 }
\ No newline at end of file
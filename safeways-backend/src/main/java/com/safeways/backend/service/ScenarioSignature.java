@@ -0,0 +1,130 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.WeatherCondition;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Quantized description of a conflict, independent of the vehicle IDs.
+ *
+ * Every vehicle in a conflict gets a role; roles are ordered canonically (class, speed, arrival time, then heading)
+ * so the same geometry always produces the same key. Headings are relative to role 0, speeds, arrival times and
+ * the time to collision are bucketed. roleIds maps the roles back to the vehicles of this occurrence.
+ */
+public final class ScenarioSignature {
+
+    static final double SPEED_BUCKET_KMH = 10.0;
+    static final double TIME_BUCKET_SECONDS = 0.5;
+    static final int HEADING_SECTORS = 12; // 30 degrees each
+
+    public final String key;
+    public final List<String> roleIds;
+
+    private ScenarioSignature(String key, List<String> roleIds) {
+        this.key = key;
+        this.roleIds = roleIds;
+    }
+
+    public static ScenarioSignature of(List<ConflictClusterer.Cluster> clusters,
+                                       List<CollisionPredictor.VehicleState2D> states,
+                                       List<String> ids, List<String> types, WeatherCondition weather) {
+        // Arrival time and stoppability of each involved vehicle towards its most urgent collision point
+        Map<Integer, CollisionPredictor.Prediction> ownPrediction = new HashMap<>();
+        Map<Integer, Double> ownTtc = new HashMap<>();
+        for (ConflictClusterer.Cluster cluster : clusters) {
+            for (ConflictClusterer.PairConflict pair : cluster.pairs) {
+                double ttc = pair.result.timeToCollision;
+                if (ttc < ownTtc.getOrDefault(pair.i, Double.MAX_VALUE)) {
+                    ownTtc.put(pair.i, ttc);
+                    ownPrediction.put(pair.i, pair.result.predictionV1);
+                }
+                if (ttc < ownTtc.getOrDefault(pair.j, Double.MAX_VALUE)) {
+                    ownTtc.put(pair.j, ttc);
+                    ownPrediction.put(pair.j, pair.result.predictionV2);
+                }
+            }
+        }
+
+        List<Role> roles = new ArrayList<>();
+        for (int index : ownPrediction.keySet()) {
+            CollisionPredictor.VehicleState2D state = states.get(index);
+            CollisionPredictor.Prediction prediction = ownPrediction.get(index);
+            roles.add(new Role(
+                index,
+                vehicleClass(types.get(index)),
+                (int) (state.speedKmH / SPEED_BUCKET_KMH),
+                timeBucket(prediction.timeToArrivalNormal),
+                timeBucket(ownTtc.get(index)),
+                prediction.cannotStopPhysically,
+                headingSector(Math.atan2(state.vy, state.vx), state.speedKmH)
+            ));
+        }
+        roles.sort(Comparator.comparing((Role r) -> r.vehicleClass())
+            .thenComparingInt(r -> r.speedBucket())
+            .thenComparingInt(r -> r.arrivalBucket())
+            .thenComparingInt(r -> r.ttcBucket())
+            .thenComparing(r -> r.cannotStop())
+            .thenComparingInt(r -> r.heading())
+            .thenComparing(r -> ids.get(r.index())));
+
+        Map<Integer, Integer> roleOf = new HashMap<>();
+        List<String> roleIds = new ArrayList<>();
+        for (Role role : roles) {
+            roleOf.put(role.index(), roleIds.size());
+            roleIds.add(ids.get(role.index()));
+        }
+
+        StringBuilder key = new StringBuilder(weather.name());
+        int reference = Math.max(roles.get(0).heading(), 0);
+        for (Role role : roles) {
+            int relativeHeading = (role.heading() < 0) ? -1 : Math.floorMod(role.heading() - reference, HEADING_SECTORS);
+            key.append('|').append(role.vehicleClass())
+               .append(',').append(role.speedBucket())
+               .append(',').append(role.arrivalBucket())
+               .append(',').append(role.ttcBucket())
+               .append(',').append(role.cannotStop() ? 'X' : '-')
+               .append(',').append(relativeHeading);
+        }
+
+        // Which roles collide with which
+        List<String> pairs = new ArrayList<>();
+        for (ConflictClusterer.Cluster cluster : clusters) {
+            for (ConflictClusterer.PairConflict pair : cluster.pairs) {
+                int a = roleOf.get(pair.i);
+                int b = roleOf.get(pair.j);
+                pairs.add(Math.min(a, b) + "-" + Math.max(a, b));
+            }
+        }
+        pairs.sort(null);
+        key.append('#').append(String.join(",", pairs));
+
+        return new ScenarioSignature(key.toString(), roleIds);
+    }
+
+    /**
+     * Vehicle class from Vehicle.getTipVehicul - type prefix plus whether it is on an emergency mission
+     */
+    static String vehicleClass(String type) {
+        if (type == null || type.isBlank()) return "?";
+        String base = type.split(" ")[0].toUpperCase();
+        return type.contains("URGENCY") ? base + "!" : base;
+    }
+
+    private static int timeBucket(double seconds) {
+        return (int) Math.min(seconds / TIME_BUCKET_SECONDS, 99);
+    }
+
+    private static int headingSector(double heading, double speedKmH) {
+        if (speedKmH < 1.0) return -1; // Standing still - heading is meaningless
+        double sector = 2 * Math.PI / HEADING_SECTORS;
+        return Math.floorMod((int) Math.round(heading / sector), HEADING_SECTORS);
+    }
+
+    private record Role(int index, String vehicleClass, int speedBucket, int arrivalBucket, int ttcBucket,
+                        boolean cannotStop, int heading) {
+    }
+}
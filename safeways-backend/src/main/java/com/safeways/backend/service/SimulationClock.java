@@ -0,0 +1,42 @@
+package com.safeways.backend.service;
+
+/**
+ * Time source of the simulation loop, in nanoseconds. Only differences between two readings matter.
+ *
+ * - real: wall time
+ * - scaled: wall time times a factor (2.0 = twice as fast as real time)
+ * - virtual: moves only when advanced - the loop runs as fast as the CPU allows and the results do not depend
+ *   on how long a step really took
+ */
+public interface SimulationClock {
+
+    long nowNanos();
+
+    static SimulationClock real() {
+        return System::nanoTime;
+    }
+
+    static SimulationClock scaled(double factor) {
+        if (!(factor > 0)) {
+            throw new IllegalArgumentException("Clock scale must be positive: " + factor);
+        }
+        long origin = System.nanoTime();
+        return () -> origin + (long) ((System.nanoTime() - origin) * factor);
+    }
+
+    /**
+     * Clock that only moves when advanced
+     */
+    final class Virtual implements SimulationClock {
+        private volatile long nanos;
+
+        @Override
+        public long nowNanos() {
+            return nanos;
+        }
+
+        public void advanceMs(long ms) {
+            nanos += ms * 1_000_000L;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.safeways.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives VehicleSimulationService on a fixed timestep, decoupled from wall time and from the broadcast rate.
+ *
+ * Physics steps every simulation.step-ms of simulation time; /topic/vehicles is pushed every
+ * simulation.broadcast-ms and, if simulation.antenna-tick-ms is set, the antenna ticks in simulation time too
+ * (otherwise it keeps its own wall-clock loop). The clock is real, scaled or fast (no waiting at all).
+ */
+@Service
+public class SimulationLoopService {
+
+    @Autowired
+    private VehicleSimulationService simulation;
+
+    @Autowired
+    private IntersectionAntenna antenna;
+
+    @Value("${simulation.clock:real}")
+    private String clockMode = "real";
+
+    @Value("${simulation.clock.scale:1.0}")
+    private double clockScale = 1.0;
+
+    @Value("${simulation.step-ms:50}")
+    private long stepMs = 50;
+
+    @Value("${simulation.max-catch-up-steps:5}")
+    private int maxCatchUpSteps = 5;
+
+    @Value("${simulation.broadcast-ms:50}")
+    private long broadcastMs = 50;
+
+    // 0 = the antenna ticks on its own loop (antenna.tick.server-driven); > 0 = only this loop ticks it
+    @Value("${simulation.antenna-tick-ms:0}")
+    private long antennaTickMs = 0;
+
+    private FixedTimestepLoop loop;
+    private ScheduledExecutorService driver;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        SimulationClock clock = switch (clockMode) {
+            case "real" -> SimulationClock.real();
+            case "scaled" -> SimulationClock.scaled(clockScale);
+            case "fast" -> new SimulationClock.Virtual();
+            default -> throw new IllegalArgumentException("Unknown simulation.clock: " + clockMode);
+        };
+
+        loop = new FixedTimestepLoop(clock, stepMs, maxCatchUpSteps, simulation::step)
+            .every("broadcast", broadcastMs, t -> simulation.broadcast());
+        if (antennaTickMs > 0) {
+            loop.every("antennaTick", antennaTickMs, t -> antenna.tickAndPublish());
+        }
+
+        driver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "simulation-loop");
+            t.setDaemon(true);
+            return t;
+        });
+        running = true;
+        if (clock instanceof SimulationClock.Virtual virtual) {
+            // As fast as possible: one step of simulation time per iteration, no waiting
+            driver.execute(() -> {
+                while (running) {
+                    virtual.advanceMs(stepMs);
+                    advance();
+                }
+            });
+        } else {
+            // Wake up about once per step of wall time; the accumulator absorbs the jitter
+            long periodMicros = Math.max(1_000, (long) (stepMs * 1_000 / ("scaled".equals(clockMode) ? clockScale : 1.0)));
+            driver.scheduleAtFixedRate(this::advance, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+        }
+        System.out.println("🕒 Simulation loop: " + clockMode + " clock, step " + stepMs + " ms, broadcast every "
+            + broadcastMs + " ms" + (antennaTickMs > 0 ? ", antenna tick every " + antennaTickMs + " ms" : ""));
+    }
+
+    private void advance() {
+        try {
+            loop.advance();
+        } catch (Exception e) {
+            // A failed step must not stop the loop
+            System.err.println("❌ Simulation step failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (driver != null) driver.shutdownNow();
+    }
+
+    /**
+     * Clock mode plus the loop counters: steps, caught-up and dropped steps, per-task runs and skipped periods
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = loop.getStats();
+        stats.put("clock", clockMode);
+        stats.put("clockScale", clockScale);
+        return stats;
+    }
+}
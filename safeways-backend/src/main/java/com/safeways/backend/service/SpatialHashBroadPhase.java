@@ -0,0 +1,127 @@
+package com.safeways.backend.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform-grid broad phase keyed by swept bounding boxes.
+ *
+ * Each vehicle's box covers its straight-line sweep over the time horizon, padded by the collision radius,
+ * so two vehicles can only come within 2 * radius of each other if their boxes overlap. Boxes are dropped
+ * into every grid cell they cover and only vehicles sharing a cell are paired up. A pair that shares several
+ * cells is reported once, from the cell holding the top-left corner of the two boxes' intersection.
+ *
+ * The grid is rebuilt on every call as a sorted array of (cell, vehicle) entries - no per-cell allocations.
+ */
+public class SpatialHashBroadPhase implements BroadPhase {
+
+    private static final long MAX_CELLS = Integer.MAX_VALUE;
+
+    // Fixed cell edge in coordinate units; 0 sizes cells from the average swept box on every call
+    private final double cellSize;
+
+    public SpatialHashBroadPhase() {
+        this(0);
+    }
+
+    public SpatialHashBroadPhase(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    @Override
+    public void forEachCandidatePair(List<CollisionPredictor.VehicleState2D> states,
+                                     double collisionRadius, double timeHorizonSeconds,
+                                     PairVisitor visitor) {
+        int n = states.size();
+        if (n < 2) return;
+
+        // 1. Swept bounding boxes over [0, horizon]
+        double[] minX = new double[n];
+        double[] minY = new double[n];
+        double[] maxX = new double[n];
+        double[] maxY = new double[n];
+        double originX = Double.MAX_VALUE, originY = Double.MAX_VALUE;
+        double limitX = -Double.MAX_VALUE, limitY = -Double.MAX_VALUE;
+        double extentSum = 0;
+
+        for (int i = 0; i < n; i++) {
+            CollisionPredictor.VehicleState2D s = states.get(i);
+            double endX = s.x + s.vx * timeHorizonSeconds;
+            double endY = s.y + s.vy * timeHorizonSeconds;
+            minX[i] = Math.min(s.x, endX) - collisionRadius;
+            minY[i] = Math.min(s.y, endY) - collisionRadius;
+            maxX[i] = Math.max(s.x, endX) + collisionRadius;
+            maxY[i] = Math.max(s.y, endY) + collisionRadius;
+
+            originX = Math.min(originX, minX[i]);
+            originY = Math.min(originY, minY[i]);
+            limitX = Math.max(limitX, maxX[i]);
+            limitY = Math.max(limitY, maxY[i]);
+            extentSum += Math.max(maxX[i] - minX[i], maxY[i] - minY[i]);
+        }
+
+        // 2. Cell size - fixed, or the average box extent so a typical box touches at most 4 cells
+        double cell = (cellSize > 0) ? cellSize : Math.max(extentSum / n, collisionRadius * 2);
+        if (!(cell > 0)) cell = 1.0;
+
+        long gridW = (long) ((limitX - originX) / cell) + 1;
+        long gridH = (long) ((limitY - originY) / cell) + 1;
+        while (gridW * gridH > MAX_CELLS) {
+            cell *= 2;
+            gridW = (long) ((limitX - originX) / cell) + 1;
+            gridH = (long) ((limitY - originY) / cell) + 1;
+        }
+
+        // 3. (cell << 32 | vehicle) entries, sorted so each cell's vehicles are contiguous and ascending
+        long[] entries = new long[n * 4];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int cx0 = cellIndex(minX[i], originX, cell, gridW);
+            int cx1 = cellIndex(maxX[i], originX, cell, gridW);
+            int cy0 = cellIndex(minY[i], originY, cell, gridH);
+            int cy1 = cellIndex(maxY[i], originY, cell, gridH);
+            for (int cy = cy0; cy <= cy1; cy++) {
+                for (int cx = cx0; cx <= cx1; cx++) {
+                    if (count == entries.length) {
+                        entries = Arrays.copyOf(entries, entries.length * 2);
+                    }
+                    entries[count++] = ((cy * gridW + cx) << 32) | i;
+                }
+            }
+        }
+        Arrays.sort(entries, 0, count);
+
+        // 4. Pair up vehicles inside each cell
+        int start = 0;
+        while (start < count) {
+            long key = entries[start] >>> 32;
+            int end = start + 1;
+            while (end < count && (entries[end] >>> 32) == key) end++;
+
+            for (int a = start; a < end; a++) {
+                int i = (int) entries[a];
+                for (int b = a + 1; b < end; b++) {
+                    int j = (int) entries[b];
+
+                    double overlapMinX = Math.max(minX[i], minX[j]);
+                    double overlapMinY = Math.max(minY[i], minY[j]);
+                    if (overlapMinX > Math.min(maxX[i], maxX[j]) || overlapMinY > Math.min(maxY[i], maxY[j])) {
+                        continue; // Same cell, but the boxes themselves do not touch
+                    }
+
+                    long ownerCell = cellIndex(overlapMinY, originY, cell, gridH) * gridW
+                                   + cellIndex(overlapMinX, originX, cell, gridW);
+                    if (ownerCell == key) {
+                        visitor.visit(i, j);
+                    }
+                }
+            }
+            start = end;
+        }
+    }
+
+    private static int cellIndex(double value, double origin, double cell, long cells) {
+        int index = (int) ((value - origin) / cell);
+        return (int) Math.min(Math.max(index, 0), cells - 1);
+    }
+}
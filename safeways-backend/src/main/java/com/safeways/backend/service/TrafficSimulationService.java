@@ -1,7 +1,6 @@
 package com.safeways.backend.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safeways.backend.model.VehicleCommand;
 import com.safeways.backend.model.vehicle.CivilVehicle;
 import com.safeways.backend.model.vehicle.Vehicle;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,8 +9,8 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Service
 @EnableScheduling
@@ -20,14 +19,18 @@ public class TrafficSimulationService {
     @Autowired
     private IntersectionAntenna antenna;
 
-    private List<Vehicle> activeVehicles = new ArrayList<>();
-    private ObjectMapper objectMapper = new ObjectMapper();
+    // Indexed by vehicle ID, so applying a command is a single lookup
+    private Map<String, Vehicle> activeVehicles = new LinkedHashMap<>();
 
     @PostConstruct
     public void init() {
         // Add 2 test vehicles on collision course towards "Test_Node"
-        activeVehicles.add(new CivilVehicle("Car_A", 60.0, 1500, "Test_Node", 80.0));
-        activeVehicles.add(new CivilVehicle("Truck_B", 50.0, 5000, "Test_Node", 80.0));
+        addVehicle(new CivilVehicle("Car_A", 60.0, 1500, "Test_Node", 80.0));
+        addVehicle(new CivilVehicle("Truck_B", 50.0, 5000, "Test_Node", 80.0));
+    }
+
+    private void addVehicle(Vehicle vehicle) {
+        activeVehicles.put(vehicle.getId(), vehicle);
     }
 
     @Scheduled(fixedRate = 500) // Runs automatically every 0.5 seconds
@@ -39,7 +42,7 @@ public class TrafficSimulationService {
         // ==========================================
         // 1. APPLY PHYSICS FOR EACH VEHICLE
         // ==========================================
-        for (Vehicle v : activeVehicles) {
+        for (Vehicle v : activeVehicles.values()) {
             double speedMs = v.getSpeedKmH() / 3.6; // Convert to m/s
 
             double maxBrakingDecel = v.getCapabilitateFranareBaza() * 0.7; // Assume rainy weather (0.7)
@@ -82,51 +85,31 @@ public class TrafficSimulationService {
         // ==========================================
         antenna.processTraffic().thenAccept(decision -> {
             if(!decision.contains("AI offline") && !decision.contains("Traffic safe")) {
-
+                System.out.println("\n🤖 RAW AI RESPONSE:\n" + decision);
                 try {
-                    String cleanJson = decision.replace("```json", "").replace("```", "").trim();
-                    System.out.println("\n🤖 RAW AI RESPONSE:\n" + cleanJson);
-
-                    JsonNode rootNode = objectMapper.readTree(cleanJson);
-
-                    // Handle AI response format variations (when it gives object instead of array)
-                    if (rootNode.isObject()) {
-                        if (rootNode.has("vehicleId") || rootNode.has("id") || rootNode.has("action") || rootNode.has("Action")) {
-                            rootNode = objectMapper.createArrayNode().add(rootNode); // Force into a list
-                        }
-                        else if (rootNode.elements().hasNext()) {
-                            rootNode = rootNode.elements().next();
-                        }
-                    }
-
-                    if (rootNode.isArray()) {
-                        for (JsonNode node : rootNode) {
-
-                            String id = "";
-                            if (node.has("vehicleId")) id = node.get("vehicleId").asText();
-                            else if (node.has("id")) id = node.get("id").asText();
-
-                            String action = "CONTINUE";
-                            if (node.has("action")) action = node.get("action").asText().toUpperCase();
-                            else if (node.has("Action")) action = node.get("Action").asText().toUpperCase();
-
-                            double targetSpeed = node.has("targetSpeedKmH") ? node.get("targetSpeedKmH").asDouble() : 0.0;
-
-                            if (!id.isEmpty()) {
-                                for (Vehicle v : activeVehicles) {
-                                    if (v.getId().equals(id)) {
-                                        v.setCurrentAction(action);
-                                        v.setTargetSpeedKmH(targetSpeed);
-                                        System.out.println("✅ ACCEPTED: " + id + " will execute command [" + action + "] at " + targetSpeed + " km/h");
-                                    }
-                                }
-                            }
-                        }
+                    for (VehicleCommand command : DecisionCodec.parse(decision)) {
+                        applyCommand(command);
                     }
-                } catch (Exception e) {
+                } catch (IllegalArgumentException e) {
                     System.err.println("❌ JSON PARSING ERROR! Received text was: \n" + decision);
                 }
             }
         });
     }
-}
\ No newline at end of file
+
+    private void applyCommand(VehicleCommand command) {
+        if (command.action() == null) {
+            System.err.println("❌ REJECTED: unknown action for " + command.vehicleId());
+            return;
+        }
+        Vehicle v = activeVehicles.get(command.vehicleId());
+        if (v == null) return;
+
+        // The physics step works with the English action names
+        String action = command.action().name();
+        v.setCurrentAction(action);
+        v.setTargetSpeedKmH(command.targetSpeedKmH());
+        System.out.println("✅ ACCEPTED: " + command.vehicleId() + " will execute command [" + action + "] at "
+                + command.targetSpeedKmH() + " km/h");
+    }
+}
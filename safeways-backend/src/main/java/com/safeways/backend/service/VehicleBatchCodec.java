@@ -0,0 +1,172 @@
+package com.safeways.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes a batch of vehicle position updates. Three body formats:
+ *
+ * - JSON objects: [{"id": "CAR_1", "x": 1.0, "y": 2.0, "speed": 40, "rotation": 0.5, "seq": 7}, ...]
+ * - compact JSON rows, same field order: [["CAR_1", 1.0, 2.0, 40, 0.5, 7], ...] - seq may be left out
+ * - binary (application/octet-stream), big-endian as written by DataOutputStream:
+ *   int count, then per vehicle UTF id, double x, double y, double speed, double rotation, long seq
+ *
+ * seq is the client's sequence number for that vehicle (0 = not sequenced). The whole batch is validated before
+ * anything is returned; one bad row rejects the batch.
+ */
+public final class VehicleBatchCodec {
+
+    public static final String BINARY_CONTENT_TYPE = "application/octet-stream";
+
+    // Upper bound for one batch, so a corrupt binary count cannot allocate gigabytes
+    static final int MAX_BATCH_SIZE = 100_000;
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    public record Row(String id, double x, double y, double speed, double rotation, long seq) {
+    }
+
+    private VehicleBatchCodec() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the body cannot be read or any row is invalid
+     */
+    public static List<Row> decode(byte[] body, String contentType) {
+        List<Row> rows;
+        try {
+            rows = (contentType != null && contentType.startsWith(BINARY_CONTENT_TYPE))
+                ? decodeBinary(body)
+                : decodeJson(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unreadable vehicle batch: " + e.getMessage(), e);
+        }
+        validate(rows);
+        return rows;
+    }
+
+    private static List<Row> decodeJson(byte[] body) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        try (JsonParser parser = FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Vehicle batch must be a JSON array");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.START_OBJECT) {
+                    rows.add(readObject(parser));
+                } else if (token == JsonToken.START_ARRAY) {
+                    rows.add(readRow(parser, rows.size()));
+                } else {
+                    throw new IllegalArgumentException("Row " + rows.size() + " is neither an object nor an array");
+                }
+                if (rows.size() > MAX_BATCH_SIZE) {
+                    throw new IllegalArgumentException("More than " + MAX_BATCH_SIZE + " vehicles in one batch");
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static Row readObject(JsonParser parser) throws IOException {
+        String id = null;
+        double x = Double.NaN;
+        double y = Double.NaN;
+        double speed = Double.NaN;
+        double rotation = 0.0;
+        long seq = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "id" -> id = parser.getValueAsString();
+                case "x" -> x = parser.getValueAsDouble(Double.NaN);
+                case "y" -> y = parser.getValueAsDouble(Double.NaN);
+                case "speed" -> speed = parser.getValueAsDouble(Double.NaN);
+                case "rotation" -> rotation = parser.getValueAsDouble(Double.NaN);
+                case "seq" -> seq = parser.getValueAsLong(-1);
+                default -> { }
+            }
+        }
+        return new Row(id, x, y, speed, rotation, seq);
+    }
+
+    private static Row readRow(JsonParser parser, int index) throws IOException {
+        String id = null;
+        double[] values = new double[4]; // x, y, speed, rotation
+        long seq = 0;
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null || token.isStructStart() || count == 6) {
+                throw new IllegalArgumentException("Row " + index + " must be [id, x, y, speed, rotation(, seq)]");
+            }
+            if (count == 0) {
+                id = parser.getValueAsString();
+            } else if (count == 5) {
+                seq = parser.getValueAsLong(-1);
+            } else {
+                values[count - 1] = parser.getValueAsDouble(Double.NaN);
+            }
+            count++;
+        }
+        if (count < 5) {
+            throw new IllegalArgumentException("Row " + index + " must be [id, x, y, speed, rotation(, seq)]");
+        }
+        return new Row(id, values[0], values[1], values[2], values[3], seq);
+    }
+
+    private static List<Row> decodeBinary(byte[] body) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            int count = in.readInt();
+            if (count < 0 || count > MAX_BATCH_SIZE) {
+                throw new IllegalArgumentException("Invalid vehicle count " + count);
+            }
+            List<Row> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new Row(in.readUTF(), in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(),
+                                 in.readLong()));
+            }
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Trailing bytes after " + count + " vehicles");
+            }
+            return rows;
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Binary vehicle batch is truncated", e);
+        }
+    }
+
+    private static void validate(List<Row> rows) {
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < rows.size() && errors.size() < 10; i++) {
+            Row row = rows.get(i);
+            if (row.id() == null || row.id().isBlank()) {
+                errors.add("row " + i + ": missing id");
+            } else if (!Double.isFinite(row.x()) || !Double.isFinite(row.y())) {
+                errors.add("row " + i + " (" + row.id() + "): invalid position");
+            } else if (!Double.isFinite(row.speed()) || row.speed() < 0) {
+                errors.add("row " + i + " (" + row.id() + "): invalid speed");
+            } else if (!Double.isFinite(row.rotation())) {
+                errors.add("row " + i + " (" + row.id() + "): invalid rotation");
+            } else if (row.seq() < 0) {
+                errors.add("row " + i + " (" + row.id() + "): invalid seq");
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("Invalid vehicle batch: " + String.join("; ", errors));
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package com.safeways.backend.service;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.safeways.backend.model.xml.CityMap;
 import com.safeways.backend.model.xml.MapArc;
 import com.safeways.backend.model.xml.MapNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 @Service
 public class VehicleSimulationService {
@@ -23,36 +30,124 @@ public class VehicleSimulationService {
 
     private Map<String, List<String>> adjacencyList = new HashMap<>();
     private Map<String, MapNode> nodesDict = new HashMap<>();
-    private List<SimulatedVehicle> vehicles = new CopyOnWriteArrayList<>();
+    // Dense node numbers (paths and lane keys) and node coordinates by number
+    private Map<String, Integer> nodeIndex = new HashMap<>();
+    private double[] nodeX = new double[0];
+    private double[] nodeY = new double[0];
+    // Map region of each node: cell of a regular grid over the map's bounding box
+    private int[] regionOfNode = new int[0];
+    private int regionCount = 1;
+
+    // Vehicle state, one slot per vehicle (struct of arrays)
+    private final VehicleStateArrays vehicles = new VehicleStateArrays(64);
+
+    // Car following: vehicles by lane, ordered by progress along it; vehicle handle = slot
+    private final LaneOccupancyIndex laneIndex = new LaneOccupancyIndex();
+
+    // /topic/vehicles payload is written straight to JSON - no per-vehicle maps
+    private static final JsonFactory JSON = new JsonFactory();
+    private final StringWriter broadcastBuffer = new StringWriter(4096);
+
+    // Fleet size the spawner keeps topping up to, and how often it adds a vehicle
+    @Value("${simulation.max-vehicles:12}")
+    private int maxVehicles = 12;
+
+    @Value("${simulation.spawn-interval-ms:2500}")
+    private long spawnIntervalMs = 2500;
+
+    // Parallel step: worker threads (0 = one per core), map regions, and the fleet size below which it is not worth it
+    @Value("${simulation.threads:0}")
+    private int threads = 0;
+
+    @Value("${simulation.regions:16}")
+    private int regions = 16;
+
+    @Value("${simulation.parallel-min-vehicles:512}")
+    private int parallelMinVehicles = 512;
+
+    private ForkJoinPool stepPool;
+    // Active slots grouped by region for the current step: slots of region r are regionSlots[regionStart[r] ..
+    // regionStart[r + 1])
+    private int[] regionStart = new int[2];
+    private int[] regionSlots = new int[64];
+
+    // Seed for spawns and speeders, so runs can be reproduced (0 = a different run every time)
+    @Value("${simulation.seed:0}")
+    private long seed = 0;
+    private final Random random = new Random();
     private List<String> leftSpawnPoints = new ArrayList<>();
     private List<String> rightSpawnPoints = new ArrayList<>();
     private int nextVehicleId = 1;
     private int lastLeftSpawnIndex = 0;
     private int lastRightSpawnIndex = 0;
     private int spawnDirection = 0;
-    private long lastUpdateTime = System.currentTimeMillis();
     private long lastSpawnTime = 0;
     private long lastSpeedingTime = 0;
     private long nextSpeedingInterval = getRandomSpeedingInterval();
 
     // Speed limit in km/h
     private static final double SPEED_LIMIT = 50.0;
-    private static final Random random = new Random();
+
+    // Lane offset from the arc's centre line, in coordinate units
+    private static final double LANE_WIDTH = 0.000024;
+    // Minimum distance between cars (in coordinate units, ~10m)
+    private static final double MIN_CAR_DISTANCE = 0.00012;
+    // Safe following distance (in coordinate units, ~15m)
+    private static final double SAFE_FOLLOWING_DISTANCE = 0.00018;
+    // A vehicle this close to the end of its arc moves on to the next one
+    private static final double ARRIVAL_DISTANCE = 0.00003;
+
+    // The constants above (and the base speeds) are calibrated for degree-like coordinates; a map in metres
+    // needs them scaled up (~80000 for Harta_Mica.xml)
+    @Value("${simulation.coordinate-scale:1.0}")
+    private double coordinateScale = 1.0;
+    private double laneWidth = LANE_WIDTH;
+    private double minCarDistance = MIN_CAR_DISTANCE;
+    private double safeFollowingDistance = SAFE_FOLLOWING_DISTANCE;
+    private double arrivalDistance = ARRIVAL_DISTANCE;
+
+    // Vehicles that reached the end of their path
+    private long completedCount = 0;
+
+    /**
+     * Receives one simulated vehicle (see forEachVehicle)
+     */
+    public interface VehicleVisitor {
+        void visit(String id, double x, double y, double speedKmH, double rotation);
+    }
 
     @PostConstruct
     public void init() {
+        if (seed != 0) {
+            random.setSeed(seed);
+            nextSpeedingInterval = getRandomSpeedingInterval();
+        }
+        laneWidth = LANE_WIDTH * coordinateScale;
+        minCarDistance = MIN_CAR_DISTANCE * coordinateScale;
+        safeFollowingDistance = SAFE_FOLLOWING_DISTANCE * coordinateScale;
+        arrivalDistance = ARRIVAL_DISTANCE * coordinateScale;
         buildGraph();
+        int parallelism = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+        if (parallelism > 1) {
+            stepPool = new ForkJoinPool(parallelism);
+        }
         for (int i = 0; i < 3; i++) {
             spawnVehicle();
         }
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (stepPool != null) stepPool.shutdownNow();
+    }
+
     private void buildGraph() {
         CityMap map = mapService.getMap();
         if (map == null || map.getNodes() == null) return;
 
         for (MapNode node : map.getNodes()) {
             nodesDict.put(node.getId(), node);
+            nodeIndex.putIfAbsent(node.getId(), nodeIndex.size());
             adjacencyList.put(node.getId(), new ArrayList<>());
         }
 
@@ -63,6 +158,16 @@ public class VehicleSimulationService {
             }
         }
 
+        nodeX = new double[nodeIndex.size()];
+        nodeY = new double[nodeIndex.size()];
+        for (Map.Entry<String, Integer> entry : nodeIndex.entrySet()) {
+            MapNode node = nodesDict.get(entry.getKey());
+            nodeX[entry.getValue()] = node.getLongitude();
+            nodeY[entry.getValue()] = node.getLatitude();
+        }
+
+        buildRegions();
+
         leftSpawnPoints = getLeftmostNodes();
         leftSpawnPoints.sort((a, b) -> Double.compare(
             nodesDict.get(a).getLatitude(),
@@ -76,6 +181,26 @@ public class VehicleSimulationService {
         ));
     }
 
+    /**
+     * Splits the map into a grid of about simulation.regions cells; a vehicle belongs to the region of the node its
+     * current arc starts at, so neighbours on the same streets are stepped by the same worker
+     */
+    private void buildRegions() {
+        int side = Math.max(1, (int) Math.round(Math.sqrt(Math.max(regions, 1))));
+        regionCount = side * side;
+        regionStart = new int[regionCount + 1];
+        regionOfNode = new int[nodeX.length];
+        if (nodeX.length == 0) return;
+
+        double minX = Arrays.stream(nodeX).min().orElse(0), maxX = Arrays.stream(nodeX).max().orElse(0);
+        double minY = Arrays.stream(nodeY).min().orElse(0), maxY = Arrays.stream(nodeY).max().orElse(0);
+        for (int n = 0; n < nodeX.length; n++) {
+            int cx = (maxX > minX) ? (int) Math.min(side - 1, (nodeX[n] - minX) / (maxX - minX) * side) : 0;
+            int cy = (maxY > minY) ? (int) Math.min(side - 1, (nodeY[n] - minY) / (maxY - minY) * side) : 0;
+            regionOfNode[n] = cy * side + cx;
+        }
+    }
+
     private List<String> getLeftmostNodes() {
         if (nodesDict.isEmpty()) return Collections.emptyList();
 
@@ -136,7 +261,7 @@ public class VehicleSimulationService {
 
             List<String> neighbors = adjacencyList.getOrDefault(current, Collections.emptyList());
             List<String> shuffled = new ArrayList<>(neighbors);
-            Collections.shuffle(shuffled);
+            Collections.shuffle(shuffled, random);
 
             for (String neighbor : shuffled) {
                 if (!visited.contains(neighbor)) {
@@ -196,60 +321,31 @@ public class VehicleSimulationService {
 
         if (path.size() < 2) return Collections.emptyMap();
 
-        MapNode startNode = nodesDict.get(path.get(0));
-        MapNode nextNode = nodesDict.get(path.get(1));
-
-        if (startNode == null || nextNode == null) return Collections.emptyMap();
-
-        double targetRotation = calculateRotation(startNode.getLongitude(), startNode.getLatitude(),
-                                                   nextNode.getLongitude(), nextNode.getLatitude());
-
-        double[] offset = getLaneOffset(startNode.getLongitude(), startNode.getLatitude(),
-                                        nextNode.getLongitude(), nextNode.getLatitude(), goingRight);
-
-        SimulatedVehicle vehicle = new SimulatedVehicle();
-        vehicle.id = "Car-" + (nextVehicleId++);
-        vehicle.x = startNode.getLongitude() + offset[0];
-        vehicle.y = startNode.getLatitude() + offset[1];
-        vehicle.targetX = nextNode.getLongitude() + offset[0];
-        vehicle.targetY = nextNode.getLatitude() + offset[1];
-        vehicle.path = path;
-        vehicle.pathIndex = 0;
-        vehicle.speed = 0.00000015 + Math.random() * 0.00000008;
-        vehicle.speedKmH = 30 + Math.random() * 20; // Normal speed: 30-50 km/h
-        vehicle.rotation = targetRotation;
-        vehicle.targetRotation = targetRotation;
-        vehicle.active = true;
-        vehicle.direction = goingRight ? "right" : "left";
+        int[] nodes = new int[path.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            Integer node = nodeIndex.get(path.get(i));
+            if (node == null) return Collections.emptyMap();
+            nodes[i] = node;
+        }
 
-        vehicles.add(vehicle);
+        VehicleStateArrays v = vehicles;
+        int slot = v.allocate("Car-" + (nextVehicleId++));
+        v.path[slot] = nodes;
+        v.pathIndex[slot] = 0;
+        v.speed[slot] = (0.00000015 + random.nextDouble() * 0.00000008) * coordinateScale;
+        v.speedKmH[slot] = 30 + random.nextDouble() * 20; // Normal speed: 30-50 km/h
+        v.direction[slot] = goingRight ? VehicleStateArrays.RIGHT : VehicleStateArrays.LEFT;
+        enterArc(slot);
+        v.rotation[slot] = v.targetRotation[slot];
 
         Map<String, Object> result = new HashMap<>();
-        result.put("id", vehicle.id);
-        result.put("x", vehicle.x);
-        result.put("y", vehicle.y);
-        result.put("direction", vehicle.direction);
+        result.put("id", v.id[slot]);
+        result.put("x", v.x[slot]);
+        result.put("y", v.y[slot]);
+        result.put("direction", goingRight ? "right" : "left");
         return result;
     }
 
-    private double calculateRotation(double fromX, double fromY, double toX, double toY) {
-        return Math.atan2(toY - fromY, toX - fromX);
-    }
-
-    private double[] getLaneOffset(double fromX, double fromY, double toX, double toY, boolean goingRight) {
-        double dx = toX - fromX;
-        double dy = toY - fromY;
-        double len = Math.sqrt(dx * dx + dy * dy);
-        if (len == 0) return new double[]{0, 0};
-
-        double perpX = dy / len;
-        double perpY = -dx / len;
-
-        double laneWidth = 0.000024;
-
-        return new double[]{perpX * laneWidth, perpY * laneWidth};
-    }
-
     private double normalizeAngle(double angle) {
         while (angle > Math.PI) angle -= 2 * Math.PI;
         while (angle < -Math.PI) angle += 2 * Math.PI;
@@ -262,161 +358,238 @@ public class VehicleSimulationService {
     }
 
     /**
-     * Calculate distance between two points
+     * Puts the vehicle at the start of its current arc (path[pathIndex] -> path[pathIndex + 1]), on the lane to the
+     * right of the direction of travel, and at the back of that lane in the lane index
      */
-    private double getDistance(double x1, double y1, double x2, double y2) {
-        double dx = x2 - x1;
-        double dy = y2 - y1;
-        return Math.sqrt(dx * dx + dy * dy);
+    private void enterArc(int slot) {
+        VehicleStateArrays v = vehicles;
+        int[] path = v.path[slot];
+        int i = v.pathIndex[slot];
+        int from = path[i];
+        int to = path[i + 1];
+
+        double dx = nodeX[to] - nodeX[from];
+        double dy = nodeY[to] - nodeY[from];
+        double len = Math.sqrt(dx * dx + dy * dy);
+        double offsetX = (len == 0) ? 0 : dy / len * laneWidth;
+        double offsetY = (len == 0) ? 0 : -dx / len * laneWidth;
+
+        v.x[slot] = nodeX[from] + offsetX;
+        v.y[slot] = nodeY[from] + offsetY;
+        v.targetX[slot] = nodeX[to] + offsetX;
+        v.targetY[slot] = nodeY[to] + offsetY;
+        v.targetRotation[slot] = Math.atan2(dy, dx);
+        v.laneLength[slot] = len;
+
+        laneIndex.place(slot, laneIndex.laneId(new LaneOccupancyIndex.LaneKey(from, to, 0)), 0.0);
+        v.nextLaneId[slot] = (i + 2 < path.length)
+            ? laneIndex.laneId(new LaneOccupancyIndex.LaneKey(to, path[i + 2], 0))
+            : -1;
+    }
+
+    private void leaveSimulation(int slot) {
+        laneIndex.remove(slot);
+        vehicles.release(slot);
     }
 
     /**
-     * Find the closest car in front of the given vehicle within the search distance (same direction only)
+     * The closest car in front of the vehicle: the next one on its lane or, if it leads its lane, the last one on
+     * the next arc of its path. -1 if there is none.
      */
-    private SimulatedVehicle findCarInFront(SimulatedVehicle vehicle, double searchDistance) {
-        SimulatedVehicle closest = null;
-        double closestDist = Double.MAX_VALUE;
-
-        // Calculate vehicle's direction vector
-        double dirX = Math.cos(vehicle.rotation);
-        double dirY = Math.sin(vehicle.rotation);
-
-        for (SimulatedVehicle other : vehicles) {
-            if (other == vehicle || !other.active) continue;
-
-            // Only consider cars going in the same direction (same lane)
-            if (!other.direction.equals(vehicle.direction)) continue;
-
-            // Vector from this vehicle to the other
-            double toOtherX = other.x - vehicle.x;
-            double toOtherY = other.y - vehicle.y;
-            double dist = Math.sqrt(toOtherX * toOtherX + toOtherY * toOtherY);
-
-            // Skip if too far
-            if (dist > searchDistance) continue;
-
-            // Check if the other car is in front (dot product > 0 means same direction)
-            double dotProduct = dirX * toOtherX + dirY * toOtherY;
-
-            // Only consider cars that are in front (positive dot product)
-            // and roughly in the same lane (within a certain angle)
-            if (dotProduct > 0) {
-                // Check angle - car should be roughly ahead, not to the side
-                double angle = Math.abs(Math.atan2(toOtherY, toOtherX) - vehicle.rotation);
-                angle = normalizeAngle(angle);
-
-                // Within ~30 degrees of the direction we're heading
-                if (Math.abs(angle) < Math.PI / 6) {
-                    if (dist < closestDist) {
-                        closestDist = dist;
-                        closest = other;
-                    }
-                }
-            }
+    private int findCarInFront(int slot) {
+        int ahead = laneIndex.leader(slot);
+        if (ahead < 0 && vehicles.nextLaneId[slot] >= 0) {
+            ahead = laneIndex.rearmost(vehicles.nextLaneId[slot]);
         }
-
-        return closest;
+        return ahead;
     }
 
-    @Scheduled(fixedRate = 50)
-    public void update() {
-        long currentTime = System.currentTimeMillis();
-        double deltaTime = currentTime - lastUpdateTime;
-        lastUpdateTime = currentTime;
+    /**
+     * Gap to the car in front, measured along the lane(s)
+     */
+    private double gapTo(int slot, int ahead) {
+        double progress = laneIndex.progress(slot);
+        double aheadProgress = laneIndex.progress(ahead);
+        return (laneIndex.leader(slot) == ahead)
+            ? aheadProgress - progress
+            : (vehicles.laneLength[slot] - progress) + aheadProgress;
+    }
 
-        double dt = Math.min(deltaTime, 50);
+    /**
+     * Pushes the current vehicle states on /topic/vehicles - run by SimulationLoopService at its broadcast rate
+     */
+    public void broadcast() {
+        String payload;
+        synchronized (this) {
+            payload = encodeVehicleStates();
+        }
+        messagingTemplate.convertAndSend("/topic/vehicles", payload);
+    }
 
+    /**
+     * One simulation step of dtMs at time nowMs, in two phases:
+     * - read: the next position of every vehicle is computed from the current frame only, region by region on the
+     *   step pool - nothing a vehicle reads is written during this phase
+     * - commit: the next frame becomes current, then arc changes, lane progress and spawns are applied in slot order
+     * The result is the same whatever the number of threads or regions.
+     */
+    public synchronized void step(long nowMs, double dtMs) {
         // Check if it's time to generate a random speeding vehicle (every 5-10 seconds)
-        if (currentTime - lastSpeedingTime >= nextSpeedingInterval) {
+        if (nowMs - lastSpeedingTime >= nextSpeedingInterval) {
             generateRandomSpeeder();
-            lastSpeedingTime = currentTime;
+            lastSpeedingTime = nowMs;
             nextSpeedingInterval = getRandomSpeedingInterval();
         }
 
-        // Minimum distance between cars (in coordinate units, ~10m)
-        final double MIN_CAR_DISTANCE = 0.00012;
-        // Safe following distance (in coordinate units, ~15m)
-        final double SAFE_FOLLOWING_DISTANCE = 0.00018;
+        // Lane order as of the end of the last step
+        laneIndex.reorder();
 
-        Iterator<SimulatedVehicle> iterator = vehicles.iterator();
-        while (iterator.hasNext()) {
-            SimulatedVehicle vehicle = iterator.next();
-            if (!vehicle.active) {
-                iterator.remove();
-                continue;
-            }
+        groupByRegion();
+        if (stepPool != null && vehicles.count() >= parallelMinVehicles) {
+            stepPool.invoke(new RegionStep(0, regionCount, dtMs));
+        } else {
+            computeRegions(0, regionCount, dtMs);
+        }
 
-            vehicle.rotation = lerpAngle(vehicle.rotation, vehicle.targetRotation, 0.12);
+        commitStep();
 
-            double dx = vehicle.targetX - vehicle.x;
-            double dy = vehicle.targetY - vehicle.y;
-            double dist = Math.sqrt(dx * dx + dy * dy);
+        if (vehicles.count() < maxVehicles && (nowMs - lastSpawnTime) >= spawnIntervalMs) {
+            spawnVehicle();
+            lastSpawnTime = nowMs;
+        }
+    }
 
-            if (dist < 0.00003) {
-                vehicle.pathIndex++;
+    /**
+     * Counting sort of the active slots by region - slot order is kept inside each region
+     */
+    private void groupByRegion() {
+        VehicleStateArrays v = vehicles;
+        Arrays.fill(regionStart, 0);
+        for (int slot = 0; slot < v.highWater(); slot++) {
+            if (v.active[slot]) regionStart[regionOf(slot) + 1]++;
+        }
+        for (int r = 0; r < regionCount; r++) {
+            regionStart[r + 1] += regionStart[r];
+        }
+        if (regionSlots.length < v.count()) {
+            regionSlots = new int[v.capacity()];
+        }
+        int[] fill = Arrays.copyOf(regionStart, regionCount);
+        for (int slot = 0; slot < v.highWater(); slot++) {
+            if (v.active[slot]) regionSlots[fill[regionOf(slot)]++] = slot;
+        }
+    }
 
-                if (vehicle.pathIndex >= vehicle.path.size() - 1) {
-                    vehicle.active = false;
-                    continue;
-                }
+    private int regionOf(int slot) {
+        return regionOfNode[vehicles.path[slot][vehicles.pathIndex[slot]]];
+    }
 
-                String currentNodeId = vehicle.path.get(vehicle.pathIndex);
-                String nextNodeId = vehicle.path.get(vehicle.pathIndex + 1);
-                MapNode currentNode = nodesDict.get(currentNodeId);
-                MapNode nextNode = nodesDict.get(nextNodeId);
-
-                if (currentNode != null && nextNode != null) {
-                    boolean goingRight = "right".equals(vehicle.direction);
-                    double[] offset = getLaneOffset(currentNode.getLongitude(), currentNode.getLatitude(),
-                                                    nextNode.getLongitude(), nextNode.getLatitude(), goingRight);
-
-                    vehicle.x = currentNode.getLongitude() + offset[0];
-                    vehicle.y = currentNode.getLatitude() + offset[1];
-                    vehicle.targetX = nextNode.getLongitude() + offset[0];
-                    vehicle.targetY = nextNode.getLatitude() + offset[1];
-                    vehicle.targetRotation = calculateRotation(currentNode.getLongitude(), currentNode.getLatitude(),
-                                                                nextNode.getLongitude(), nextNode.getLatitude());
-                }
+    /**
+     * Splits the regions in halves until each task is one region or a small amount of work
+     */
+    private final class RegionStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L; // RecursiveAction is Serializable - never serialized here
+
+        private final int fromRegion;
+        private final int toRegion;
+        private final double dtMs;
+
+        RegionStep(int fromRegion, int toRegion, double dtMs) {
+            this.fromRegion = fromRegion;
+            this.toRegion = toRegion;
+            this.dtMs = dtMs;
+        }
+
+        @Override
+        protected void compute() {
+            int work = regionStart[toRegion] - regionStart[fromRegion];
+            if (toRegion - fromRegion > 1 && work > parallelMinVehicles / 4) {
+                int mid = (fromRegion + toRegion) >>> 1;
+                invokeAll(new RegionStep(fromRegion, mid, dtMs), new RegionStep(mid, toRegion, dtMs));
             } else {
-                // Check for car in front and adjust speed
-                SimulatedVehicle carInFront = findCarInFront(vehicle, SAFE_FOLLOWING_DISTANCE);
+                computeRegions(fromRegion, toRegion, dtMs);
+            }
+        }
+    }
 
-                double effectiveSpeedKmH = vehicle.speedKmH;
+    private void computeRegions(int fromRegion, int toRegion, double dtMs) {
+        for (int i = regionStart[fromRegion]; i < regionStart[toRegion]; i++) {
+            computeNext(regionSlots[i], dtMs);
+        }
+    }
 
-                if (carInFront != null) {
-                    double distToCarInFront = getDistance(vehicle.x, vehicle.y, carInFront.x, carInFront.y);
+    /**
+     * Read phase for one vehicle: reads the current frame (and the lane index, which is not modified during the
+     * phase) and writes only this vehicle's next-frame entries
+     */
+    private void computeNext(int slot, double dt) {
+        VehicleStateArrays v = vehicles;
+        v.nextRotation[slot] = lerpAngle(v.rotation[slot], v.targetRotation[slot], 0.12);
+
+        double dx = v.targetX[slot] - v.x[slot];
+        double dy = v.targetY[slot] - v.y[slot];
+        double dist = Math.sqrt(dx * dx + dy * dy);
+
+        if (dist < arrivalDistance) {
+            v.arrived[slot] = true;
+            v.nextX[slot] = v.x[slot];
+            v.nextY[slot] = v.y[slot];
+            return;
+        }
+        v.arrived[slot] = false;
 
-                    // If too close, stop completely
-                    if (distToCarInFront <= MIN_CAR_DISTANCE) {
-                        effectiveSpeedKmH = 0;
-                    }
-                    // If within safe distance, match the car in front's speed or slow down
-                    else if (distToCarInFront < SAFE_FOLLOWING_DISTANCE) {
-                        // Gradually reduce speed as we get closer
-                        double slowdownFactor = (distToCarInFront - MIN_CAR_DISTANCE) / (SAFE_FOLLOWING_DISTANCE - MIN_CAR_DISTANCE);
-                        double targetSpeed = Math.min(vehicle.speedKmH, carInFront.speedKmH);
-                        effectiveSpeedKmH = carInFront.speedKmH * slowdownFactor + targetSpeed * (1 - slowdownFactor);
-                        effectiveSpeedKmH = Math.min(effectiveSpeedKmH, carInFront.speedKmH);
-                    }
-                }
+        // Check for car in front and adjust speed
+        double effectiveSpeedKmH = v.speedKmH[slot];
 
-                // Speed multiplier based on effectiveSpeedKmH (base speed is calibrated for ~40 km/h)
-                double speedMultiplier = effectiveSpeedKmH / 40.0;
-                double actualSpeed = vehicle.speed * speedMultiplier;
+        int carInFront = findCarInFront(slot);
+        if (carInFront >= 0) {
+            double distToCarInFront = gapTo(slot, carInFront);
+            double carInFrontSpeedKmH = v.speedKmH[carInFront];
 
-                double moveX = (dx / dist) * actualSpeed * dt;
-                double moveY = (dy / dist) * actualSpeed * dt;
-                vehicle.x += moveX;
-                vehicle.y += moveY;
+            // If too close, stop completely
+            if (distToCarInFront <= minCarDistance) {
+                effectiveSpeedKmH = 0;
+            }
+            // If within safe distance, match the car in front's speed or slow down
+            else if (distToCarInFront < safeFollowingDistance) {
+                // Gradually reduce speed as we get closer
+                double slowdownFactor = (distToCarInFront - minCarDistance) / (safeFollowingDistance - minCarDistance);
+                double targetSpeed = Math.min(v.speedKmH[slot], carInFrontSpeedKmH);
+                effectiveSpeedKmH = carInFrontSpeedKmH * slowdownFactor + targetSpeed * (1 - slowdownFactor);
+                effectiveSpeedKmH = Math.min(effectiveSpeedKmH, carInFrontSpeedKmH);
             }
         }
 
-        if (vehicles.size() < 12 && (currentTime - lastSpawnTime) >= 2500) {
-            spawnVehicle();
-            lastSpawnTime = currentTime;
-        }
+        // Speed multiplier based on effectiveSpeedKmH (base speed is calibrated for ~40 km/h)
+        double speedMultiplier = effectiveSpeedKmH / 40.0;
+        double actualSpeed = v.speed[slot] * speedMultiplier;
 
-        messagingTemplate.convertAndSend("/topic/vehicles", getVehicleStates());
+        v.nextX[slot] = v.x[slot] + (dx / dist) * actualSpeed * dt;
+        v.nextY[slot] = v.y[slot] + (dy / dist) * actualSpeed * dt;
+        v.nextProgress[slot] = v.laneLength[slot] - Math.max(dist - actualSpeed * dt, 0.0);
+    }
+
+    /**
+     * Commit phase, single-threaded and in slot order
+     */
+    private void commitStep() {
+        VehicleStateArrays v = vehicles;
+        v.flip();
+        for (int slot = 0; slot < v.highWater(); slot++) {
+            if (!v.active[slot]) continue;
+
+            if (v.arrived[slot]) {
+                v.pathIndex[slot]++;
+                if (v.pathIndex[slot] >= v.path[slot].length - 1) {
+                    leaveSimulation(slot);
+                    completedCount++;
+                } else {
+                    enterArc(slot);
+                }
+            } else {
+                laneIndex.setProgress(slot, v.nextProgress[slot]);
+            }
+        }
     }
 
     /**
@@ -430,63 +603,105 @@ public class VehicleSimulationService {
      * Randomly make a vehicle speed over the limit
      */
     private void generateRandomSpeeder() {
-        List<SimulatedVehicle> eligibleVehicles = new ArrayList<>();
-        for (SimulatedVehicle v : vehicles) {
-            if (v.active && v.speedKmH <= SPEED_LIMIT) {
-                eligibleVehicles.add(v);
-            }
+        VehicleStateArrays v = vehicles;
+        int eligible = 0;
+        for (int slot = 0; slot < v.highWater(); slot++) {
+            if (v.active[slot] && v.speedKmH[slot] <= SPEED_LIMIT) eligible++;
         }
 
-        if (eligibleVehicles.isEmpty()) return;
+        if (eligible == 0) return;
 
         // Pick a random vehicle to make it speed
-        SimulatedVehicle vehicle = eligibleVehicles.get(random.nextInt(eligibleVehicles.size()));
-
-        // Set speed to 51-80 km/h (over the 50 km/h limit)
-        vehicle.speedKmH = 51 + random.nextDouble() * 29;
-        System.out.println("⚠️ Vehicle " + vehicle.id + " is now speeding at " + Math.round(vehicle.speedKmH) + " km/h!");
+        int pick = random.nextInt(eligible);
+        for (int slot = 0; slot < v.highWater(); slot++) {
+            if (!v.active[slot] || v.speedKmH[slot] > SPEED_LIMIT) continue;
+            if (pick-- > 0) continue;
+
+            // Set speed to 51-80 km/h (over the 50 km/h limit)
+            v.speedKmH[slot] = 51 + random.nextDouble() * 29;
+            System.out.println("⚠️ Vehicle " + v.id[slot] + " is now speeding at " + Math.round(v.speedKmH[slot]) + " km/h!");
+            return;
+        }
     }
 
-    public List<Map<String, Object>> getVehicleStates() {
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (SimulatedVehicle v : vehicles) {
+    public synchronized List<Map<String, Object>> getVehicleStates() {
+        VehicleStateArrays v = vehicles;
+        List<Map<String, Object>> result = new ArrayList<>(v.count());
+        for (int slot = 0; slot < v.highWater(); slot++) {
+            if (!v.active[slot]) continue;
             Map<String, Object> state = new HashMap<>();
-            state.put("id", v.id);
-            state.put("x", v.x);
-            state.put("y", v.y);
-            state.put("rotation", v.rotation);
-            state.put("speed", v.speedKmH); // Return speedKmH for display
-            state.put("speedKmH", v.speedKmH);
-            state.put("isSpeeding", v.speedKmH > SPEED_LIMIT);
+            state.put("id", v.id[slot]);
+            state.put("x", v.x[slot]);
+            state.put("y", v.y[slot]);
+            state.put("rotation", v.rotation[slot]);
+            state.put("speed", v.speedKmH[slot]); // Return speedKmH for display
+            state.put("speedKmH", v.speedKmH[slot]);
+            state.put("isSpeeding", v.speedKmH[slot] > SPEED_LIMIT);
             state.put("isCurrentUser", false);
             result.add(state);
         }
         return result;
     }
 
-    public Map<String, Object> getGraphInfo() {
+    /**
+     * Same content as getVehicleStates, written directly as a JSON array into a reused buffer
+     */
+    private String encodeVehicleStates() {
+        VehicleStateArrays v = vehicles;
+        broadcastBuffer.getBuffer().setLength(0);
+        try (JsonGenerator json = JSON.createGenerator(broadcastBuffer)) {
+            json.writeStartArray();
+            for (int slot = 0; slot < v.highWater(); slot++) {
+                if (!v.active[slot]) continue;
+                json.writeStartObject();
+                json.writeStringField("id", v.id[slot]);
+                json.writeNumberField("x", v.x[slot]);
+                json.writeNumberField("y", v.y[slot]);
+                json.writeNumberField("rotation", v.rotation[slot]);
+                json.writeNumberField("speed", v.speedKmH[slot]);
+                json.writeNumberField("speedKmH", v.speedKmH[slot]);
+                json.writeBooleanField("isSpeeding", v.speedKmH[slot] > SPEED_LIMIT);
+                json.writeBooleanField("isCurrentUser", false);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return broadcastBuffer.toString();
+    }
+
+    /**
+     * Visits every vehicle of the current frame, under the simulation lock
+     */
+    public synchronized void forEachVehicle(VehicleVisitor visitor) {
+        VehicleStateArrays v = vehicles;
+        for (int slot = 0; slot < v.highWater(); slot++) {
+            if (v.active[slot]) visitor.visit(v.id[slot], v.x[slot], v.y[slot], v.speedKmH[slot], v.rotation[slot]);
+        }
+    }
+
+    public synchronized int getVehicleCount() {
+        return vehicles.count();
+    }
+
+    public synchronized long getSpawnedCount() {
+        return nextVehicleId - 1;
+    }
+
+    public synchronized long getCompletedCount() {
+        return completedCount;
+    }
+
+    public synchronized Map<String, Object> getGraphInfo() {
         Map<String, Object> info = new HashMap<>();
         info.put("nodeCount", nodesDict.size());
-        info.put("vehicleCount", vehicles.size());
+        info.put("vehicleCount", vehicles.count());
+        info.put("spawned", nextVehicleId - 1);
+        info.put("completed", completedCount);
+        info.put("vehicleSlots", vehicles.capacity());
         info.put("leftNodes", getLeftmostNodes());
         info.put("rightNodes", getRightmostNodes());
         return info;
     }
-
-    private static class SimulatedVehicle {
-        String id;
-        double x;
-        double y;
-        double targetX;
-        double targetY;
-        List<String> path;
-        int pathIndex;
-        double speed;
-        double speedKmH; // Speed in km/h for display and speeding detection
-        double rotation;
-        double targetRotation;
-        boolean active;
-        String direction;
-    }
 }
-
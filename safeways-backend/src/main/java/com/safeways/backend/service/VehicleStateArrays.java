@@ -0,0 +1,174 @@
+package com.safeways.backend.service;
+
+import java.util.Arrays;
+
+/**
+ * State of the simulated vehicles as parallel primitive arrays - one slot per vehicle, the same index in every
+ * array. A step walks the arrays sequentially instead of chasing one heap object per car, and allocates nothing.
+ *
+ * Slots of vehicles that left are reused through a free list (lowest slot first), so the arrays only grow with
+ * the largest fleet ever simulated. Paths are node indices; the lane index uses the slot as vehicle handle.
+ *
+ * Position and rotation are double-buffered: a step reads the current frame and writes the next one, then
+ * flip() makes the next frame current. Nothing written during a step is visible to the rest of that step.
+ * Not thread-safe - owned by VehicleSimulationService, which synchronizes access.
+ */
+public class VehicleStateArrays {
+
+    public static final byte LEFT = 0;
+    public static final byte RIGHT = 1;
+
+    // Position and current target (end of the current arc, lane offset included)
+    double[] x;
+    double[] y;
+    double[] targetX;
+    double[] targetY;
+    double[] rotation;
+    double[] targetRotation;
+    // Base speed in coordinate units per ms (calibrated for ~40 km/h) and the displayed speed
+    double[] speed;
+    double[] speedKmH;
+    double[] laneLength;
+    // Next frame, written by the read phase of a step
+    double[] nextX;
+    double[] nextY;
+    double[] nextRotation;
+    double[] nextProgress;
+    boolean[] arrived;
+    int[][] path;
+    int[] pathIndex;
+    // Lane index ID of the arc after the current one, -1 at the last arc
+    int[] nextLaneId;
+    byte[] direction;
+    boolean[] active;
+    String[] id;
+
+    // Free slots below highWater, kept as a min-heap so slots are reused lowest first
+    private int[] free;
+    private int freeCount;
+    private int highWater;
+    private int count;
+
+    public VehicleStateArrays(int initialCapacity) {
+        resize(Math.max(initialCapacity, 16));
+        free = new int[16];
+    }
+
+    /**
+     * A fresh slot for a new vehicle, marked active
+     */
+    public int allocate(String vehicleId) {
+        int slot;
+        if (freeCount > 0) {
+            slot = popFree();
+        } else {
+            if (highWater == x.length) resize(x.length * 2);
+            slot = highWater++;
+        }
+        active[slot] = true;
+        id[slot] = vehicleId;
+        count++;
+        return slot;
+    }
+
+    public void release(int slot) {
+        if (!active[slot]) return;
+        active[slot] = false;
+        id[slot] = null;
+        path[slot] = null;
+        count--;
+        pushFree(slot);
+    }
+
+    /**
+     * Slots are in [0, highWater()); check isActive for each
+     */
+    public int highWater() {
+        return highWater;
+    }
+
+    public boolean isActive(int slot) {
+        return active[slot];
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int capacity() {
+        return x.length;
+    }
+
+    /**
+     * Makes the next frame current - the old current arrays become the buffer for the next step
+     */
+    void flip() {
+        double[] t = x;
+        x = nextX;
+        nextX = t;
+        t = y;
+        y = nextY;
+        nextY = t;
+        t = rotation;
+        rotation = nextRotation;
+        nextRotation = t;
+    }
+
+    private void resize(int capacity) {
+        x = grow(x, capacity);
+        y = grow(y, capacity);
+        targetX = grow(targetX, capacity);
+        targetY = grow(targetY, capacity);
+        rotation = grow(rotation, capacity);
+        targetRotation = grow(targetRotation, capacity);
+        speed = grow(speed, capacity);
+        speedKmH = grow(speedKmH, capacity);
+        laneLength = grow(laneLength, capacity);
+        nextX = grow(nextX, capacity);
+        nextY = grow(nextY, capacity);
+        nextRotation = grow(nextRotation, capacity);
+        nextProgress = grow(nextProgress, capacity);
+        arrived = (arrived == null) ? new boolean[capacity] : Arrays.copyOf(arrived, capacity);
+        path = (path == null) ? new int[capacity][] : Arrays.copyOf(path, capacity);
+        pathIndex = (pathIndex == null) ? new int[capacity] : Arrays.copyOf(pathIndex, capacity);
+        nextLaneId = (nextLaneId == null) ? new int[capacity] : Arrays.copyOf(nextLaneId, capacity);
+        direction = (direction == null) ? new byte[capacity] : Arrays.copyOf(direction, capacity);
+        active = (active == null) ? new boolean[capacity] : Arrays.copyOf(active, capacity);
+        id = (id == null) ? new String[capacity] : Arrays.copyOf(id, capacity);
+    }
+
+    private static double[] grow(double[] array, int capacity) {
+        return (array == null) ? new double[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private void pushFree(int slot) {
+        if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+        int i = freeCount++;
+        free[i] = slot;
+        while (i > 0 && free[(i - 1) / 2] > free[i]) {
+            int parent = (i - 1) / 2;
+            int tmp = free[parent];
+            free[parent] = free[i];
+            free[i] = tmp;
+            i = parent;
+        }
+    }
+
+    private int popFree() {
+        int slot = free[0];
+        free[0] = free[--freeCount];
+        int i = 0;
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < freeCount && free[left] < free[smallest]) smallest = left;
+            if (right < freeCount && free[right] < free[smallest]) smallest = right;
+            if (smallest == i) return slot;
+            int tmp = free[smallest];
+            free[smallest] = free[i];
+            free[i] = tmp;
+            i = smallest;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.safeways.backend.benchmark;
+
+import com.safeways.backend.SafeWaysApplication;
+import com.safeways.backend.fake.FakeOllamaServer;
+import com.safeways.backend.service.AiDecisionService;
+import com.safeways.backend.service.DecisionMetrics;
+import com.safeways.backend.service.IntersectionAntenna;
+import com.safeways.backend.service.LatencyStats;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput and tail latency of the AI decision path against FakeOllamaServer, no real model needed.
+ *
+ * Phase 1 drives AiDecisionService open-loop at load.rps requests per second (distinct conflicts, so nothing is
+ * coalesced) - shows queueing, bulkhead rejections, timeouts and the breaker under the chosen profile.
+ * Phase 2 runs load.ticks blocking antenna predictions over a fresh conflict each, with the decision cache off.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dfake.profile=LAN_GPU -Dload.rps=20
+ *           -Dexec.mainClass=com.safeways.backend.benchmark.AiLoadBenchmark
+ * Any backend property can be overridden the same way, e.g. -Dai.bulkhead.max-concurrent=8
+ */
+public class AiLoadBenchmark {
+
+    private static final String TYPE = "Civil (Normal priority)";
+
+    public static void main(String[] args) throws Exception {
+        FakeOllamaServer.Profile profile = FakeOllamaServer.Profile.named(System.getProperty("fake.profile", "LAN_GPU"));
+        int rps = Integer.getInteger("load.rps", 20);
+        int seconds = Integer.getInteger("load.seconds", 10);
+        int ticks = Integer.getInteger("load.ticks", 50);
+
+        try (FakeOllamaServer fake = new FakeOllamaServer(0, profile).start()) {
+            List<String> overrides = new ArrayList<>();
+            override(overrides, "server.port", "0");
+            override(overrides, "ollama.base-url", fake.getBaseUrl());
+            override(overrides, "antenna.ai.blocking", "true");
+            override(overrides, "ai.cache.max-entries", "0");
+
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(SafeWaysApplication.class)
+                .run(overrides.toArray(new String[0]));
+            try {
+                System.out.println("\n=== Profile " + profile + " ===");
+                decisionLoad(context.getBean(AiDecisionService.class), rps, seconds);
+                antennaLoad(context.getBean(IntersectionAntenna.class), ticks);
+
+                AiDecisionService service = context.getBean(AiDecisionService.class);
+                System.out.println("bulkhead:    " + service.getBulkheadStats());
+                System.out.println("metrics:     " + context.getBean(DecisionMetrics.class).snapshot());
+                System.out.println("fake server: " + fake.stats());
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static void decisionLoad(AiDecisionService service, int rps, int seconds) {
+        int total = rps * seconds;
+        long intervalNanos = 1_000_000_000L / rps;
+        LatencyStats latency = new LatencyStats(total);
+        AtomicLong noDecision = new AtomicLong();
+        AtomicLong lastDone = new AtomicLong();
+        List<CompletableFuture<String>> calls = new ArrayList<>(total);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long due = start + i * intervalNanos;
+            LockSupport.parkNanos(due - System.nanoTime());
+
+            String a = "A_" + i;
+            String b = "B_" + i;
+            long sent = System.nanoTime();
+            calls.add(service.decideForConflictAsync("Load_Node", List.of(a, b), situation(a, b))
+                .whenComplete((decision, error) -> {
+                    long now = System.nanoTime();
+                    latency.record(now - sent);
+                    lastDone.accumulateAndGet(now, Math::max);
+                    if (error != null || AiDecisionService.NO_DECISION.equals(decision)) noDecision.incrementAndGet();
+                }));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+
+        double elapsed = (lastDone.get() - start) / 1e9;
+        System.out.printf("decisions:   offered %d/s, completed %.1f/s, no decision %d of %d%n",
+            rps, total / elapsed, noDecision.get(), total);
+        System.out.println("latency:     " + latency.toMap());
+    }
+
+    private static void antennaLoad(IntersectionAntenna antenna, int ticks) {
+        LatencyStats latency = new LatencyStats(ticks);
+        int conflicts = 0;
+
+        long start = System.nanoTime();
+        for (int k = 0; k < ticks; k++) {
+            // Only this run's vehicles - the scheduled simulation keeps adding its own
+            for (IntersectionAntenna.VehicleLiveData v : antenna.getLiveVehicleData()) {
+                antenna.removeVehicle(v.id);
+            }
+            // Antenna coordinates are degrees: two crawlers ~0.0006 from the centre, conflict in about 0.7 s
+            antenna.updateVehicleData(new IntersectionAntenna.VehicleLiveData("LA_" + k, TYPE, -0.0006, 0, 0.00144, 0, false));
+            antenna.updateVehicleData(new IntersectionAntenna.VehicleLiveData("LB_" + k, TYPE, 0, -0.0006, 0.00144, Math.PI / 2, false));
+
+            long sent = System.nanoTime();
+            if (antenna.predictAndAnalyze().isCollisionPredicted()) conflicts++;
+            latency.record(System.nanoTime() - sent);
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("antenna:     %.1f predictions/s, %d of %d with a conflict%n", ticks / elapsed, conflicts, ticks);
+        System.out.println("latency:     " + latency.toMap());
+    }
+
+    private static String situation(String a, String b) {
+        return "vreme=CLEAR\nconflicte\nnr|ttc|vehicule\n1|1.4|" + a + "," + b + "\n"
+            + "implicate\nid|tip|kg|v|dist|t_sos|t_acc|opreste\n"
+            + a + "|CIVIL|1500|54|20|1.33|1.1|da\n"
+            + b + "|CIVIL|1500|50|20|1.44|1.2|da\n";
+    }
+
+    /**
+     * Command-line arguments win over application.properties; a -D system property of the same name still wins
+     */
+    private static void override(List<String> args, String key, String value) {
+        if (System.getProperty(key) == null) args.add("--" + key + "=" + value);
+    }
+}
@@ -0,0 +1,73 @@
+package com.safeways.backend.benchmark;
+
+import com.safeways.backend.model.WeatherCondition;
+import com.safeways.backend.service.AllPairsBroadPhase;
+import com.safeways.backend.service.BroadPhase;
+import com.safeways.backend.service.CollisionPredictor;
+import com.safeways.backend.service.SpatialHashBroadPhase;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broad phase + closed-form narrow phase, all-pairs vs spatial hash, from 10 to 10,000 vehicles.
+ * Vehicles are spread at constant density (one per ~400 m^2) so the junction grows with the count,
+ * the way a city deployment does; the crossover shows where the grid starts paying for itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class BroadPhaseBenchmark {
+
+    private static final double RADIUS = 2.5;
+    private static final double HORIZON = 2.0;
+
+    @Param({"10", "30", "100", "300", "1000", "3000", "10000"})
+    public int vehicleCount;
+
+    @Param({"all-pairs", "spatial-hash"})
+    public String strategy;
+
+    private List<CollisionPredictor.VehicleState2D> vehicles;
+    private BroadPhase broadPhase;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        double side = 20.0 * Math.sqrt(vehicleCount);
+        vehicles = new ArrayList<>(vehicleCount);
+        for (int i = 0; i < vehicleCount; i++) {
+            vehicles.add(CollisionPredictor.VehicleState2D.fromVehicleWithDirection(
+                random.nextDouble() * side, random.nextDouble() * side,
+                random.nextDouble() * 2 * Math.PI, random.nextDouble() * 70, 1500, 7.5));
+        }
+        broadPhase = "all-pairs".equals(strategy) ? new AllPairsBroadPhase() : new SpatialHashBroadPhase();
+    }
+
+    @Benchmark
+    public int detectAll() {
+        int[] collisions = new int[1];
+        broadPhase.forEachCandidatePair(vehicles, RADIUS, HORIZON, (i, j) -> {
+            if (CollisionPredictor.detectCollision2DAnalytic(
+                    vehicles.get(i), vehicles.get(j), RADIUS, HORIZON, WeatherCondition.CLEAR).collisionDetected) {
+                collisions[0]++;
+            }
+        });
+        return collisions[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(BroadPhaseBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
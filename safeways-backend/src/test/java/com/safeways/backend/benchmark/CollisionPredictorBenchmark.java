@@ -0,0 +1,79 @@
+package com.safeways.backend.benchmark;
+
+import com.safeways.backend.model.WeatherCondition;
+import com.safeways.backend.service.CollisionPredictor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stepped vs closed-form pairwise collision detection.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.safeways.backend.benchmark.CollisionPredictorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionPredictorBenchmark {
+
+    private static final double RADIUS = 2.5;
+    private static final double HORIZON = 2.0;
+
+    @Param({"10", "50", "200"})
+    public int vehicleCount;
+
+    private CollisionPredictor.VehicleState2D[] vehicles;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        vehicles = new CollisionPredictor.VehicleState2D[vehicleCount];
+        for (int i = 0; i < vehicleCount; i++) {
+            vehicles[i] = CollisionPredictor.VehicleState2D.fromVehicleWithDirection(
+                -50 + random.nextDouble() * 100, -50 + random.nextDouble() * 100,
+                random.nextDouble() * 2 * Math.PI, random.nextDouble() * 70, 1500, 7.5);
+        }
+    }
+
+    @Benchmark
+    public void allPairsStepped(Blackhole bh) {
+        for (int i = 0; i < vehicles.length; i++) {
+            for (int j = i + 1; j < vehicles.length; j++) {
+                bh.consume(CollisionPredictor.detectCollision2D(
+                    vehicles[i], vehicles[j], RADIUS, HORIZON, WeatherCondition.CLEAR));
+            }
+        }
+    }
+
+    @Benchmark
+    public void allPairsAnalytic(Blackhole bh) {
+        for (int i = 0; i < vehicles.length; i++) {
+            for (int j = i + 1; j < vehicles.length; j++) {
+                bh.consume(CollisionPredictor.detectCollision2DAnalytic(
+                    vehicles[i], vehicles[j], RADIUS, HORIZON, WeatherCondition.CLEAR));
+            }
+        }
+    }
+
+    @Benchmark
+    public void oneAgainstAllBatch(Blackhole bh) {
+        for (CollisionPredictor.VehicleState2D subject : vehicles) {
+            bh.consume(CollisionPredictor.detectCollisionsAgainst(
+                subject, vehicles, RADIUS, HORIZON, WeatherCondition.CLEAR));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(CollisionPredictorBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
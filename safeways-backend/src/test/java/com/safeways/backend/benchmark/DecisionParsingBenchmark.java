@@ -0,0 +1,112 @@
+package com.safeways.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safeways.backend.model.VehicleAction;
+import com.safeways.backend.model.VehicleCommand;
+import com.safeways.backend.service.DecisionCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applying an AI decision: the old JsonNode tree walk with key probing and a linear vehicle scan, against the
+ * streaming DecisionCodec and an ID-indexed lookup.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.safeways.backend.benchmark.DecisionParsingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionParsingBenchmark {
+
+    @Param({"2", "10", "50"})
+    public int commandCount;
+
+    @Param({"200"})
+    public int vehicleCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String decision;
+    private List<String> vehicleList;
+    private Map<String, String> vehicleIndex;
+
+    @Setup
+    public void setUp() {
+        VehicleAction[] actions = VehicleAction.values();
+        List<VehicleCommand> commands = new ArrayList<>();
+        for (int i = 0; i < commandCount; i++) {
+            commands.add(new VehicleCommand("CAR_" + (i * 3), actions[i % actions.length], 20 + i % 40,
+                "cedează trecerea vehiculului care ajunge primul la punctul de coliziune"));
+        }
+        decision = "```json\n" + DecisionCodec.toJson(commands) + "\n```";
+
+        vehicleList = new ArrayList<>();
+        vehicleIndex = new HashMap<>();
+        for (int i = 0; i < vehicleCount; i++) {
+            vehicleList.add("CAR_" + i);
+            vehicleIndex.put("CAR_" + i, "CAR_" + i);
+        }
+    }
+
+    /**
+     * Same steps as the old TrafficSimulationService.runSimulationTick (Romanian keys added to the probes)
+     */
+    @Benchmark
+    public void treeParseLinearScan(Blackhole bh) throws Exception {
+        String cleanJson = decision.replace("```json", "").replace("```", "").trim();
+        JsonNode rootNode = objectMapper.readTree(cleanJson);
+        if (rootNode.isObject()) {
+            if (rootNode.has("vehicleId") || rootNode.has("id") || rootNode.has("action") || rootNode.has("Action")) {
+                rootNode = objectMapper.createArrayNode().add(rootNode);
+            } else if (rootNode.elements().hasNext()) {
+                rootNode = rootNode.elements().next();
+            }
+        }
+        for (JsonNode node : rootNode) {
+            String id = "";
+            if (node.has("vehicleId")) id = node.get("vehicleId").asText();
+            else if (node.has("id")) id = node.get("id").asText();
+
+            String action = "CONTINUE";
+            if (node.has("actiune")) action = node.get("actiune").asText().toUpperCase();
+            else if (node.has("action")) action = node.get("action").asText().toUpperCase();
+            else if (node.has("Action")) action = node.get("Action").asText().toUpperCase();
+
+            double targetSpeed = node.has("vitezaTintaKmH") ? node.get("vitezaTintaKmH").asDouble() : 0.0;
+
+            for (String vehicle : vehicleList) {
+                if (vehicle.equals(id)) {
+                    bh.consume(action);
+                    bh.consume(targetSpeed);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void streamingCodecIndexed(Blackhole bh) {
+        for (VehicleCommand command : DecisionCodec.parse(decision)) {
+            if (command.action() == null) continue;
+            bh.consume(vehicleIndex.get(command.vehicleId()));
+            bh.consume(command);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(DecisionParsingBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
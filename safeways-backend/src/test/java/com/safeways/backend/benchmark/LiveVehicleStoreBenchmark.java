@@ -0,0 +1,99 @@
+package com.safeways.backend.benchmark;
+
+import com.safeways.backend.service.IntersectionAntenna;
+import com.safeways.backend.service.LiveVehicleStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Position update throughput: the old CopyOnWriteArrayList scan-and-set against LiveVehicleStore, one update of a
+ * random tracked vehicle per operation, plus the cost of a reader's snapshot right after an update.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.safeways.backend.benchmark.LiveVehicleStoreBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LiveVehicleStoreBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int vehicleCount;
+
+    private CopyOnWriteArrayList<IntersectionAntenna.VehicleLiveData> list;
+    private LiveVehicleStore store;
+    private IntersectionAntenna.VehicleLiveData[] updates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        list = new CopyOnWriteArrayList<>();
+        store = new LiveVehicleStore();
+        for (int i = 0; i < vehicleCount; i++) {
+            IntersectionAntenna.VehicleLiveData data = car(i, 40);
+            list.add(data);
+            store.upsert(data);
+        }
+        // Pre-built updates in a scattered order, so neither side benefits from hitting the front of the list
+        updates = new IntersectionAntenna.VehicleLiveData[1024];
+        for (int u = 0; u < updates.length; u++) {
+            updates[u] = car((int) ((u * 2654435761L) % vehicleCount), 40 + u % 20);
+        }
+    }
+
+    /**
+     * Same steps as the old IntersectionAntenna.updateVehicleData
+     */
+    @Benchmark
+    public void copyOnWriteListUpdate() {
+        IntersectionAntenna.VehicleLiveData data = nextUpdate();
+        boolean found = false;
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).id.equals(data.id)) {
+                list.set(i, data);
+                found = true;
+                break;
+            }
+        }
+        if (!found) {
+            list.add(data);
+        }
+    }
+
+    @Benchmark
+    public void storeUpdate() {
+        store.upsert(nextUpdate());
+    }
+
+    @Benchmark
+    public void storeUpdateThenSnapshot(Blackhole bh) {
+        store.upsert(nextUpdate());
+        List<IntersectionAntenna.VehicleLiveData> vehicles = store.snapshot().vehicles();
+        bh.consume(vehicles);
+    }
+
+    private IntersectionAntenna.VehicleLiveData nextUpdate() {
+        IntersectionAntenna.VehicleLiveData data = updates[next];
+        next = (next + 1) & (updates.length - 1);
+        return data;
+    }
+
+    private static IntersectionAntenna.VehicleLiveData car(int i, double speed) {
+        return new IntersectionAntenna.VehicleLiveData("CAR_" + i, "Car", i % 1000, i / 1000, speed, 0, false);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(LiveVehicleStoreBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,143 @@
+package com.safeways.backend.benchmark;
+
+import com.safeways.backend.model.WeatherCondition;
+import com.safeways.backend.service.CollisionPredictor;
+import com.safeways.backend.service.CollisionPromptBuilder;
+import com.safeways.backend.service.ConflictClusterer;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.ollama.OllamaChatModel;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prompt size vs end-to-end decision latency: the old verbose context (every vehicle in range) against
+ * the compact, token-budgeted one, for growing numbers of vehicles around one conflict.
+ *
+ * Not a JMH benchmark - each sample is a real model round trip of several hundred milliseconds or more.
+ * Without -Dollama.host only the prompt sizes are printed.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dollama.host=localhost
+ *           -Dexec.mainClass=com.safeways.backend.benchmark.PromptSizeBenchmark
+ */
+public class PromptSizeBenchmark {
+
+    private static final int[] VEHICLE_COUNTS = {2, 10, 30, 60};
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        String host = System.getProperty("ollama.host");
+        ChatLanguageModel model = (host == null) ? null : OllamaChatModel.builder()
+            .baseUrl("http://" + host + ":11434")
+            .modelName(System.getProperty("ollama.model", "qwen2.5:7b"))
+            .temperature(0.0)
+            .format("json")
+            .timeout(Duration.ofSeconds(120))
+            .build();
+
+        CollisionPromptBuilder builder = new CollisionPromptBuilder(Integer.getInteger("ai.prompt.max-tokens", 600));
+
+        System.out.printf("%-9s %-8s %8s %8s %12s %12s%n", "vehicles", "prompt", "chars", "~tokens", "median ms", "p90 ms");
+        for (int n : VEHICLE_COUNTS) {
+            Scenario scenario = new Scenario(n);
+
+            String legacy = "Ești sistemul de decizie V2X pentru intersecția Main_Node.\n" + LEGACY_INSTRUCTIONS
+                .formatted(scenario.legacyContext());
+            String compact = CollisionPromptBuilder.prompt("Main_Node", builder.buildSituation(
+                WeatherCondition.RAIN, scenario.clusters, scenario.states, scenario.ids, scenario.types));
+
+            report(n, "legacy", legacy, model);
+            report(n, "compact", compact, model);
+        }
+    }
+
+    private static void report(int n, String label, String prompt, ChatLanguageModel model) {
+        String latency = "-";
+        String p90 = "-";
+        if (model != null) {
+            model.generate(prompt); // Warm-up, also loads the model
+            long[] samples = new long[RUNS];
+            for (int r = 0; r < RUNS; r++) {
+                long start = System.nanoTime();
+                model.generate(prompt);
+                samples[r] = (System.nanoTime() - start) / 1_000_000;
+            }
+            Arrays.sort(samples);
+            latency = String.valueOf(samples[RUNS / 2]);
+            p90 = String.valueOf(samples[(int) Math.ceil(RUNS * 0.9) - 1]);
+        }
+        System.out.printf("%-9d %-8s %8d %8d %12s %12s%n",
+            n, label, prompt.length(), CollisionPromptBuilder.estimateTokens(prompt), latency, p90);
+    }
+
+    /**
+     * Two vehicles about to collide plus n - 2 bystanders elsewhere in range
+     */
+    private static class Scenario {
+        final List<CollisionPredictor.VehicleState2D> states = new ArrayList<>();
+        final List<String> ids = new ArrayList<>();
+        final List<String> types = new ArrayList<>();
+        final List<ConflictClusterer.Cluster> clusters;
+
+        Scenario(int n) {
+            states.add(CollisionPredictor.VehicleState2D.fromVehicleWithDirection(-20, 0, 0, 54, 1500, 7.5));
+            states.add(CollisionPredictor.VehicleState2D.fromVehicleWithDirection(0, -24, Math.PI / 2, 54, 1500, 7.5));
+            for (int i = 2; i < n; i++) {
+                states.add(CollisionPredictor.VehicleState2D.fromVehicleWithDirection(
+                    100 + (i % 10) * 15, 100 + (i / 10) * 15, (i % 4) * Math.PI / 2, 20 + i % 30, 1500, 7.5));
+            }
+            for (int i = 0; i < n; i++) {
+                ids.add("CAR_" + i);
+                types.add("Civil (Normal priority)");
+            }
+            ConflictClusterer clusterer = new ConflictClusterer(n);
+            clusterer.add(0, 1, CollisionPredictor.detectCollision2DAnalytic(
+                states.get(0), states.get(1), 2.5, 2.0, WeatherCondition.RAIN));
+            clusters = clusterer.clusters();
+        }
+
+        /**
+         * Same shape as the per-vehicle blocks the antenna used to send
+         */
+        String legacyContext() {
+            ConflictClusterer.PairConflict pair = clusters.get(0).mostUrgent;
+            StringBuilder sb = new StringBuilder("🚨 URGENT COLLISION ALERT!\n==================================\n");
+            sb.append("Weather conditions: RAIN\nConflicts detected: 1\n");
+            sb.append(String.format("Conflict #1 - time to collision: %.1f seconds | Collision point: [%.6f, %.6f]\n",
+                pair.result.timeToCollision, pair.result.collisionPoint[0], pair.result.collisionPoint[1]));
+            sb.append(String.format("  Vehicles involved: %s, %s\n\n", ids.get(0), ids.get(1)));
+            for (int i = 0; i < states.size(); i++) {
+                CollisionPredictor.VehicleState2D s = states.get(i);
+                sb.append(String.format("Vehicle %s:\n", ids.get(i)));
+                sb.append(String.format("  📍 Position: [%.6f, %.6f]\n", s.x, s.y));
+                sb.append(String.format("  🏎️ Velocity: [%.4f, %.4f] m/s | Speed: %.0f km/h\n", s.vx, s.vy, s.speedKmH));
+                sb.append(String.format("  ⚠️ Speeding: %s\n", s.speedKmH > 50 ? "YES" : "No"));
+                if (i < 2) {
+                    CollisionPredictor.Prediction p = (i == 0) ? pair.result.predictionV1 : pair.result.predictionV2;
+                    sb.append(String.format("  ⏱️ Time to collision point: %.2fs | Distance: %.4f\n",
+                        p.timeToArrivalNormal, p.distanceToCollision));
+                }
+                sb.append("\n");
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final String LEGACY_INSTRUCTIONS = """
+            Analizează situația vehiculelor (timpul sosirii dacă mențin ruta și timpul dacă accelerează la maximum).
+
+            Situație:
+            %s
+
+            Returnează STRICT un ARRAY JSON. Structura:
+             [
+               {
+                 "vehicleId": "ID",
+                 "actiune": "CONTINUA" | "OPRESTE" | "INCETINESTE" | "ACCELEREAZA",
+                 "vitezaTintaKmH": 0, // Pune viteza recomandată AICI (ex: 20 pentru INCETINESTE, 0 pentru OPRESTE)
+                 "motiv": "explicație bazată pe fizică"
+               }
+             ]
+            """;
+}
@@ -0,0 +1,76 @@
+package com.safeways.backend.benchmark;
+
+import com.safeways.backend.service.MapService;
+import com.safeways.backend.service.VehicleSimulationService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the two-phase simulation step with the number of worker threads, on Harta_Mica.xml.
+ * threads=1 is the sequential step; the fleet is refilled before every iteration so each one measures the same load.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.safeways.backend.benchmark.SimulationStepBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SimulationStepBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"1000", "10000", "50000"})
+    public int vehicleCount;
+
+    private MapService mapService;
+    private VehicleSimulationService simulation;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void loadMap() {
+        mapService = new MapService();
+        mapService.init();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        simulation = new VehicleSimulationService();
+        ReflectionTestUtils.setField(simulation, "mapService", mapService);
+        ReflectionTestUtils.setField(simulation, "messagingTemplate", new SimpMessagingTemplate((message, timeout) -> true));
+        ReflectionTestUtils.setField(simulation, "maxVehicles", vehicleCount);
+        ReflectionTestUtils.setField(simulation, "spawnIntervalMs", 0L);
+        ReflectionTestUtils.setField(simulation, "threads", threads);
+        ReflectionTestUtils.setField(simulation, "seed", 7L);
+        simulation.init();
+        for (int i = 0; i < vehicleCount; i++) {
+            simulation.spawnVehicle();
+        }
+        now = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        simulation.shutdown();
+    }
+
+    @Benchmark
+    public void step() {
+        now += 50;
+        simulation.step(now, 50);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(SimulationStepBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,97 @@
+package com.safeways.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safeways.backend.fake.FakeOllamaServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class AiProxyControllerTest {
+
+    private static final Map<String, Object> REQUEST = Map.of("model", FakeOllamaServer.MODEL, "prompt", "semafoare", "stream", false);
+
+    @Test
+    void forwardsAndEnforcesTheDeadline() throws Exception {
+        try (FakeOllamaServer server = new FakeOllamaServer(0, FakeOllamaServer.Profile.INSTANT).start()) {
+            server.setCannedResponse("{\"decisions\": []}");
+            AiProxyController proxy = proxy(server, 2000);
+
+            ResponseEntity<String> answer = proxy.generateProxy(REQUEST).join();
+            assertEquals(HttpStatus.OK, answer.getStatusCode());
+            assertTrue(answer.getBody().contains("\"response\":\"{\\\"decisions\\\": []}\""), answer.getBody());
+            assertEquals(HttpStatus.OK, proxy.healthCheck().join().getStatusCode());
+
+            server.setProfile(new FakeOllamaServer.Profile(1000, 0, 1_000_000, 0, 0));
+            AiProxyController impatient = proxy(server, 100);
+            long start = System.nanoTime();
+            assertEquals(HttpStatus.GATEWAY_TIMEOUT, impatient.generateProxy(REQUEST).join().getStatusCode());
+            assertTrue(System.nanoTime() - start < 900_000_000L, "answers at the deadline, not when Ollama does");
+        }
+    }
+
+    @Test
+    void streamsTheGenerationAsNdjson() throws Exception {
+        try (FakeOllamaServer server = new FakeOllamaServer(0, FakeOllamaServer.Profile.INSTANT).start()) {
+            server.setCannedResponse("[]");
+            MockMvc mvc = MockMvcBuilders.standaloneSetup(proxy(server, 2000)).build();
+
+            MvcResult response = stream(mvc);
+            assertEquals(200, response.getResponse().getStatus());
+            assertEquals(MediaType.APPLICATION_NDJSON_VALUE, response.getResponse().getContentType());
+            String[] lines = response.getResponse().getContentAsString().split("\n");
+            assertTrue(lines.length >= 2, response.getResponse().getContentAsString());
+            assertTrue(lines[0].contains("\"response\":\"[]\""), lines[0]);
+            assertTrue(lines[lines.length - 1].contains("\"done\":true"), lines[lines.length - 1]);
+        }
+    }
+
+    @Test
+    void streamPassesTheUpstreamErrorStatusThrough() throws Exception {
+        try (FakeOllamaServer server = new FakeOllamaServer(0, new FakeOllamaServer.Profile(0, 0, 1_000_000, 1.0, 0)).start()) {
+            MockMvc mvc = MockMvcBuilders.standaloneSetup(proxy(server, 2000)).build(); // Every request fails
+
+            MvcResult response = stream(mvc);
+            assertEquals(500, response.getResponse().getStatus());
+            assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getResponse().getContentType());
+            assertEquals("{\"error\":\"fake model failure\"}", response.getResponse().getContentAsString());
+        }
+    }
+
+    /**
+     * POST /generate/stream through the MVC stack: the future resolves to the emitter, which streams until done
+     */
+    private static MvcResult stream(MockMvc mvc) throws Exception {
+        MvcResult started = mvc.perform(post("/api/ai/generate/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(REQUEST)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        started.getAsyncResult(2000);
+        MvcResult streamed = mvc.perform(asyncDispatch(started)).andReturn();
+        if (streamed.getRequest().isAsyncStarted()) {
+            streamed.getAsyncResult(2000); // Emitter completed
+        }
+        return streamed;
+    }
+
+    private static AiProxyController proxy(FakeOllamaServer server, long deadlineMs) {
+        AiProxyController proxy = new AiProxyController();
+        ReflectionTestUtils.setField(proxy, "ollamaBaseUrl", server.getBaseUrl());
+        ReflectionTestUtils.setField(proxy, "deadlineMs", deadlineMs);
+        ReflectionTestUtils.setField(proxy, "connectTimeoutMs", 1000L);
+        proxy.init();
+        return proxy;
+    }
+}
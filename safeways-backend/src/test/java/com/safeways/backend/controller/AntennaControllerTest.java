@@ -0,0 +1,44 @@
+package com.safeways.backend.controller;
+
+import com.safeways.backend.service.IntersectionAntenna;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AntennaControllerTest {
+
+    @Test
+    void servesTheSameSnapshotUntilTheDataChangesAndAnswers304() {
+        IntersectionAntenna antenna = new IntersectionAntenna();
+        AntennaController controller = new AntennaController();
+        ReflectionTestUtils.setField(controller, "intersectionAntenna", antenna);
+        antenna.updateVehicleData(new IntersectionAntenna.VehicleLiveData("CAR_1", "Car", 0, 0, 70, 0, false));
+
+        ResponseEntity<byte[]> first = controller.getLiveData(null);
+        String etag = first.getHeaders().getETag();
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(etag);
+        String body = new String(first.getBody(), StandardCharsets.UTF_8);
+        assertTrue(body.contains("\"speedingCount\":1"), body);
+        assertSame(first.getBody(), controller.getLiveData(null).getBody(), "serialized once per version");
+
+        ResponseEntity<byte[]> unchanged = controller.getLiveData(etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertNull(unchanged.getBody());
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.getSpeedingVehicles(etag).getStatusCode());
+
+        antenna.updateVehicleData(new IntersectionAntenna.VehicleLiveData("CAR_2", "Car", 0, 0, 30, 0, false));
+        ResponseEntity<byte[]> changed = controller.getLiveData(etag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+
+        antenna.setSpeedLimit(80);
+        assertEquals(HttpStatus.OK, controller.getVehiclesInRadius(changed.getHeaders().getETag()).getStatusCode(),
+                     "settings changes invalidate the snapshot too");
+    }
+}
@@ -0,0 +1,318 @@
+package com.safeways.backend.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the Ollama server, for load tests without the real GPU box.
+ *
+ * Speaks the subset the backend uses: POST /api/chat (AiDecisionService, streaming or not), POST /api/generate
+ * (AiProxyController) and GET /api/tags (health check). Answers are rule-generated from the collision prompt's
+ * "implicate" table - the vehicle that cannot stop, otherwise the first to arrive, continues and everybody else
+ * stops - or a fixed canned text. Time to first token, token rate and failures follow a Profile.
+ *
+ * Standalone: mvn test-compile exec:java -Dexec.classpathScope=test -Dfake.profile=LAN_GPU
+ *             -Dexec.mainClass=com.safeways.backend.fake.FakeOllamaServer
+ * then start the backend with ollama.host=localhost.
+ */
+public final class FakeOllamaServer implements AutoCloseable {
+
+    public static final String MODEL = "qwen2.5:7b";
+
+    // Roughly what one token of JSON output is
+    private static final int CHARS_PER_TOKEN = 4;
+
+    /**
+     * Latency and failure behaviour.
+     *
+     * @param firstTokenMedianMs median time to first token (prompt evaluation + queueing on the model server)
+     * @param firstTokenSigma    log-normal spread of the time to first token, 0 = always the median
+     * @param tokensPerSecond    generation speed once the first token is out
+     * @param errorRate          share of requests answered with HTTP 500
+     * @param malformedRate      share of requests answered with text that is not a complete JSON decision
+     */
+    public record Profile(double firstTokenMedianMs, double firstTokenSigma, double tokensPerSecond,
+                          double errorRate, double malformedRate) {
+
+        public static final Profile INSTANT = new Profile(0, 0, 1_000_000, 0, 0);
+        public static final Profile LOCAL_GPU = new Profile(120, 0.3, 80, 0, 0);
+        public static final Profile LAN_GPU = new Profile(350, 0.5, 40, 0.01, 0.02);
+        public static final Profile CPU_ONLY = new Profile(2500, 0.6, 8, 0.02, 0.05);
+        public static final Profile FLAKY = new Profile(800, 1.0, 25, 0.2, 0.1);
+
+        public static Profile named(String name) {
+            return switch (name.toUpperCase()) {
+                case "INSTANT" -> INSTANT;
+                case "LOCAL_GPU" -> LOCAL_GPU;
+                case "LAN_GPU" -> LAN_GPU;
+                case "CPU_ONLY" -> CPU_ONLY;
+                case "FLAKY" -> FLAKY;
+                default -> throw new IllegalArgumentException("Unknown profile " + name);
+            };
+        }
+
+        long sampleFirstTokenNanos() {
+            double gaussian = ThreadLocalRandom.current().nextGaussian();
+            return (long) (firstTokenMedianMs * Math.exp(firstTokenSigma * gaussian) * 1_000_000);
+        }
+
+        long nanosPerToken() {
+            return (long) (1_000_000_000L / tokensPerSecond);
+        }
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private volatile Profile profile;
+    private volatile String cannedResponse;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    /**
+     * Binds to localhost; port 0 picks a free one
+     */
+    public FakeOllamaServer(int port, Profile profile) throws IOException {
+        this.profile = profile;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/chat", exchange -> handleCompletion(exchange, true));
+        server.createContext("/api/generate", exchange -> handleCompletion(exchange, false));
+        server.createContext("/api/tags", this::handleTags);
+    }
+
+    public FakeOllamaServer start() {
+        server.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void setProfile(Profile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Fixed answer for every request instead of the rule-generated decision; null switches back to the rules
+     */
+    public void setCannedResponse(String cannedResponse) {
+        this.cannedResponse = cannedResponse;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("failed", failed.get());
+        stats.put("malformed", malformed.get());
+        stats.put("inFlight", inFlight.get());
+        stats.put("maxInFlight", maxInFlight.get());
+        return stats;
+    }
+
+    private void handleTags(HttpExchange exchange) throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        ObjectNode model = root.putArray("models").addObject();
+        model.put("name", MODEL);
+        model.put("model", MODEL);
+        model.put("modified_at", Instant.now().toString());
+        model.put("size", 4_683_087_332L);
+        model.put("digest", "fake");
+        send(exchange, 200, "application/json", root.toString());
+    }
+
+    private void handleCompletion(HttpExchange exchange, boolean chat) throws IOException {
+        int running = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(running, Math::max);
+        requests.incrementAndGet();
+        try {
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            String model = request.path("model").asText(MODEL);
+            boolean stream = request.path("stream").asBoolean(true); // Ollama streams unless told otherwise
+            String prompt = chat ? lastUserMessage(request) : request.path("prompt").asText("");
+
+            Profile current = profile;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            sleepNanos(current.sampleFirstTokenNanos());
+            if (random.nextDouble() < current.errorRate()) {
+                failed.incrementAndGet();
+                send(exchange, 500, "application/json", "{\"error\":\"fake model failure\"}");
+                return;
+            }
+
+            String answer = (cannedResponse != null) ? cannedResponse : decide(prompt);
+            if (random.nextDouble() < current.malformedRate()) {
+                malformed.incrementAndGet();
+                answer = answer.substring(0, answer.length() / 2);
+            }
+
+            List<String> tokens = new ArrayList<>();
+            for (int i = 0; i < answer.length(); i += CHARS_PER_TOKEN) {
+                tokens.add(answer.substring(i, Math.min(i + CHARS_PER_TOKEN, answer.length())));
+            }
+            int promptTokens = prompt.length() / CHARS_PER_TOKEN;
+
+            if (!stream) {
+                sleepNanos(current.nanosPerToken() * tokens.size());
+                send(exchange, 200, "application/json",
+                     chunk(model, chat, answer, true, promptTokens, tokens.size()).toString());
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String token : tokens) {
+                    sleepNanos(current.nanosPerToken());
+                    writeLine(out, chunk(model, chat, token, false, 0, 0));
+                }
+                writeLine(out, chunk(model, chat, "", true, promptTokens, tokens.size()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    /**
+     * Reads the "implicate" table of the collision prompt (id|tip|kg|v|dist|t_sos|t_acc|opreste). The vehicle that
+     * cannot stop - otherwise the earliest arrival - continues, the others stop.
+     */
+    String decide(String prompt) {
+        List<String[]> rows = new ArrayList<>();
+        String[] lines = prompt.split("\n");
+        int start = -1;
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].trim().equals("implicate")) {
+                start = i + 2; // Skip the header
+                break;
+            }
+        }
+        for (int i = Math.max(start, 0); start >= 0 && i < lines.length; i++) {
+            String[] fields = lines[i].trim().split("\\|");
+            if (fields.length != 8) break;
+            rows.add(fields);
+        }
+        if (rows.isEmpty()) return "[]";
+
+        String[] goer = rows.get(0);
+        for (String[] row : rows) {
+            boolean cannotStop = row[7].equals("NU");
+            boolean goerCannotStop = goer[7].equals("NU");
+            if (cannotStop && !goerCannotStop
+                    || cannotStop == goerCannotStop && parse(row[5]) < parse(goer[5])) {
+                goer = row;
+            }
+        }
+
+        ArrayNode decision = mapper.createArrayNode();
+        for (String[] row : rows) {
+            ObjectNode command = decision.addObject();
+            command.put("vehicleId", row[0]);
+            if (row == goer) {
+                command.put("actiune", "CONTINUA");
+                command.put("vitezaTintaKmH", (long) parse(row[3]));
+                command.put("motiv", "ajunge primul la punctul de coliziune");
+            } else {
+                command.put("actiune", "OPRESTE");
+                command.put("vitezaTintaKmH", 0);
+                command.put("motiv", "cedează trecerea lui " + goer[0]);
+            }
+        }
+        return decision.toString();
+    }
+
+    private ObjectNode chunk(String model, boolean chat, String content, boolean done,
+                             int promptTokens, int evalTokens) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("model", model);
+        node.put("created_at", Instant.now().toString());
+        if (chat) {
+            ObjectNode message = node.putObject("message");
+            message.put("role", "assistant");
+            message.put("content", content);
+        } else {
+            node.put("response", content);
+        }
+        node.put("done", done);
+        if (done) {
+            node.put("prompt_eval_count", promptTokens);
+            node.put("eval_count", evalTokens);
+        }
+        return node;
+    }
+
+    private static String lastUserMessage(JsonNode request) {
+        String prompt = "";
+        for (JsonNode message : request.path("messages")) {
+            if ("user".equals(message.path("role").asText())) {
+                prompt = message.path("content").asText("");
+            }
+        }
+        return prompt;
+    }
+
+    private static double parse(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.MAX_VALUE;
+        }
+    }
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        }
+    }
+
+    private static void writeLine(OutputStream out, ObjectNode node) throws IOException {
+        out.write((node.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Profile profile = Profile.named(System.getProperty("fake.profile", "LAN_GPU"));
+        FakeOllamaServer server = new FakeOllamaServer(Integer.getInteger("fake.port", 11434), profile).start();
+        System.out.println("🤖 Fake Ollama on " + server.getBaseUrl() + " with " + profile);
+        Thread.currentThread().join();
+    }
+}
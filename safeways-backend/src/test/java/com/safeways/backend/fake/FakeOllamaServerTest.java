@@ -0,0 +1,68 @@
+package com.safeways.backend.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safeways.backend.model.VehicleAction;
+import com.safeways.backend.model.VehicleCommand;
+import com.safeways.backend.service.DecisionCodec;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FakeOllamaServerTest {
+
+    private static final String PROMPT = "intersectie=Main_Node\nvreme=CLEAR\nconflicte\nnr|ttc|vehicule\n1|1.4|A,B\n"
+        + "implicate\nid|tip|kg|v|dist|t_sos|t_acc|opreste\nA|CIVIL|1500|54|20|1.33|1.1|da\nB|CIVIL|1500|50|20|1.44|1.2|da\n";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void answersChatWithARuleBasedDecisionStreamedOrNot() throws Exception {
+        try (FakeOllamaServer server = new FakeOllamaServer(0, FakeOllamaServer.Profile.INSTANT).start()) {
+            JsonNode answer = mapper.readTree(post(server, "/api/chat", false).body());
+            List<VehicleCommand> commands = DecisionCodec.parse(answer.path("message").path("content").asText());
+            assertEquals(List.of(VehicleAction.CONTINUE, VehicleAction.STOP),
+                         commands.stream().map(VehicleCommand::action).toList());
+            assertEquals("A", commands.get(0).vehicleId(), "earliest arrival keeps going");
+
+            String[] lines = post(server, "/api/chat", true).body().split("\n");
+            StringBuilder streamed = new StringBuilder();
+            for (String line : lines) {
+                streamed.append(mapper.readTree(line).path("message").path("content").asText());
+            }
+            assertTrue(lines.length > 2);
+            assertTrue(mapper.readTree(lines[lines.length - 1]).path("done").asBoolean());
+            assertEquals(answer.path("message").path("content").asText(), streamed.toString());
+
+            HttpResponse<String> tags = client.send(HttpRequest.newBuilder(URI.create(server.getBaseUrl() + "/api/tags"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(FakeOllamaServer.MODEL, mapper.readTree(tags.body()).path("models").get(0).path("name").asText());
+        }
+    }
+
+    @Test
+    void injectsFailures() throws Exception {
+        try (FakeOllamaServer server = new FakeOllamaServer(0, new FakeOllamaServer.Profile(0, 0, 1_000_000, 1.0, 0)).start()) {
+            assertEquals(500, post(server, "/api/generate", false).statusCode());
+            assertEquals(1L, server.stats().get("failed"));
+        }
+    }
+
+    private HttpResponse<String> post(FakeOllamaServer server, String path, boolean stream) throws Exception {
+        String body = mapper.createObjectNode()
+            .put("model", FakeOllamaServer.MODEL)
+            .put("stream", stream)
+            .set("messages", mapper.createArrayNode().add(
+                mapper.createObjectNode().put("role", "user").put("content", PROMPT)))
+            .toString();
+        return client.send(HttpRequest.newBuilder(URI.create(server.getBaseUrl() + path))
+            .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,29 @@
+package com.safeways.backend.headless;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadlessScenarioRunnerTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaysAScenarioOnTheVirtualClockAndWritesTheReport() throws Exception {
+        File report = File.createTempFile("headless-report", ".json");
+        report.deleteOnExit();
+
+        Map<String, Object> result = HeadlessScenarioRunner.run(
+            "--headless.duration-s=120", "--headless.antennas=intersections", "--headless.report=" + report.getPath());
+
+        assertEquals(120.0, result.get("simulatedSeconds"));
+        Map<String, Object> vehicles = (Map<String, Object>) result.get("vehicles");
+        assertTrue((Long) vehicles.get("spawned") > 100, "one spawn every 500 ms of simulated time");
+        assertEquals(1_200L, ((Map<String, Object>) ((Map<String, Object>) ((Map<String, Object>) result.get("loop"))
+            .get("tasks")).get("antennaTick")).get("runs"));
+        assertFalse(((Map<String, Object>) result.get("decisionsBySource")).containsKey("AI"), "model disabled");
+        assertTrue(report.length() > 0);
+    }
+}
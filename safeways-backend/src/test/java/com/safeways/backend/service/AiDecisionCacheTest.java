@@ -0,0 +1,71 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.VehicleAction;
+import com.safeways.backend.model.VehicleCommand;
+import com.safeways.backend.model.WeatherCondition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiDecisionCacheTest {
+
+    @Test
+    void sameGeometryWithOtherVehiclesIsRemapped() {
+        AiDecisionCache cache = new AiDecisionCache(16, 60);
+
+        ScenarioSignature first = signature(List.of("A", "B"), 0);
+        cache.put(first, List.of(
+            new VehicleCommand("A", VehicleAction.CONTINUE, 54, "first"),
+            new VehicleCommand("B", VehicleAction.STOP, 0, "yield")));
+
+        // Same crossing a few metres further along the road, different cars
+        ScenarioSignature second = signature(List.of("X", "Y"), 0.4);
+        assertEquals(first.key, second.key);
+
+        List<VehicleCommand> hit = cache.get(second);
+        assertNotNull(hit);
+        assertEquals(VehicleAction.CONTINUE, find(hit, "X").action());
+        assertEquals(VehicleAction.STOP, find(hit, "Y").action());
+        assertEquals(1L, cache.stats().get("hits"));
+
+        assertNull(cache.get(signatureIn(WeatherCondition.SNOW)));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        AiDecisionCache cache = new AiDecisionCache(1, 60);
+        ScenarioSignature clear = signatureIn(WeatherCondition.CLEAR);
+        ScenarioSignature rain = signatureIn(WeatherCondition.RAIN);
+
+        cache.put(clear, List.of(new VehicleCommand("A", VehicleAction.STOP, 0, "")));
+        cache.put(rain, List.of(new VehicleCommand("A", VehicleAction.STOP, 0, "")));
+
+        assertNull(cache.get(clear));
+        assertNotNull(cache.get(rain));
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+
+    private static ScenarioSignature signatureIn(WeatherCondition weather) {
+        return signature(List.of("A", "B"), 0, weather);
+    }
+
+    private static ScenarioSignature signature(List<String> ids, double shift) {
+        return signature(ids, shift, WeatherCondition.CLEAR);
+    }
+
+    private static ScenarioSignature signature(List<String> ids, double shift, WeatherCondition weather) {
+        List<CollisionPredictor.VehicleState2D> states = List.of(
+            CollisionPredictor.VehicleState2D.fromVehicleWithDirection(-20 + shift, 0, 0, 54, 1500, 7.5),
+            CollisionPredictor.VehicleState2D.fromVehicleWithDirection(0, -24 + shift, Math.PI / 2, 54, 1500, 7.5));
+        ConflictClusterer clusterer = new ConflictClusterer(2);
+        clusterer.add(0, 1, CollisionPredictor.detectCollision2DAnalytic(states.get(0), states.get(1), 2.5, 2.0, weather));
+        return ScenarioSignature.of(clusterer.clusters(), states, ids, List.of("Car", "Car"), weather);
+    }
+
+    private static VehicleCommand find(List<VehicleCommand> commands, String id) {
+        return commands.stream().filter(c -> c.vehicleId().equals(id)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,104 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiDecisionServiceTest {
+
+    private final AtomicInteger modelCalls = new AtomicInteger();
+    private CompletableFuture<String> pending = new CompletableFuture<>();
+
+    // Model call replaced by a future the test completes by hand
+    private final AiDecisionService service = new AiDecisionService() {
+        @Override
+        public CompletableFuture<String> decideForIntersectionBatchAsync(String intersectionId, String batchContext) {
+            modelCalls.incrementAndGet();
+            return pending;
+        }
+    };
+
+    @Test
+    void concurrentCallersForTheSameConflictShareOneRequest() {
+        CompletableFuture<String> first = service.decideForConflictAsync("Main_Node", List.of("A", "B"), "tick");
+        CompletableFuture<String> second = service.decideForConflictAsync("Main_Node", List.of("B", "A"), "predict");
+        CompletableFuture<String> otherNode = service.decideForConflictAsync("Node_2", List.of("A", "B"), "tick");
+
+        assertSame(first, second);
+        assertNotSame(first, otherNode);
+        assertEquals(2, modelCalls.get());
+
+        pending.complete("[]");
+        assertEquals("[]", second.join());
+        assertEquals(1L, service.getSingleFlightStats().get("coalescedCalls"));
+    }
+
+    @Test
+    void finishedRequestExpires() throws InterruptedException {
+        service.decideForConflictAsync("Main_Node", List.of("A", "B"), "tick");
+        pending.complete("[]");
+
+        // Linger defaults to 0 outside Spring - the entry goes away right after completion
+        for (int i = 0; i < 100 && (int) service.getSingleFlightStats().get("inFlight") > 0; i++) {
+            Thread.sleep(10);
+        }
+        pending = new CompletableFuture<>();
+        service.decideForConflictAsync("Main_Node", List.of("A", "B"), "tick");
+        assertEquals(2, modelCalls.get());
+    }
+
+    @Test
+    void fullQueueDoesNotTakeTheHalfOpenTrialCall() throws Exception {
+        // One call runs, one waits in the queue; the breaker opens after one failure and cools down in 50 ms
+        CircuitBreaker breaker = new CircuitBreaker(1, 50);
+        ReflectionTestUtils.setField(service, "maxQueue", 1);
+        ReflectionTestUtils.setField(service, "callTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(service, "permits", new Semaphore(1));
+        ReflectionTestUtils.setField(service, "circuitBreaker", breaker);
+        ReflectionTestUtils.setField(service, "aiExecutor", Executors.newVirtualThreadPerTaskExecutor());
+
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = service.runInBulkhead("Main_Node", () -> {
+            release.await();
+            throw new IllegalStateException("model down");
+        });
+        awaitActive(1);
+        CompletableFuture<String> waiting = service.runInBulkhead("Main_Node", () -> {
+            throw new IllegalStateException("model down");
+        });
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(60);
+
+        // Rejected by the full queue before the breaker is asked - no trial call is used up
+        assertEquals(AiDecisionService.NO_DECISION, service.runInBulkhead("Main_Node", () -> "[]").join());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        release.countDown();
+        running.join();
+        waiting.join();
+        awaitActive(0); // The outcome is recorded just after the future completes
+        Thread.sleep(60);
+
+        // Both queued calls failed; after the cool-down the trial call goes through and closes the breaker
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals("[{}]", service.runInBulkhead("Main_Node", () -> "[{}]").join());
+        awaitActive(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private void awaitActive(int expected) throws InterruptedException {
+        for (int i = 0; i < 100 && (int) service.getBulkheadStats().get("active") != expected; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
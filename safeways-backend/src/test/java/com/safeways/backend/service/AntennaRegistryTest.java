@@ -0,0 +1,33 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AntennaRegistryTest {
+
+    @Test
+    void routesVehiclesToTheNearestAntennaAndHandsThemOver() {
+        AntennaRegistry registry = new AntennaRegistry(50, 2);
+        IntersectionAntenna west = new IntersectionAntenna("W", 0, 0, 50, 50);
+        IntersectionAntenna east = new IntersectionAntenna("E", 80, 0, 50, 50);
+        registry.register(west);
+        registry.register(east);
+
+        assertSame(west, registry.route(car(30)));
+        assertEquals(1, west.getVehicleCount());
+
+        // Moves past the midpoint - now closer to the east antenna
+        assertSame(east, registry.route(car(45)));
+        assertEquals(0, west.getVehicleCount());
+        assertEquals(1, east.getVehicleCount());
+
+        assertNull(registry.route(car(200)), "outside every antenna's range");
+        assertEquals(0, east.getVehicleCount());
+        assertEquals(1L, registry.stats().get("handovers"));
+    }
+
+    private static IntersectionAntenna.VehicleLiveData car(double x) {
+        return new IntersectionAntenna.VehicleLiveData("CAR_1", "Car", x, 0, 40, 0, false);
+    }
+}
@@ -0,0 +1,36 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailuresAndRecoversThroughOneTrialCall() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(3, 50);
+
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess(); // Resets the streak
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        Thread.sleep(60);
+        assertTrue(breaker.allowRequest());   // Trial call
+        assertFalse(breaker.allowRequest());  // Only one while half-open
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(60);
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(2, breaker.getTimesOpened());
+    }
+}
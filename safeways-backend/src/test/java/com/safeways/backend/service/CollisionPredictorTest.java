@@ -0,0 +1,118 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.WeatherCondition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollisionPredictorTest {
+
+    private static final double RADIUS = 2.5;   // contact when centres are closer than 5m
+    private static final double HORIZON = 2.0;
+    private static final double STEP = 0.1;    // granularity of the stepped reference
+
+    @Test
+    void analyticMatchesSteppedOnRandomScenarios() {
+        Random random = new Random(42);
+        int steppedHits = 0;
+        int analyticOnlyHits = 0;
+
+        for (int n = 0; n < 20_000; n++) {
+            CollisionPredictor.VehicleState2D v1 = randomVehicle(random);
+            CollisionPredictor.VehicleState2D v2 = randomVehicle(random);
+
+            CollisionPredictor.CollisionResult stepped =
+                CollisionPredictor.detectCollision2D(v1, v2, RADIUS, HORIZON, WeatherCondition.CLEAR);
+            CollisionPredictor.CollisionResult analytic =
+                CollisionPredictor.detectCollision2DAnalytic(v1, v2, RADIUS, HORIZON, WeatherCondition.CLEAR);
+
+            if (stepped.collisionDetected) {
+                steppedHits++;
+                // Every sampled hit is an exact hit, found no later and at most one step earlier
+                assertTrue(analytic.collisionDetected, "analytic missed a sampled collision #" + n);
+                assertTrue(analytic.timeToCollision <= stepped.timeToCollision + 1e-9);
+                assertTrue(stepped.timeToCollision - analytic.timeToCollision < STEP + 1e-9);
+            } else if (analytic.collisionDetected) {
+                analyticOnlyHits++;
+            }
+
+            if (analytic.collisionDetected) {
+                assertContactAt(v1, v2, analytic.timeToCollision);
+                assertNotNull(analytic.predictionV1);
+                assertNotNull(analytic.predictionV2);
+            }
+        }
+
+        assertTrue(steppedHits > 100, "scenario generator should produce collisions");
+        assertTrue(analyticOnlyHits > 0, "some contacts should fall between samples");
+    }
+
+    @Test
+    void analyticCatchesContactBetweenSamples() {
+        // v2 crosses in front of a stationary v1 so fast that it is inside 5m only around t = 0.05s
+        CollisionPredictor.VehicleState2D v1 = new CollisionPredictor.VehicleState2D(0, 0, 0, 0, 0, 1500, 7.5);
+        CollisionPredictor.VehicleState2D v2 = new CollisionPredictor.VehicleState2D(-3, 4.9, 60, 0, 216, 1500, 7.5);
+
+        assertFalse(CollisionPredictor.detectCollision2D(v1, v2, RADIUS, HORIZON, WeatherCondition.CLEAR).collisionDetected);
+
+        CollisionPredictor.CollisionResult analytic =
+            CollisionPredictor.detectCollision2DAnalytic(v1, v2, RADIUS, HORIZON, WeatherCondition.CLEAR);
+        assertTrue(analytic.collisionDetected);
+        assertTrue(analytic.timeToCollision > 0 && analytic.timeToCollision < 0.05);
+    }
+
+    @Test
+    void analyticReportsZeroWhenAlreadyOverlapping() {
+        CollisionPredictor.VehicleState2D v1 = new CollisionPredictor.VehicleState2D(0, 0, 10, 0, 36, 1500, 7.5);
+        CollisionPredictor.VehicleState2D v2 = new CollisionPredictor.VehicleState2D(3, 0, -10, 0, 36, 1500, 7.5);
+
+        CollisionPredictor.CollisionResult analytic =
+            CollisionPredictor.detectCollision2DAnalytic(v1, v2, RADIUS, HORIZON, WeatherCondition.RAIN);
+        assertTrue(analytic.collisionDetected);
+        assertEquals(0.0, analytic.timeToCollision, 0.0);
+    }
+
+    @Test
+    void batchMatchesPairwise() {
+        Random random = new Random(7);
+        CollisionPredictor.VehicleState2D[] others = new CollisionPredictor.VehicleState2D[500];
+        for (int i = 0; i < others.length; i++) {
+            others[i] = randomVehicle(random);
+        }
+        CollisionPredictor.VehicleState2D subject = others[17];
+
+        CollisionPredictor.CollisionResult[] batch =
+            CollisionPredictor.detectCollisionsAgainst(subject, others, RADIUS, HORIZON, WeatherCondition.SNOW);
+
+        assertEquals(others.length, batch.length);
+        assertFalse(batch[17].collisionDetected);
+        for (int i = 0; i < others.length; i++) {
+            if (i == 17) continue;
+            CollisionPredictor.CollisionResult single =
+                CollisionPredictor.detectCollision2DAnalytic(subject, others[i], RADIUS, HORIZON, WeatherCondition.SNOW);
+            assertEquals(single.collisionDetected, batch[i].collisionDetected);
+            assertEquals(single.timeToCollision, batch[i].timeToCollision, 1e-12);
+        }
+    }
+
+    private static void assertContactAt(CollisionPredictor.VehicleState2D v1, CollisionPredictor.VehicleState2D v2, double t) {
+        double dx = (v2.x + v2.vx * t) - (v1.x + v1.vx * t);
+        double dy = (v2.y + v2.vy * t) - (v1.y + v1.vy * t);
+        double dist = Math.sqrt(dx * dx + dy * dy);
+        if (t == 0) {
+            assertTrue(dist < RADIUS * 2);
+        } else {
+            assertEquals(RADIUS * 2, dist, 1e-6, "first contact should be exactly on the contact circle");
+        }
+    }
+
+    private static CollisionPredictor.VehicleState2D randomVehicle(Random random) {
+        double x = -40 + random.nextDouble() * 80;
+        double y = -40 + random.nextDouble() * 80;
+        double rotation = random.nextDouble() * 2 * Math.PI;
+        double speedKmH = random.nextDouble() * 90;
+        return CollisionPredictor.VehicleState2D.fromVehicleWithDirection(x, y, rotation, speedKmH, 1500, 7.5);
+    }
+}
@@ -0,0 +1,67 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.WeatherCondition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollisionPromptBuilderTest {
+
+    @Test
+    void participantsComeFirstAndTheBudgetHolds() {
+        List<CollisionPredictor.VehicleState2D> states = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        List<ConflictClusterer.Cluster> clusters = crossingWithBystanders(states, ids, types);
+
+        CollisionPromptBuilder builder = new CollisionPromptBuilder(150);
+        String situation = builder.buildSituation(WeatherCondition.RAIN, clusters, states, ids, types);
+
+        assertTrue(CollisionPromptBuilder.estimateTokens(situation) <= 150, situation);
+        assertTrue(situation.contains("\nV0|CIVIL|1500|54|"));
+        assertTrue(situation.contains("\nV1|AMBULANCE!|12000|54|"));
+        assertTrue(situation.contains("...+"), "bystanders that do not fit are summarised");
+
+        String prompt = CollisionPromptBuilder.prompt("Main_Node", situation);
+        assertTrue(prompt.startsWith(CollisionPromptBuilder.INSTRUCTIONS));
+        assertFalse(CollisionPromptBuilder.INSTRUCTIONS.contains("Main_Node"));
+    }
+
+    @Test
+    void headersAndSummaryLinesCountAgainstTheBudget() {
+        List<CollisionPredictor.VehicleState2D> states = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        List<ConflictClusterer.Cluster> clusters = crossingWithBystanders(states, ids, types);
+
+        String full = new CollisionPromptBuilder(10_000).buildSituation(WeatherCondition.RAIN, clusters, states, ids, types);
+        int exact = CollisionPromptBuilder.estimateTokens(full);
+        assertEquals(full, new CollisionPromptBuilder(exact).buildSituation(WeatherCondition.RAIN, clusters, states, ids, types),
+            "everything fits at exactly its own size");
+
+        for (int budget = 1; budget < exact; budget++) {
+            String situation = new CollisionPromptBuilder(budget).buildSituation(WeatherCondition.RAIN, clusters, states, ids, types);
+            assertTrue(CollisionPromptBuilder.estimateTokens(situation) <= budget, budget + ": " + situation);
+        }
+    }
+
+    // Two crossing vehicles plus 200 bystanders far away
+    private static List<ConflictClusterer.Cluster> crossingWithBystanders(List<CollisionPredictor.VehicleState2D> states,
+                                                                         List<String> ids, List<String> types) {
+        states.add(CollisionPredictor.VehicleState2D.fromVehicleWithDirection(-20, 0, 0, 54, 1500, 7.5));
+        states.add(CollisionPredictor.VehicleState2D.fromVehicleWithDirection(0, -24, Math.PI / 2, 54, 12000, 4.0));
+        for (int i = 0; i < 200; i++) {
+            states.add(CollisionPredictor.VehicleState2D.fromVehicleWithDirection(500 + i * 10, 500, 0, 30, 1500, 7.5));
+        }
+        for (int i = 0; i < states.size(); i++) {
+            ids.add("V" + i);
+            types.add(i == 1 ? "Ambulance - MAXIMUM URGENCY (Sirens on)" : "Civil (Normal priority)");
+        }
+        ConflictClusterer clusterer = new ConflictClusterer(states.size());
+        clusterer.add(0, 1, CollisionPredictor.detectCollision2DAnalytic(states.get(0), states.get(1), 2.5, 2.0, WeatherCondition.RAIN));
+        return clusterer.clusters();
+    }
+}
@@ -0,0 +1,38 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictClustererTest {
+
+    @Test
+    void pairsSharingAVehicleFormOneCluster() {
+        ConflictClusterer clusterer = new ConflictClusterer(6);
+        clusterer.add(0, 1, hit(1.5));
+        clusterer.add(1, 4, hit(0.8));
+        clusterer.add(2, 3, hit(0.3));
+
+        List<ConflictClusterer.Cluster> clusters = clusterer.clusters();
+
+        assertEquals(2, clusters.size());
+        // Most urgent cluster first
+        assertEquals(List.of(2, 3), clusters.get(0).members);
+        assertEquals(List.of(0, 1, 4), clusters.get(1).members);
+        assertEquals(2, clusters.get(1).pairs.size());
+        assertEquals(0.8, clusters.get(1).getTimeToCollision(), 0.0);
+    }
+
+    @Test
+    void noPairsNoClusters() {
+        ConflictClusterer clusterer = new ConflictClusterer(3);
+        assertTrue(clusterer.isEmpty());
+        assertTrue(clusterer.clusters().isEmpty());
+    }
+
+    private static CollisionPredictor.CollisionResult hit(double time) {
+        return new CollisionPredictor.CollisionResult(true, time, new double[]{0, 0}, null, null);
+    }
+}
@@ -0,0 +1,42 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.VehicleAction;
+import com.safeways.backend.model.VehicleCommand;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionCodecTest {
+
+    @Test
+    void parsesTheKnownShapeVariants() {
+        String array = "```json\n[{\"vehicleId\": \"A\", \"actiune\": \"OPRESTE\", \"vitezaTintaKmH\": 0, \"motiv\": \"x\"},"
+            + " \"not a command\", {\"id\": 7, \"Action\": \"slow_down\", \"targetSpeedKmH\": \"20\"}]\n```";
+        List<VehicleCommand> commands = DecisionCodec.parse(array);
+        assertEquals(List.of(
+            new VehicleCommand("A", VehicleAction.STOP, 0, "x"),
+            new VehicleCommand("7", VehicleAction.SLOW_DOWN, 20, "")), commands);
+
+        List<VehicleCommand> single = DecisionCodec.parse("{\"vehicleId\": \"B\", \"action\": \"ACCELEREAZA\"}");
+        assertEquals(VehicleAction.ACCELERATE, single.get(0).action());
+
+        List<VehicleCommand> wrapped = DecisionCodec.parse(
+            "{\"decizii\": [{\"vehicleId\": \"C\", \"actiune\": \"ZBOARA\", \"meta\": {\"id\": \"ignored\"}}]}");
+        assertEquals(1, wrapped.size());
+        assertEquals("C", wrapped.get(0).vehicleId());
+        assertNull(wrapped.get(0).action(), "unknown actions are left for the caller to reject");
+
+        assertTrue(DecisionCodec.parse("[\"Traffic safe, less than 2 vehicles.\"]").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> DecisionCodec.parse("[{\"vehicleId\": "));
+    }
+
+    @Test
+    void roundTripsItsOwnOutput() {
+        List<VehicleCommand> commands = List.of(
+            new VehicleCommand("A", VehicleAction.CONTINUE, 50, "primul"),
+            new VehicleCommand("B", VehicleAction.SLOW_DOWN, 18, "cedează \"trecerea\""));
+        assertEquals(commands, DecisionCodec.parse(DecisionCodec.toJson(commands)));
+    }
+}
@@ -0,0 +1,45 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedTimestepLoopTest {
+
+    @Test
+    void stepsByTheFixedStepAndCountsCaughtUpAndDroppedSteps() {
+        SimulationClock.Virtual clock = new SimulationClock.Virtual();
+        List<Long> stepTimes = new ArrayList<>();
+        List<Long> broadcasts = new ArrayList<>();
+        FixedTimestepLoop loop = new FixedTimestepLoop(clock, 50, 5, (t, dt) -> {
+            assertEquals(50.0, dt);
+            stepTimes.add(t);
+        }).every("broadcast", 100, broadcasts::add);
+
+        clock.advanceMs(175); // Late wake-up: three steps, 25 ms left in the accumulator
+        assertEquals(3, loop.advance());
+        assertEquals(List.of(50L, 100L, 150L), stepTimes);
+        assertEquals(List.of(150L), broadcasts);
+
+        clock.advanceMs(1_000); // Stalled: five steps at most, the rest is dropped
+        assertEquals(5, loop.advance());
+        assertEquals(400, loop.getSimTimeMs());
+        assertEquals(List.of(150L, 400L), broadcasts);
+
+        Map<String, Object> stats = loop.getStats();
+        assertEquals(8L, stats.get("steps"));
+        assertEquals(6L, stats.get("caughtUpSteps"));
+        assertEquals(15L, stats.get("droppedSteps"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> broadcast = (Map<String, Object>) ((Map<String, Object>) stats.get("tasks")).get("broadcast");
+        assertEquals(2L, broadcast.get("skipped"));
+
+        clock.advanceMs(25); // 25 left + 25 = one more step
+        assertEquals(1, loop.advance());
+        assertEquals(450, loop.getSimTimeMs());
+    }
+}
@@ -0,0 +1,29 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void returnsKeysOnceTheirTickHasElapsedIncludingLaterRounds() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, 0); // One revolution = 800ms
+        wheel.schedule("soon", 150);
+        wheel.schedule("nextRound", 950); // Same slot as "soon"
+        wheel.schedule("late", 5_000);
+
+        assertTrue(wheel.advance(150).isEmpty(), "tick 100-199 has not ended yet");
+        assertEquals(List.of("soon"), wheel.advance(200));
+        assertTrue(wheel.advance(900).isEmpty());
+        assertEquals(List.of("nextRound"), wheel.advance(1_000));
+
+        wheel.schedule("overdue", 50); // Behind the wheel - goes into the next tick
+        assertEquals(List.of("overdue"), wheel.advance(1_100));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("late"), wheel.advance(60_000));
+        assertEquals(0, wheel.size());
+    }
+}
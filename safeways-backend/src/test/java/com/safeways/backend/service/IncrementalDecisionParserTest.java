@@ -0,0 +1,40 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.VehicleAction;
+import com.safeways.backend.model.VehicleCommand;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalDecisionParserTest {
+
+    private static final String ANSWER = """
+        {"decizii": [
+          {"vehicleId": "A", "actiune": "CONTINUA", "vitezaTintaKmH": 50, "motiv": "ajunge primul {fără risc}"},
+          {"vehicleId": "B", "actiune": "OPRESTE", "vitezaTintaKmH": 0, "motiv": "cedează \\"trecerea\\""}
+        ]}""";
+
+    @Test
+    void emitsEachCommandAsSoonAsItsObjectCloses() {
+        List<VehicleCommand> commands = new ArrayList<>();
+        IncrementalDecisionParser parser = new IncrementalDecisionParser(commands::add);
+
+        int firstClose = ANSWER.indexOf("}\"},") + 3; // End of A's object, past the brace inside its string
+        for (int i = 0; i < ANSWER.length(); i += 3) {
+            parser.feed(ANSWER.substring(i, Math.min(i + 3, ANSWER.length())));
+            if (i + 3 < firstClose) {
+                assertTrue(commands.isEmpty(), "nothing before A's object is complete");
+            }
+        }
+
+        assertEquals(2, commands.size());
+        assertEquals("A", commands.get(0).vehicleId());
+        assertEquals(VehicleAction.CONTINUE, commands.get(0).action());
+        assertEquals(VehicleAction.STOP, commands.get(1).action());
+        assertEquals("cedează \"trecerea\"", commands.get(1).reason());
+        assertEquals(ANSWER, parser.getText());
+    }
+}
@@ -0,0 +1,71 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntersectionAntennaTest {
+
+    @Test
+    void ticksOnItsOwnSchedulerAndTickOnlyReadsTheLatestResult() throws Exception {
+        CopyOnWriteArrayList<String> destinations = new CopyOnWriteArrayList<>();
+        IntersectionAntenna antenna = new IntersectionAntenna();
+        ReflectionTestUtils.setField(antenna, "messagingTemplate", new SimpMessagingTemplate((Message<?> message, long timeout) -> {
+            destinations.add(SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+            return true;
+        }));
+        ReflectionTestUtils.setField(antenna, "serverDrivenTick", true);
+        ReflectionTestUtils.setField(antenna, "tickIntervalMs", 20L);
+
+        antenna.startTickLoop();
+        try {
+            long deadline = System.currentTimeMillis() + 5000; // The first tick also warms up the JSON serializer
+            while (ticks(antenna) < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(ticks(antenna) >= 3, "ticks: " + ticks(antenna));
+            assertTrue(destinations.contains(IntersectionAntenna.TICK_TOPIC), destinations.toString());
+        } finally {
+            antenna.stopTickLoop();
+        }
+
+        // Loop stopped (and a tick in progress finished) - the result can no longer change between the two reads
+        ((ExecutorService) ReflectionTestUtils.getField(antenna, "tickScheduler")).awaitTermination(1, TimeUnit.SECONDS);
+        long ticksBefore = ticks(antenna);
+        IntersectionAntenna.CollisionPredictionResult latest = antenna.getLastPredictionResult();
+        assertSame(latest, antenna.tick(), "no extra detection run for a poller");
+        assertEquals(ticksBefore, ticks(antenna));
+    }
+
+    @Test
+    void simulationLoopTickReplacesTheAntennasOwnLoop() {
+        IntersectionAntenna antenna = new IntersectionAntenna();
+        ReflectionTestUtils.setField(antenna, "messagingTemplate", new SimpMessagingTemplate((Message<?> message, long timeout) -> true));
+        ReflectionTestUtils.setField(antenna, "serverDrivenTick", true);
+        ReflectionTestUtils.setField(antenna, "simulationTickMs", 100L);
+
+        antenna.startTickLoop();
+        try {
+            assertNull(ReflectionTestUtils.getField(antenna, "tickScheduler"), "own tick loop must not start");
+            assertEquals(true, antenna.getTickStats().get("simulationDriven"));
+
+            IntersectionAntenna.CollisionPredictionResult published = antenna.tickAndPublish();
+            assertSame(published, antenna.tick(), "a poller only reads what the simulation loop published");
+            assertEquals(1L, ticks(antenna));
+        } finally {
+            antenna.stopTickLoop();
+        }
+    }
+
+    private static long ticks(IntersectionAntenna antenna) {
+        return (Long) antenna.getTickStats().get("ticks");
+    }
+}
@@ -0,0 +1,79 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.VehicleAction;
+import com.safeways.backend.model.VehicleCommand;
+import com.safeways.backend.model.WeatherCondition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KinematicDecisionEngineTest {
+
+    private static final double RADIUS = 2.5;
+    private static final double HORIZON = 2.0;
+
+    private final KinematicDecisionEngine engine = new KinematicDecisionEngine();
+
+    // "A" heads east and reaches the crossing first, "B" heads north from further away
+    private final List<CollisionPredictor.VehicleState2D> crossing = List.of(
+        CollisionPredictor.VehicleState2D.fromVehicleWithDirection(-20, 0, 0, 54, 1500, 7.5),
+        CollisionPredictor.VehicleState2D.fromVehicleWithDirection(0, -24, Math.PI / 2, 54, 1500, 7.5)
+    );
+    private final List<String> ids = List.of("A", "B");
+
+    @Test
+    void laterArrivalYieldsAndThePlanIsSafe() {
+        List<ConflictClusterer.Cluster> clusters = clusters(crossing);
+        List<VehicleCommand> commands = engine.decide(clusters, crossing, ids, new boolean[2]);
+
+        assertEquals(VehicleAction.CONTINUE, command(commands, "A").action());
+        assertTrue(command(commands, "B").action().yields());
+        assertNull(engine.validate(commands, clusters, crossing, ids));
+
+        List<VehicleCommand> bothGo = List.of(
+            new VehicleCommand("A", VehicleAction.CONTINUE, 54, ""),
+            new VehicleCommand("B", VehicleAction.ACCELERATE, 70, ""));
+        assertNotNull(engine.validate(KinematicDecisionEngine.overlay(commands, bothGo), clusters, crossing, ids));
+    }
+
+    @Test
+    void slowDownThatDoesNotLetTheOtherClearIsRejected() {
+        List<ConflictClusterer.Cluster> clusters = clusters(crossing);
+        List<VehicleCommand> commands = engine.decide(clusters, crossing, ids, new boolean[2]);
+
+        // B does 54 km/h: "slowing down" to 90 speeds it up, 50 still reaches the point right behind A
+        for (double target : new double[]{90, 50}) {
+            List<VehicleCommand> unsafe = List.of(
+                new VehicleCommand("A", VehicleAction.CONTINUE, 54, ""),
+                new VehicleCommand("B", VehicleAction.SLOW_DOWN, target, ""));
+            assertNotNull(engine.validate(KinematicDecisionEngine.overlay(commands, unsafe), clusters, crossing, ids));
+        }
+
+        List<VehicleCommand> safe = List.of(new VehicleCommand("B", VehicleAction.SLOW_DOWN, 10, ""));
+        assertNull(engine.validate(KinematicDecisionEngine.overlay(commands, safe), clusters, crossing, ids));
+    }
+
+    @Test
+    void emergencyVehicleKeepsRightOfWay() {
+        List<ConflictClusterer.Cluster> clusters = clusters(crossing);
+        List<VehicleCommand> commands = engine.decide(clusters, crossing, ids, new boolean[]{false, true});
+
+        assertTrue(command(commands, "A").action().yields());
+        assertEquals(VehicleAction.CONTINUE, command(commands, "B").action());
+    }
+
+    private static List<ConflictClusterer.Cluster> clusters(List<CollisionPredictor.VehicleState2D> states) {
+        ConflictClusterer clusterer = new ConflictClusterer(states.size());
+        CollisionPredictor.CollisionResult result = CollisionPredictor.detectCollision2DAnalytic(
+            states.get(0), states.get(1), RADIUS, HORIZON, WeatherCondition.CLEAR);
+        assertTrue(result.collisionDetected);
+        clusterer.add(0, 1, result);
+        return clusterer.clusters();
+    }
+
+    private static VehicleCommand command(List<VehicleCommand> commands, String id) {
+        return commands.stream().filter(c -> c.vehicleId().equals(id)).findFirst().orElseThrow();
+    }
+}
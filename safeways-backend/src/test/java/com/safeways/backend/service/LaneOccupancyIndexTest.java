@@ -0,0 +1,40 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaneOccupancyIndexTest {
+
+    private static final LaneOccupancyIndex.LaneKey A_TO_B = new LaneOccupancyIndex.LaneKey(0, 1, 0);
+    private static final LaneOccupancyIndex.LaneKey B_TO_C = new LaneOccupancyIndex.LaneKey(1, 2, 0);
+
+    @Test
+    void leaderIsTheNextVehicleOnTheLaneAfterReorderAndHandoff() {
+        LaneOccupancyIndex index = new LaneOccupancyIndex();
+        index.place(0, A_TO_B, 10);
+        index.place(1, A_TO_B, 30);
+        index.place(2, A_TO_B, 0);
+
+        assertEquals(0, index.leader(2));
+        assertEquals(1, index.leader(0));
+        assertEquals(-1, index.leader(1), "front of its lane");
+        assertEquals(2, index.rearmost(A_TO_B));
+
+        // 2 overtakes 0; the order only changes on reorder()
+        index.setProgress(2, 20);
+        index.reorder();
+        assertEquals(2, index.leader(0));
+        assertEquals(1, index.leader(2));
+
+        // 1 reaches the end of the arc and moves on
+        index.place(1, B_TO_C, 0);
+        assertEquals(-1, index.leader(2));
+        assertEquals(1, index.rearmost(B_TO_C));
+        assertEquals(3, index.size());
+
+        index.remove(0);
+        assertEquals(2, index.rearmost(A_TO_B));
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,128 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveVehicleStoreTest {
+
+    @Test
+    void upsertsByIdAndReusesSnapshotsUntilTheNextChange() {
+        LiveVehicleStore store = new LiveVehicleStore();
+        store.upsert(car("A", 10));
+        store.upsert(car("B", 20));
+        store.upsert(car("A", 30));
+
+        LiveVehicleStore.Snapshot first = store.snapshot();
+        assertEquals(2, first.vehicles().size());
+        assertEquals(30.0, store.get("A").speed);
+        assertSame(first, store.snapshot(), "no change - same snapshot");
+
+        store.remove("B");
+        LiveVehicleStore.Snapshot second = store.snapshot();
+        assertTrue(second.version() > first.version());
+        assertEquals(1, second.vehicles().size());
+        assertEquals(2, first.vehicles().size(), "older snapshots do not change");
+        assertThrows(UnsupportedOperationException.class, () -> second.vehicles().clear());
+    }
+
+    @Test
+    void appliesABatchAsOneVersionAndDropsStaleSequences() {
+        LiveVehicleStore store = new LiveVehicleStore();
+        long before = store.getVersion();
+
+        LiveVehicleStore.BatchResult first = store.applyBatch(List.of(
+            new LiveVehicleStore.Update(car("A", 10), 5),
+            new LiveVehicleStore.Update(car("B", 20), 1),
+            new LiveVehicleStore.Update(car("C", 30), 0)));
+        assertEquals(3, first.applied());
+        assertEquals(before + 1, first.version());
+
+        LiveVehicleStore.BatchResult second = store.applyBatch(List.of(
+            new LiveVehicleStore.Update(car("A", 99), 4),   // older than 5 - stale
+            new LiveVehicleStore.Update(car("B", 25), 2),
+            new LiveVehicleStore.Update(car("C", 35), 0))); // not sequenced - always applied
+        assertEquals(2, second.applied());
+        assertEquals(1, second.stale());
+        assertEquals(10.0, store.get("A").speed);
+        assertEquals(25.0, store.get("B").speed);
+        assertEquals(35.0, store.get("C").speed);
+    }
+
+    @Test
+    void expiresVehiclesNotSeenForTheTtlAndKeepsRefreshedOnes() {
+        long[] now = {10_000};
+        LiveVehicleStore store = new LiveVehicleStore(() -> now[0]);
+        store.upsert(car("A", 10));
+        store.upsert(car("B", 20));
+
+        now[0] += 3_000;
+        store.upsert(car("B", 25)); // B reports again, A has gone quiet
+        assertTrue(store.expire(5_000).isEmpty());
+
+        now[0] += 2_500;
+        assertEquals(List.of("A"), store.expire(5_000));
+        assertNull(store.get("A"));
+        assertEquals(25.0, store.get("B").speed);
+        assertEquals(1, store.getExpiryWheelSize(), "B rescheduled at its new last-seen time");
+
+        now[0] += 60_000; // Longer than a wheel revolution
+        assertEquals(List.of("B"), store.expire(5_000));
+        assertEquals(2, store.getExpiredCount());
+        assertEquals(0, store.snapshot().vehicles().size());
+    }
+
+    @Test
+    void keepsTheSpeedingIndexInStepWithUpdatesAndRemovals() {
+        LiveVehicleStore store = new LiveVehicleStore(50);
+        store.upsert(car("A", 40, 50));
+        store.upsert(car("B", 70, 50));
+        store.upsert(car("C", 90, 50));
+        store.upsert(car("D", 60, 50));
+        assertEquals(3, store.speedingCount());
+        assertEquals(List.of("C", "B"), ids(store.topSpeeding(2)));
+
+        store.upsert(car("C", 45, 50)); // Slowed down
+        store.upsert(car("A", 80, 50));
+        store.remove("B");
+        assertEquals(2, store.speedingCount());
+        assertEquals(List.of("A", "D"), ids(store.speeding()));
+
+        store.clear();
+        assertEquals(0, store.speedingCount());
+        assertTrue(store.topSpeeding(5).isEmpty());
+    }
+
+    @Test
+    void reflagsEveryVehicleAgainstANewLimit() {
+        LiveVehicleStore store = new LiveVehicleStore(50);
+        store.upsert(car("A", 40));
+        store.upsert(car("B", 70, 30)); // The caller's flag is ignored - the store's limit decides
+        store.upsert(car("C", 90));
+        assertEquals(List.of("C", "B"), ids(store.speeding()));
+        long version = store.getVersion();
+
+        assertEquals(1, store.setSpeedLimit(80)); // B is no longer speeding
+        assertEquals(List.of("C"), ids(store.speeding()));
+        assertTrue(store.getVersion() > version);
+
+        assertEquals(2, store.setSpeedLimit(30));
+        assertEquals(List.of("C", "B", "A"), ids(store.speeding()));
+        assertTrue(store.snapshot().vehicles().stream().allMatch(v -> v.isSpeeding));
+        assertEquals(0, store.setSpeedLimit(30));
+    }
+
+    private static List<String> ids(List<IntersectionAntenna.VehicleLiveData> vehicles) {
+        return vehicles.stream().map(v -> v.id).toList();
+    }
+
+    private static IntersectionAntenna.VehicleLiveData car(String id, double speed, double limit) {
+        return new IntersectionAntenna.VehicleLiveData(id, "Car", 0, 0, speed, 0, speed > limit);
+    }
+
+    private static IntersectionAntenna.VehicleLiveData car(String id, double speed) {
+        return new IntersectionAntenna.VehicleLiveData(id, "Car", 0, 0, speed, 0, false);
+    }
+}
@@ -0,0 +1,63 @@
+package com.safeways.backend.service;
+
+import com.safeways.backend.model.WeatherCondition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialHashBroadPhaseTest {
+
+    private static final double RADIUS = 2.5;
+    private static final double HORIZON = 2.0;
+
+    @Test
+    void neverDropsACollidingPair() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            List<CollisionPredictor.VehicleState2D> states = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                states.add(CollisionPredictor.VehicleState2D.fromVehicleWithDirection(
+                    random.nextDouble() * 300, random.nextDouble() * 300,
+                    random.nextDouble() * 2 * Math.PI, random.nextDouble() * 80, 1500, 7.5));
+            }
+
+            Set<Long> expected = collidingPairs(new AllPairsBroadPhase(), states);
+            assertEquals(expected, collidingPairs(new SpatialHashBroadPhase(), states));
+            assertEquals(expected, collidingPairs(new SpatialHashBroadPhase(RADIUS), states));
+        }
+    }
+
+    @Test
+    void visitsEachPairOnceWithLowerIndexFirst() {
+        Random random = new Random(5);
+        List<CollisionPredictor.VehicleState2D> states = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            states.add(CollisionPredictor.VehicleState2D.fromVehicleWithDirection(
+                random.nextDouble() * 60, random.nextDouble() * 60,
+                random.nextDouble() * 2 * Math.PI, random.nextDouble() * 80, 1500, 7.5));
+        }
+
+        Set<Long> seen = new HashSet<>();
+        new SpatialHashBroadPhase(4.0).forEachCandidatePair(states, RADIUS, HORIZON, (i, j) -> {
+            assertTrue(i < j);
+            assertTrue(seen.add(((long) i << 32) | j), "pair visited twice: " + i + "," + j);
+        });
+    }
+
+    private static Set<Long> collidingPairs(BroadPhase broadPhase, List<CollisionPredictor.VehicleState2D> states) {
+        Set<Long> pairs = new HashSet<>();
+        broadPhase.forEachCandidatePair(states, RADIUS, HORIZON, (i, j) -> {
+            if (CollisionPredictor.detectCollision2DAnalytic(
+                    states.get(i), states.get(j), RADIUS, HORIZON, WeatherCondition.CLEAR).collisionDetected) {
+                pairs.add(((long) i << 32) | j);
+            }
+        });
+        return pairs;
+    }
+}
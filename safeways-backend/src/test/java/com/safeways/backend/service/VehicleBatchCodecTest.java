@@ -0,0 +1,57 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VehicleBatchCodecTest {
+
+    @Test
+    void decodesObjectsCompactRowsAndBinaryToTheSameRows() throws IOException {
+        String objects = """
+            [{"id": "CAR_1", "x": 1.5, "y": -2, "speed": 40, "rotation": 0.5, "seq": 7},
+             {"id": "CAR_2", "x": 3, "y": 4, "speed": 0, "rotation": 0}]""";
+        String compact = "[[\"CAR_1\", 1.5, -2, 40, 0.5, 7], [\"CAR_2\", 3, 4, 0, 0]]";
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(2);
+            writeRow(out, "CAR_1", 1.5, -2, 40, 0.5, 7);
+            writeRow(out, "CAR_2", 3, 4, 0, 0, 0);
+        }
+
+        List<VehicleBatchCodec.Row> expected = List.of(
+            new VehicleBatchCodec.Row("CAR_1", 1.5, -2, 40, 0.5, 7),
+            new VehicleBatchCodec.Row("CAR_2", 3, 4, 0, 0, 0));
+        assertEquals(expected, VehicleBatchCodec.decode(objects.getBytes(StandardCharsets.UTF_8), "application/json"));
+        assertEquals(expected, VehicleBatchCodec.decode(compact.getBytes(StandardCharsets.UTF_8), "application/json"));
+        assertEquals(expected, VehicleBatchCodec.decode(bytes.toByteArray(), VehicleBatchCodec.BINARY_CONTENT_TYPE));
+    }
+
+    @Test
+    void oneBadRowRejectsTheWholeBatch() {
+        String body = "[[\"CAR_1\", 1, 2, 40, 0], [\"CAR_2\", 1, 2, -5, 0], {\"x\": 1, \"y\": 2, \"speed\": 3}]";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> VehicleBatchCodec.decode(body.getBytes(StandardCharsets.UTF_8), "application/json"));
+        assertTrue(e.getMessage().contains("CAR_2"), e.getMessage());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> VehicleBatchCodec.decode(new byte[] {0, 0, 0, 3}, VehicleBatchCodec.BINARY_CONTENT_TYPE));
+    }
+
+    private static void writeRow(DataOutputStream out, String id, double x, double y, double speed, double rotation,
+                                 long seq) throws IOException {
+        out.writeUTF(id);
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeDouble(speed);
+        out.writeDouble(rotation);
+        out.writeLong(seq);
+    }
+}
@@ -0,0 +1,57 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VehicleSimulationServiceTest {
+
+    @Test
+    void stepsToTheSameStateWhateverTheThreadCount() {
+        VehicleSimulationService sequential = simulation(1, 16);
+        VehicleSimulationService parallel = simulation(4, 9);
+
+        try {
+            for (int i = 1; i <= 400; i++) {
+                sequential.step(i * 50L, 50);
+                parallel.step(i * 50L, 50);
+            }
+
+            List<Map<String, Object>> expected = states(sequential);
+            assertTrue(expected.size() > 100, "fleet large enough to fork: " + expected.size());
+            assertEquals(expected, states(parallel));
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    private VehicleSimulationService simulation(int threads, int regions) {
+        MapService mapService = new MapService();
+        mapService.init();
+        VehicleSimulationService simulation = new VehicleSimulationService();
+        ReflectionTestUtils.setField(simulation, "mapService", mapService);
+        ReflectionTestUtils.setField(simulation, "messagingTemplate", new SimpMessagingTemplate((message, timeout) -> true));
+        ReflectionTestUtils.setField(simulation, "maxVehicles", 300);
+        ReflectionTestUtils.setField(simulation, "spawnIntervalMs", 0L);
+        ReflectionTestUtils.setField(simulation, "threads", threads);
+        ReflectionTestUtils.setField(simulation, "regions", regions);
+        ReflectionTestUtils.setField(simulation, "parallelMinVehicles", 0);
+        ReflectionTestUtils.setField(simulation, "seed", 42L);
+        simulation.init();
+        return simulation;
+    }
+
+    private static List<Map<String, Object>> states(VehicleSimulationService simulation) {
+        List<Map<String, Object>> states = new ArrayList<>(simulation.getVehicleStates());
+        states.sort(Comparator.comparing(state -> (String) state.get("id")));
+        return states;
+    }
+}
@@ -0,0 +1,43 @@
+package com.safeways.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VehicleStateArraysTest {
+
+    @Test
+    void reusesReleasedSlotsLowestFirst() {
+        VehicleStateArrays states = new VehicleStateArrays(16);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, states.allocate("Car-" + i));
+        }
+
+        states.release(3);
+        states.release(1);
+        states.release(1); // Already free - ignored
+        assertEquals(3, states.count());
+        assertFalse(states.isActive(1));
+
+        assertEquals(1, states.allocate("Car-5"));
+        assertEquals(3, states.allocate("Car-6"));
+        assertEquals(5, states.allocate("Car-7"));
+        assertEquals(6, states.highWater());
+        assertEquals("Car-6", states.id[3]);
+    }
+
+    @Test
+    void growsAndKeepsTheStateOfExistingSlots() {
+        VehicleStateArrays states = new VehicleStateArrays(16);
+        for (int i = 0; i < 40; i++) {
+            int slot = states.allocate("Car-" + i);
+            states.x[slot] = i;
+            states.path[slot] = new int[]{i, i + 1};
+        }
+
+        assertEquals(40, states.count());
+        assertTrue(states.capacity() >= 40);
+        assertEquals(17.0, states.x[17]);
+        assertArrayEquals(new int[]{39, 40}, states.path[39]);
+    }
+}
@@ -2,7 +2,7 @@ import React, { useEffect, useRef, useState, useCallback } from 'react';
 import { MapRenderer } from '../utils/MapRenderer';
 import { fetchBrasovMapData, calculateBoundingBox } from '../services/osmService';
 import { VehicleSimulation } from '../services/vehicleSimulation';
-import { createV2xClient } from '../services/v2xService';
+import { createV2xClient, createAntennaDecisionClient } from '../services/v2xService';
 import { updateVehicles, antennaTick, parseAiDecision, setAntennaPosition, isSimulationPaused } from '../services/antennaService';
 import { runAITrafficControl, makeLocalDecision, analyzeTrafficDensity } from '../services/aiTrafficControlService';
 
@@ -142,6 +142,16 @@ const IntersectionMap = ({ useBackendSimulation = false, showCollisionSpheres =
             let isPredicting = false;
             let antennaInitialized = false;
 
+            // Decisions for predicted collisions are pushed by the backend: fast path first, then an accepted AI refinement
+            const antennaDecisionClient = createAntennaDecisionClient((message) => {
+                console.log(`🤖 ${message.source} decision (ticket ${message.ticketId}):`, message.aiDecision);
+                const decisions = parseAiDecision(message.aiDecision);
+                if (simulationRef.current) {
+                    simulationRef.current.applyAiDecisions(decisions);
+                }
+            });
+            antennaDecisionClient.activate();
+
             const initializeAntenna = async () => {
                 // Set antenna position to center of map
                 if (mapData && mapData.nodesDict && !antennaInitialized) {
@@ -169,7 +179,7 @@ const IntersectionMap = ({ useBackendSimulation = false, showCollisionSpheres =
                     // Update backend with current vehicle positions
                     await updateVehicles(currentVehicles);
 
-                    // Request antenna tick (this may BLOCK if collision detected within 2 seconds)
+                    // Request antenna tick (returns at once with the fast-path decision; AI refinements arrive on the decision topic)
                     isPredicting = true;
                     console.log('📡 Antenna tick - checking for collisions...');
 
@@ -178,12 +188,14 @@ const IntersectionMap = ({ useBackendSimulation = false, showCollisionSpheres =
                     if (tickResult && tickResult.collisionPredicted) {
                         console.log('🚨 COLLISION PREDICTED!', tickResult);
                         console.log(`⏱️ Time to collision: ${tickResult.collisionInfo?.timeToCollision?.toFixed(1)}s`);
-                        console.log('🤖 AI Decision:', tickResult.aiDecision);
-
-                        // Parse and apply AI decisions to vehicles
-                        const decisions = parseAiDecision(tickResult.aiDecision);
-                        if (simulationRef.current) {
-                            simulationRef.current.applyAiDecisions(decisions);
+                        console.log('🤖 Decision:', tickResult.aiDecision, `(ticket ${tickResult.pendingDecisionId})`);
+
+                        // The decision in force comes back inline
+                        if (tickResult.aiDecision) {
+                            const decisions = parseAiDecision(tickResult.aiDecision);
+                            if (simulationRef.current) {
+                                simulationRef.current.applyAiDecisions(decisions);
+                            }
                         }
                     }
                 } catch (error) {
@@ -267,6 +279,7 @@ const IntersectionMap = ({ useBackendSimulation = false, showCollisionSpheres =
             return () => {
                 clearInterval(spawnInterval);
                 clearInterval(collisionInterval);
+                antennaDecisionClient.deactivate();
                 if (aiControlIntervalRef.current) clearInterval(aiControlIntervalRef.current);
                 if (animationRef.current) cancelAnimationFrame(animationRef.current);
             };
@@ -18,4 +18,21 @@ export const createV2xClient = (onDecisionReceived, onVehiclesReceived) => {
     });
 
     return client;
-};
\ No newline at end of file
+};
+
+// AI decisions for collisions detected by the backend antenna (non-blocking /api/antenna/tick)
+export const createAntennaDecisionClient = (onAntennaDecision) => {
+    const client = new Client({
+        brokerURL: 'ws://localhost:6767/v2x-stream',
+        onConnect: () => {
+            client.subscribe('/topic/antenna/decisions', (message) => {
+                if (onAntennaDecision) onAntennaDecision(JSON.parse(message.body));
+            });
+        },
+        onStompError: (frame) => {
+            console.error('❌ Eroare V2X: ' + frame.headers['message']);
+        }
+    });
+
+    return client;
+};